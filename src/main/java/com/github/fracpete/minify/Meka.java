@@ -21,7 +21,32 @@
 package com.github.fracpete.minify;
 
 import com.github.fracpete.deps4j.MinDeps;
-import com.github.fracpete.processoutput4j.output.CollectingProcessOutput;
+import com.github.fracpete.minify.budget.Budget;
+import com.github.fracpete.minify.budget.Metrics;
+import com.github.fracpete.minify.budget.StartupProbe;
+import com.github.fracpete.minify.build.BuildBackend;
+import com.github.fracpete.minify.build.BuildLog;
+import com.github.fracpete.minify.build.JavacBuildBackend;
+import com.github.fracpete.minify.build.MavenBuildBackend;
+import com.github.fracpete.minify.build.MavenDaemonBuildBackend;
+import com.github.fracpete.minify.cache.RunCache;
+import com.github.fracpete.minify.cache.RunKey;
+import com.github.fracpete.minify.core.ClassFileInfo;
+import com.github.fracpete.minify.core.ClassPathScanner;
+import com.github.fracpete.minify.core.ClassSet;
+import com.github.fracpete.minify.core.ClassSet.PackageNode;
+import com.github.fracpete.minify.graph.DependencyGraph;
+import com.github.fracpete.minify.hierarchy.ClassHierarchyIndex;
+import com.github.fracpete.minify.locator.ClassLocatorIndex;
+import com.github.fracpete.minify.output.AbstractArchiveSink;
+import com.github.fracpete.minify.output.AssemblyLayout;
+import com.github.fracpete.minify.output.DirectorySink;
+import com.github.fracpete.minify.output.OutputSink;
+import com.github.fracpete.minify.output.TarGzSink;
+import com.github.fracpete.minify.output.ZipSink;
+import com.github.fracpete.minify.reactor.Module;
+import com.github.fracpete.minify.reactor.Reactor;
+import com.github.fracpete.minify.resources.ResourceReferences;
 import net.sourceforge.argparse4j.ArgumentParsers;
 import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
@@ -37,14 +62,26 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathFactory;
+import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * Minifies a Meka build environment using a specified minimum set of classes.
@@ -53,7 +90,16 @@ import java.util.Set;
  */
 public class Meka {
 
-  public final static String EXEC_SKIP = "-Dexec.skip=True";
+  public final static String EXEC_SKIP = MavenBuildBackend.EXEC_SKIP;
+
+  /** the exit code when the footprint budget got exceeded. */
+  public final static int EXIT_BUDGET = 3;
+
+  /** the props file listing the classes for the GOE. */
+  public final static String PROPS_CREATOR = "src/main/java/meka/gui/goe/MekaPropertiesCreator.props";
+
+  /** the props file listing the GOE editors. */
+  public final static String PROPS_EDITORS = "src/main/java/meka/gui/goe/MekaEditors.props";
 
   /** the java home directory to use. */
   protected File m_JavaHome;
@@ -85,9 +131,135 @@ public class Meka {
   /** the pom.xml DOM. */
   protected Document m_Document;
 
+  /** the modules of the build environment. */
+  protected Reactor m_Reactor;
+
+  /** the modules that contain kept classes. */
+  protected Set<Module> m_KeptModules;
+
   /** the mindeps classpath. */
   protected String m_MinDepsClassPath;
 
+  /** the dependencies (jars) listed in the pom.xml. */
+  protected List<String> m_Dependencies;
+
+  /** the build backend for the input build env. */
+  protected String m_InputBuild;
+
+  /** the build backend for testing the minified build env. */
+  protected String m_TestBuild;
+
+  /** the maximum number of lines of build output to keep. */
+  protected int m_BuildLogLines;
+
+  /** the classes to explain the inclusion for. */
+  protected List<String> m_Explain;
+
+  /** the seeds or edges ("from->to") to evaluate dropping. */
+  protected List<String> m_WhatIfDrop;
+
+  /** the file to export the dependency graph to (JSON). */
+  protected File m_GraphJson;
+
+  /** the classes only reachable in the dependency graph, not kept by MinDeps. */
+  protected List<String> m_GraphOnly;
+
+  /** the classes only kept by MinDeps, not reachable in the dependency graph. */
+  protected List<String> m_MinDepsOnly;
+
+  /** the dependency graph, if generated. */
+  protected DependencyGraph m_Graph;
+
+  /** the directory for caching indices. */
+  protected File m_CacheDir;
+
+  /** the expanded seed classes. */
+  protected List<String> m_Seeds;
+
+  /** the file with the expanded seed classes (passed on to MinDeps). */
+  protected File m_SeedsFile;
+
+  /** the distribution archive to generate instead of the output directory. */
+  protected File m_Dist;
+
+  /** the assembly descriptor for the layout of the distribution archive. */
+  protected File m_DistAssembly;
+
+  /** the number of threads for compressing the distribution archive. */
+  protected int m_DistThreads;
+
+  /** where the minified build environment gets written to. */
+  protected OutputSink m_Sink;
+
+  /** the props files that need updating before getting written (relative paths). */
+  protected Set<String> m_Deferred;
+
+  /** the props file with the footprint budget. */
+  protected File m_Budget;
+
+  /** the props file with the metrics of the previous run. */
+  protected File m_Metrics;
+
+  /** the file to write the budget report to. */
+  protected File m_BudgetReport;
+
+  /** the number of classes that were kept. */
+  protected int m_KeptClasses;
+
+  /** the number of dependency jars that kept classes come from. */
+  protected int m_KeptDependencies;
+
+  /** the jars that got added to the dependencies by --add-missing. */
+  protected List<String> m_AddedDependencies;
+
+  /** whether the budget got exceeded. */
+  protected boolean m_BudgetExceeded;
+
+  /** whether to locate classes missing from the classpath. */
+  protected boolean m_LocateMissing;
+
+  /** whether to add the jars with the missing classes to the classpath. */
+  protected boolean m_AddMissing;
+
+  /** the local Maven repository. */
+  protected File m_MavenRepo;
+
+  /** whether to copy only referenced resources. */
+  protected boolean m_PruneResources;
+
+  /** the patterns for resources to always keep when pruning. */
+  protected List<String> m_KeepResources;
+
+  /** the number of resources that were copied. */
+  protected int m_ResourcesCopied;
+
+  /** the bytes of resources that were copied. */
+  protected long m_ResourceBytesCopied;
+
+  /** the number of resources that were pruned. */
+  protected int m_ResourcesPruned;
+
+  /** the bytes of resources that were pruned. */
+  protected long m_ResourceBytesPruned;
+
+  /** the bytes written to the output. */
+  protected long m_OutputBytes;
+
+  /** whether to reuse the output of previous runs with the same inputs. */
+  protected boolean m_RunCache;
+
+  /** the maximum size of the run cache in MB. */
+  protected long m_RunCacheMaxSize;
+
+  /** the run cache in use, null if none. */
+  protected RunCache m_Runs;
+
+  /** the key of the current run, null if not caching. */
+  protected String m_RunKey;
+
+  /** whether the output got restored from the run cache. */
+  protected boolean m_RunCacheHit;
+
   /**
    * Initializes the minifier.
    */
@@ -104,7 +276,45 @@ public class Meka {
     m_OutputAbs        = null;
     m_Test             = false;
     m_Document         = null;
+    m_Reactor          = null;
+    m_KeptModules      = new HashSet<>();
     m_MinDepsClassPath = null;
+    m_Dependencies     = new ArrayList<>();
+    m_InputBuild       = MavenBuildBackend.NAME;
+    m_TestBuild        = MavenBuildBackend.NAME;
+    m_BuildLogLines    = BuildLog.DEFAULT_MAX_LINES;
+    m_Explain          = new ArrayList<>();
+    m_WhatIfDrop       = new ArrayList<>();
+    m_GraphJson        = null;
+    m_Graph            = null;
+    m_GraphOnly        = new ArrayList<>();
+    m_MinDepsOnly      = new ArrayList<>();
+    m_CacheDir         = new File(System.getProperty("user.home") + File.separator + ".minify-meka");
+    m_Seeds            = new ArrayList<>();
+    m_SeedsFile        = null;
+    m_Dist             = null;
+    m_DistAssembly     = null;
+    m_DistThreads      = Runtime.getRuntime().availableProcessors();
+    m_Sink             = null;
+    m_Deferred         = new HashSet<>();
+    m_Budget           = null;
+    m_Metrics          = null;
+    m_BudgetReport     = null;
+    m_KeptClasses      = 0;
+    m_KeptDependencies = 0;
+    m_AddedDependencies = new ArrayList<>();
+    m_BudgetExceeded   = false;
+    m_LocateMissing    = false;
+    m_AddMissing       = false;
+    m_MavenRepo        = new File(System.getProperty("user.home") + File.separator + ".m2" + File.separator + "repository");
+    m_PruneResources   = false;
+    m_KeepResources    = new ArrayList<>();
+    m_OutputBytes      = 0;
+    m_RunCache         = false;
+    m_RunCacheMaxSize  = 1024;
+    m_Runs             = null;
+    m_RunKey           = null;
+    m_RunCacheHit      = false;
   }
 
   /**
@@ -242,247 +452,835 @@ public class Meka {
   }
 
   /**
-   * Sets the commandline options.
+   * Sets the build backend to use for the input build env.
    *
-   * @param options	the options to use
-   * @return		true if successful
-   * @throws Exception	in case of an invalid option
+   * @param value	the name of the backend
    */
-  public boolean setOptions(String[] options) throws Exception {
-    ArgumentParser parser;
-    Namespace ns;
+  public void setInputBuild(String value) {
+    m_InputBuild = value;
+  }
 
-    parser = ArgumentParsers.newArgumentParser(Meka.class.getName());
-    parser.addArgument("--java-home")
-      .type(Arguments.fileType().verifyExists().verifyIsDirectory())
-      .dest("javahome")
-      .required(true)
-      .help("The java home directory of the JDK that includes the jdeps binary, default is taken from JAVA_HOME environment variable.");
-    parser.addArgument("--classes")
-      .type(Arguments.fileType().verifyExists().verifyIsFile().verifyCanRead())
-      .dest("classes")
-      .required(true)
-      .help("The file containing the classes to determine the dependencies for. Empty lines and lines starting with # get ignored.");
-    parser.addArgument("--additional")
-      .type(Arguments.fileType())
-      .setDefault(new File("."))
-      .required(false)
-      .dest("additional")
-      .help("The file with additional class names to just include.");
-    parser.addArgument("--input")
-      .type(Arguments.fileType())
-      .setDefault(new File("."))
-      .required(true)
-      .dest("input")
-      .help("The directory with the pristing build environment in.");
-    parser.addArgument("--output")
-      .type(Arguments.fileType().verifyIsDirectory().verifyExists())
-      .setDefault(new File("."))
-      .required(true)
-      .dest("output")
-      .help("The directory for storing the minified build environment in.");
-    parser.addArgument("--test")
-      .action(Arguments.storeTrue())
-      .required(false)
-      .dest("test")
-      .help("Optional testing of the minified build environment.");
-    parser.addArgument("package")
-      .dest("packages")
-      .required(true)
-      .nargs("+")
-      .help("The packages to keep, eg 'meka'.");
+  /**
+   * Returns the build backend to use for the input build env.
+   *
+   * @return		the name of the backend
+   */
+  public String getInputBuild() {
+    return m_InputBuild;
+  }
 
-    try {
-      ns = parser.parseArgs(options);
-    }
-    catch (ArgumentParserException e) {
-      parser.handleError(e);
-      return false;
-    }
+  /**
+   * Sets the build backend to use for testing the minified build env.
+   *
+   * @param value	the name of the backend
+   */
+  public void setTestBuild(String value) {
+    m_TestBuild = value;
+  }
 
-    setJavaHome(ns.get("javahome"));
-    setClassesFile(ns.get("classes"));
-    setAdditionalFile(ns.get("additional"));
-    setInput(ns.get("input"));
-    setPackages(ns.getList("packages"));
-    setOutput(ns.get("output"));
-    setTest( ns.getBoolean("test"));
+  /**
+   * Returns the build backend to use for testing the minified build env.
+   *
+   * @return		the name of the backend
+   */
+  public String getTestBuild() {
+    return m_TestBuild;
+  }
 
-    return true;
+  /**
+   * Sets the maximum number of lines of build output to keep.
+   *
+   * @param value	the number of lines
+   */
+  public void setBuildLogLines(int value) {
+    m_BuildLogLines = value;
   }
 
   /**
-   * Performs some checks.
+   * Returns the maximum number of lines of build output to keep.
    *
-   * @return		null if successful, otherwise error message
+   * @return		the number of lines
    */
-  protected String check() {
-    if (!m_JavaHome.exists())
-      return "Java home directory does not exist: " + m_JavaHome;
-    if (!m_JavaHome.isDirectory())
-      return "Java home does not point to a directory: " + m_JavaHome;
+  public int getBuildLogLines() {
+    return m_BuildLogLines;
+  }
 
-    if (!m_ClassesFile.exists())
-      return "File with class names does not exist: " + m_ClassesFile;
-    if (m_ClassesFile.isDirectory())
-      return "File with class names points to directory: " + m_ClassesFile;
+  /**
+   * Sets the classes to explain the inclusion for.
+   *
+   * @param value	the classes
+   */
+  public void setExplain(List<String> value) {
+    m_Explain.clear();
+    if (value != null)
+      m_Explain.addAll(value);
+  }
 
-    if (!m_Input.exists())
-      return "Input build environment does not exist: " + m_Input;
-    if (!m_Input.isDirectory())
-      return "Input build environment points to a file: " + m_Input;
+  /**
+   * Returns the classes to explain the inclusion for.
+   *
+   * @return		the classes
+   */
+  public List<String> getExplain() {
+    return m_Explain;
+  }
 
-    if (m_Output == null)
-      return "No output directory supplied!";
+  /**
+   * Sets the seeds or edges ("from->to") to evaluate dropping.
+   *
+   * @param value	the seeds/edges
+   */
+  public void setWhatIfDrop(List<String> value) {
+    m_WhatIfDrop.clear();
+    if (value != null)
+      m_WhatIfDrop.addAll(value);
+  }
 
-    return null;
+  /**
+   * Returns the seeds or edges ("from->to") to evaluate dropping.
+   *
+   * @return		the seeds/edges
+   */
+  public List<String> getWhatIfDrop() {
+    return m_WhatIfDrop;
   }
 
   /**
-   * Builds the specified Meka environment.
+   * Sets the file to export the dependency graph to (JSON).
    *
-   * @param dir		the build env
-   * @return		null if successful, otherwise error message
+   * @param value	the file, null to skip
    */
-  protected String build(File dir) {
-    String			error;
-    String[] 			cmd;
-    ProcessBuilder 		builder;
-    CollectingProcessOutput 	output;
-
-    cmd = new String[]{
-      "mvn",
-      "clean",
-      "compile",
-      "package",
-      "-DskipTests=True",
-      EXEC_SKIP,
-    };
-    builder = new ProcessBuilder();
-    builder.command(cmd);
-    builder.directory(dir);
-    output = new CollectingProcessOutput();
-    try {
-      output.monitor(builder);
-      if (!output.hasSucceeded()) {
-        error = "\nExit code: " + output.getExitCode();
-        if (output.getStdErr().length() > 0)
-          error += "\nStderr:\n" + output.getStdErr();
-        if (output.getStdOut().length() > 0)
-          error += "\nStdout:\n" + output.getStdOut();
-        return error;
-      }
-    }
-    catch (Exception e) {
-      return "Failed to execute: " + builder.toString() + "\n" + e;
-    }
+  public void setGraphJson(File value) {
+    m_GraphJson = value;
+  }
 
-    return null;
+  /**
+   * Returns the file to export the dependency graph to (JSON).
+   *
+   * @return		the file, null if not set
+   */
+  public File getGraphJson() {
+    return m_GraphJson;
   }
 
   /**
-   * Reads the pom.xml.
+   * Returns the dependency graph, if one was generated.
    *
-   * @return		null if successful, otherwise error message
+   * @return		the graph, null if not available
    */
-  protected String readPOM() {
-    File			pom;
-    String			input;
-    DocumentBuilderFactory 	factory;
-    DocumentBuilder 		builder;
+  public DependencyGraph getGraph() {
+    return m_Graph;
+  }
 
-    pom = new File(m_InputAbs + File.separator + "pom.xml");
-    try {
-      input = new String(Files.readAllBytes(pom.toPath()));
-      factory = DocumentBuilderFactory.newInstance();
-      factory.setValidating(false);
-      factory.setNamespaceAware(false);
-      factory.setXIncludeAware(false);
-      factory.setExpandEntityReferences(false);
-      factory.setIgnoringComments(false);
-      factory.setIgnoringElementContentWhitespace(false);
-      builder = factory.newDocumentBuilder();
-      m_Document = builder.parse(new ByteArrayInputStream(input.getBytes()));
-    }
-    catch (Exception e) {
-      m_Document = null;
-      return "Failed to read/parse: " + pom + "\n" + e;
-    }
+  /**
+   * Sets the directory for caching indices.
+   *
+   * @param value	the directory
+   */
+  public void setCacheDir(File value) {
+    m_CacheDir = value;
+  }
 
-    return null;
+  /**
+   * Returns the directory for caching indices.
+   *
+   * @return		the directory
+   */
+  public File getCacheDir() {
+    return m_CacheDir;
+  }
 
+  /**
+   * Sets the distribution archive (.zip or .tar.gz) to generate instead
+   * of the output directory.
+   *
+   * @param value	the archive, null to write to the output directory
+   */
+  public void setDist(File value) {
+    m_Dist = value;
   }
 
   /**
-   * Analyzes the pom.xml to generate a classpath for MinDeps.
+   * Returns the distribution archive (.zip or .tar.gz) to generate instead
+   * of the output directory.
    *
-   * @return		null if successful, otherwise error message
+   * @return		the archive, null if writing to the output directory
    */
-  protected String assembleMinDepsClassPath() {
-    StringBuilder		cp;
-    List<String>		parts;
-    javax.xml.xpath.XPath 	xpath;
-    NodeList 			list;
-    NodeList 			clist;
-    int				i;
-    int				n;
-    Node			node;
-    String			group;
-    String			artifact;
-    String			version;
-    String			scope;
-    String			part;
-    File			target;
-    File[]			files;
+  public File getDist() {
+    return m_Dist;
+  }
 
-    parts = new ArrayList<>();
-    try {
-      xpath = XPathFactory.newInstance().newXPath();
-      list  = (NodeList) xpath.evaluate("//dependency", m_Document, XPathConstants.NODESET);
-      for (i = 0; i < list.getLength(); i++) {
-        node = list.item(i);
-        // scope
-        scope = null;
-        clist = (NodeList) xpath.evaluate("./scope", node, XPathConstants.NODESET);
-      	for (n = 0; n < clist.getLength(); n++) {
-	  scope = clist.item(n).getTextContent();
-	  break;
-	}
-	if ((scope != null) && scope.equals("test"))
-	  continue;
-        // group
-        group = null;
-        clist = (NodeList) xpath.evaluate("./groupId", node, XPathConstants.NODESET);
-      	for (n = 0; n < clist.getLength(); n++) {
-	  group = clist.item(n).getTextContent();
-	  break;
-	}
-        // artifact
-        artifact = null;
-        clist = (NodeList) xpath.evaluate("./artifactId", node, XPathConstants.NODESET);
-      	for (n = 0; n < clist.getLength(); n++) {
-	  artifact = clist.item(n).getTextContent();
-	  break;
-	}
-        // version
-        version = null;
-        clist = (NodeList) xpath.evaluate("./version", node, XPathConstants.NODESET);
-      	for (n = 0; n < clist.getLength(); n++) {
-	  version = clist.item(n).getTextContent();
-	  break;
+  /**
+   * Sets the assembly descriptor that determines the layout of the
+   * distribution archive. Relative paths are interpreted relative to the
+   * input build environment.
+   *
+   * @param value	the descriptor, null to use the build env layout
+   */
+  public void setDistAssembly(File value) {
+    m_DistAssembly = value;
+  }
+
+  /**
+   * Returns the assembly descriptor that determines the layout of the
+   * distribution archive.
+   *
+   * @return		the descriptor, null if using the build env layout
+   */
+  public File getDistAssembly() {
+    return m_DistAssembly;
+  }
+
+  /**
+   * Sets the number of threads to use for compressing the distribution archive.
+   *
+   * @param value	the number of threads
+   */
+  public void setDistThreads(int value) {
+    m_DistThreads = value;
+  }
+
+  /**
+   * Returns the number of threads to use for compressing the distribution archive.
+   *
+   * @return		the number of threads
+   */
+  public int getDistThreads() {
+    return m_DistThreads;
+  }
+
+  /**
+   * Sets the props file with the footprint budget.
+   *
+   * @param value	the budget, null for none
+   */
+  public void setBudget(File value) {
+    m_Budget = value;
+  }
+
+  /**
+   * Returns the props file with the footprint budget.
+   *
+   * @return		the budget, null if none
+   */
+  public File getBudget() {
+    return m_Budget;
+  }
+
+  /**
+   * Sets the props file with the metrics of the previous run, which gets
+   * updated with the metrics of the current run if within budget.
+   *
+   * @param value	the metrics file, null for none
+   */
+  public void setMetrics(File value) {
+    m_Metrics = value;
+  }
+
+  /**
+   * Returns the props file with the metrics of the previous run.
+   *
+   * @return		the metrics file, null if none
+   */
+  public File getMetrics() {
+    return m_Metrics;
+  }
+
+  /**
+   * Sets the file to write the budget report to.
+   *
+   * @param value	the report file, null to output the report on stderr
+   */
+  public void setBudgetReport(File value) {
+    m_BudgetReport = value;
+  }
+
+  /**
+   * Returns the file to write the budget report to.
+   *
+   * @return		the report file, null if output on stderr
+   */
+  public File getBudgetReport() {
+    return m_BudgetReport;
+  }
+
+  /**
+   * Returns whether the budget got exceeded during the last run.
+   *
+   * @return		true if exceeded
+   */
+  public boolean isBudgetExceeded() {
+    return m_BudgetExceeded;
+  }
+
+  /**
+   * Sets whether to locate classes missing from the classpath in the local
+   * Maven repository.
+   *
+   * @param value	true if to locate
+   */
+  public void setLocateMissing(boolean value) {
+    m_LocateMissing = value;
+  }
+
+  /**
+   * Returns whether to locate classes missing from the classpath in the
+   * local Maven repository.
+   *
+   * @return		true if to locate
+   */
+  public boolean getLocateMissing() {
+    return m_LocateMissing;
+  }
+
+  /**
+   * Sets whether to add the jars with the missing classes to the classpath.
+   *
+   * @param value	true if to add
+   */
+  public void setAddMissing(boolean value) {
+    m_AddMissing = value;
+  }
+
+  /**
+   * Returns whether to add the jars with the missing classes to the classpath.
+   *
+   * @return		true if to add
+   */
+  public boolean getAddMissing() {
+    return m_AddMissing;
+  }
+
+  /**
+   * Sets the local Maven repository.
+   *
+   * @param value	the repository
+   */
+  public void setMavenRepo(File value) {
+    m_MavenRepo = value;
+  }
+
+  /**
+   * Returns the local Maven repository.
+   *
+   * @return		the repository
+   */
+  public File getMavenRepo() {
+    return m_MavenRepo;
+  }
+
+  /**
+   * Sets whether to copy only resources that are referenced by the kept
+   * classes (or referenced props files).
+   *
+   * @param value	true if to prune
+   */
+  public void setPruneResources(boolean value) {
+    m_PruneResources = value;
+  }
+
+  /**
+   * Returns whether to copy only resources that are referenced by the kept
+   * classes (or referenced props files).
+   *
+   * @return		true if to prune
+   */
+  public boolean getPruneResources() {
+    return m_PruneResources;
+  }
+
+  /**
+   * Sets the Ant-style patterns of resources to always keep when pruning.
+   *
+   * @param value	the patterns, eg "meka/gui/**&#47;*.png"
+   */
+  public void setKeepResources(List<String> value) {
+    m_KeepResources = new ArrayList<>();
+    if (value != null)
+      m_KeepResources.addAll(value);
+  }
+
+  /**
+   * Returns the Ant-style patterns of resources to always keep when pruning.
+   *
+   * @return		the patterns
+   */
+  public List<String> getKeepResources() {
+    return m_KeepResources;
+  }
+
+  /**
+   * Sets whether to reuse the output of previous runs with the same inputs
+   * and options.
+   *
+   * @param value	true if to use the run cache
+   */
+  public void setRunCache(boolean value) {
+    m_RunCache = value;
+  }
+
+  /**
+   * Returns whether to reuse the output of previous runs with the same
+   * inputs and options.
+   *
+   * @return		true if to use the run cache
+   */
+  public boolean getRunCache() {
+    return m_RunCache;
+  }
+
+  /**
+   * Sets the maximum size of the run cache.
+   *
+   * @param value	the size in MB
+   */
+  public void setRunCacheMaxSize(long value) {
+    m_RunCacheMaxSize = value;
+  }
+
+  /**
+   * Returns the maximum size of the run cache.
+   *
+   * @return		the size in MB
+   */
+  public long getRunCacheMaxSize() {
+    return m_RunCacheMaxSize;
+  }
+
+  /**
+   * Sets the commandline options.
+   *
+   * @param options	the options to use
+   * @return		true if successful
+   * @throws Exception	in case of an invalid option
+   */
+  public boolean setOptions(String[] options) throws Exception {
+    ArgumentParser parser;
+    Namespace ns;
+
+    parser = ArgumentParsers.newArgumentParser(Meka.class.getName());
+    parser.addArgument("--java-home")
+      .type(Arguments.fileType().verifyExists().verifyIsDirectory())
+      .dest("javahome")
+      .required(true)
+      .help("The java home directory of the JDK that includes the jdeps binary, default is taken from JAVA_HOME environment variable.");
+    parser.addArgument("--classes")
+      .type(Arguments.fileType().verifyExists().verifyIsFile().verifyCanRead())
+      .dest("classes")
+      .required(true)
+      .help("The file containing the classes to determine the dependencies for. Empty lines and lines starting with # get ignored. "
+        + "Besides class names, 'some.package.*' (classes in package), 'some.package.**' (incl sub-packages) and "
+        + "'" + ClassHierarchyIndex.SUBTYPES_OF + "some.Type' (concrete subclasses/implementations) can be used.");
+    parser.addArgument("--additional")
+      .type(Arguments.fileType())
+      .setDefault(new File("."))
+      .required(false)
+      .dest("additional")
+      .help("The file with additional class names to just include.");
+    parser.addArgument("--input")
+      .type(Arguments.fileType())
+      .setDefault(new File("."))
+      .required(true)
+      .dest("input")
+      .help("The directory with the pristing build environment in.");
+    parser.addArgument("--output")
+      .type(Arguments.fileType().verifyIsDirectory().verifyExists())
+      .required(false)
+      .dest("output")
+      .help("The directory for storing the minified build environment in; required unless --dist is used.");
+    parser.addArgument("--test")
+      .action(Arguments.storeTrue())
+      .required(false)
+      .dest("test")
+      .help("Optional testing of the minified build environment; not available with --dist.");
+    parser.addArgument("--input-build")
+      .choices(MavenBuildBackend.NAME, MavenDaemonBuildBackend.NAME, JavacBuildBackend.NAME)
+      .setDefault(MavenBuildBackend.NAME)
+      .required(false)
+      .dest("inputbuild")
+      .help("The backend for building the input build environment; '" + JavacBuildBackend.NAME + "' requires the dependencies to be present in the local Maven repository already.");
+    parser.addArgument("--test-build")
+      .choices(MavenBuildBackend.NAME, MavenDaemonBuildBackend.NAME, JavacBuildBackend.NAME)
+      .setDefault(MavenBuildBackend.NAME)
+      .required(false)
+      .dest("testbuild")
+      .help("The backend for building the minified build environment when testing.");
+    parser.addArgument("--build-log-lines")
+      .type(Integer.class)
+      .setDefault(BuildLog.DEFAULT_MAX_LINES)
+      .required(false)
+      .dest("buildloglines")
+      .help("The maximum number of lines of build output to keep for error messages.");
+    parser.addArgument("--explain")
+      .action(Arguments.append())
+      .required(false)
+      .dest("explain")
+      .help("Outputs the shortest path from a seed class to this class, ie why it got included; can be supplied multiple times.");
+    parser.addArgument("--what-if-drop")
+      .action(Arguments.append())
+      .required(false)
+      .dest("whatifdrop")
+      .help("Outputs the classes that would get removed if this seed class or dependency ('from->to') were dropped; can be supplied multiple times.");
+    parser.addArgument("--graph-json")
+      .type(Arguments.fileType())
+      .required(false)
+      .dest("graphjson")
+      .help("The JSON file to export the dependency graph and the results of --explain/--what-if-drop to.");
+    parser.addArgument("--cache-dir")
+      .type(Arguments.fileType())
+      .setDefault(m_CacheDir)
+      .required(false)
+      .dest("cachedir")
+      .help("The directory for caching indices, eg the class hierarchy for resolving seed expressions.");
+    parser.addArgument("--dist")
+      .type(Arguments.fileType())
+      .required(false)
+      .dest("dist")
+      .help("The distribution archive (.zip or .tar.gz) to write the minified build environment to, instead of the output directory.");
+    parser.addArgument("--dist-assembly")
+      .type(Arguments.fileType())
+      .required(false)
+      .dest("distassembly")
+      .help("The Maven assembly descriptor to determine the layout of the distribution archive from, eg 'src/main/assembly/bin.xml' (relative to the input directory); uses the build environment layout if omitted.");
+    parser.addArgument("--dist-threads")
+      .type(Integer.class)
+      .setDefault(m_DistThreads)
+      .required(false)
+      .dest("distthreads")
+      .help("The number of threads to use for compressing the distribution archive.");
+    parser.addArgument("--budget")
+      .type(Arguments.fileType().verifyExists().verifyIsFile().verifyCanRead())
+      .required(false)
+      .dest("budget")
+      .help("The props file with the footprint budget (max.classes, max.source.bytes, max.jar.bytes, max.dependencies, max.startup.ms, startup.class, startup.runs); "
+	+ "exits with code " + EXIT_BUDGET + " if exceeded. Jar size and startup time require --test.");
+    parser.addArgument("--metrics")
+      .type(Arguments.fileType())
+      .required(false)
+      .dest("metrics")
+      .help("The props file with the metrics of the previous run to compare against; gets updated if within budget.");
+    parser.addArgument("--budget-report")
+      .type(Arguments.fileType())
+      .required(false)
+      .dest("budgetreport")
+      .help("The file to write the report comparing the metrics against budget and previous run to; outputs the report on stderr if omitted.");
+    parser.addArgument("--locate-missing")
+      .action(Arguments.storeTrue())
+      .required(false)
+      .dest("locatemissing")
+      .help("Locates referenced classes that are missing from the classpath in the local Maven repository and suggests the dependencies.");
+    parser.addArgument("--add-missing")
+      .action(Arguments.storeTrue())
+      .required(false)
+      .dest("addmissing")
+      .help("Like --locate-missing, but also adds the located jars to the classpath.");
+    parser.addArgument("--maven-repo")
+      .type(Arguments.fileType())
+      .setDefault(m_MavenRepo)
+      .required(false)
+      .dest("mavenrepo")
+      .help("The local Maven repository to locate missing classes in.");
+    parser.addArgument("--prune-resources")
+      .action(Arguments.storeTrue())
+      .required(false)
+      .dest("pruneresources")
+      .help("Copies only resources that are referenced by the kept classes (string constants) or by referenced props files, instead of all the resources of the kept packages.");
+    parser.addArgument("--keep-resources")
+      .action(Arguments.append())
+      .required(false)
+      .dest("keepresources")
+      .help("The Ant-style pattern of resources to always keep when pruning, eg 'meka/gui/**/*.png'; can be supplied multiple times.");
+    parser.addArgument("--run-cache")
+      .action(Arguments.storeTrue())
+      .required(false)
+      .dest("runcache")
+      .help("Reuses the output of a previous run with the same input build environment, dependencies, JDK and options (stored below the cache directory).");
+    parser.addArgument("--run-cache-max-size")
+      .type(Long.class)
+      .setDefault(m_RunCacheMaxSize)
+      .required(false)
+      .dest("runcachemaxsize")
+      .help("The maximum size in MB of the run cache; least recently used runs get evicted.");
+    parser.addArgument("package")
+      .dest("packages")
+      .required(true)
+      .nargs("+")
+      .help("The packages to keep, eg 'meka'.");
+
+    try {
+      ns = parser.parseArgs(options);
+    }
+    catch (ArgumentParserException e) {
+      parser.handleError(e);
+      return false;
+    }
+
+    setJavaHome(ns.get("javahome"));
+    setClassesFile(ns.get("classes"));
+    setAdditionalFile(ns.get("additional"));
+    setInput(ns.get("input"));
+    setPackages(ns.getList("packages"));
+    setOutput(ns.get("output"));
+    setTest( ns.getBoolean("test"));
+    setInputBuild(ns.getString("inputbuild"));
+    setTestBuild(ns.getString("testbuild"));
+    setBuildLogLines(ns.getInt("buildloglines"));
+    setExplain(ns.getList("explain"));
+    setWhatIfDrop(ns.getList("whatifdrop"));
+    setGraphJson(ns.get("graphjson"));
+    setCacheDir(ns.get("cachedir"));
+    setDist(ns.get("dist"));
+    setDistAssembly(ns.get("distassembly"));
+    setDistThreads(ns.getInt("distthreads"));
+    setBudget(ns.get("budget"));
+    setMetrics(ns.get("metrics"));
+    setBudgetReport(ns.get("budgetreport"));
+    setLocateMissing(ns.getBoolean("locatemissing"));
+    setAddMissing(ns.getBoolean("addmissing"));
+    setMavenRepo(ns.get("mavenrepo"));
+    setPruneResources(ns.getBoolean("pruneresources"));
+    setKeepResources(ns.getList("keepresources"));
+    setRunCache(ns.getBoolean("runcache"));
+    setRunCacheMaxSize(ns.getLong("runcachemaxsize"));
+
+    return true;
+  }
+
+  /**
+   * Performs some checks.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String check() {
+    if (!m_JavaHome.exists())
+      return "Java home directory does not exist: " + m_JavaHome;
+    if (!m_JavaHome.isDirectory())
+      return "Java home does not point to a directory: " + m_JavaHome;
+
+    if (!m_ClassesFile.exists())
+      return "File with class names does not exist: " + m_ClassesFile;
+    if (m_ClassesFile.isDirectory())
+      return "File with class names points to directory: " + m_ClassesFile;
+
+    if (!m_Input.exists())
+      return "Input build environment does not exist: " + m_Input;
+    if (!m_Input.isDirectory())
+      return "Input build environment points to a file: " + m_Input;
+
+    if ((m_Output == null) && (m_Dist == null))
+      return "No output directory supplied!";
+
+    if (m_Dist != null) {
+      if (!m_Dist.getName().endsWith(".zip") && !m_Dist.getName().endsWith(".tar.gz") && !m_Dist.getName().endsWith(".tgz"))
+        return "Unsupported distribution archive, must be .zip or .tar.gz: " + m_Dist;
+      // the archive doesn't get unpacked, the output directory would be stale
+      if (m_Test)
+        return "Testing is not supported with a distribution archive, use --output instead of --dist!";
+    }
+
+    return null;
+  }
+
+  /**
+   * Instantiates the build backend.
+   *
+   * @param name	the name of the backend
+   * @return		the backend, null if unknown
+   */
+  protected BuildBackend createBuildBackend(String name) {
+    JavacBuildBackend	javac;
+    String		version;
+
+    switch (name) {
+      case MavenBuildBackend.NAME:
+        return new MavenBuildBackend();
+      case MavenDaemonBuildBackend.NAME:
+        return new MavenDaemonBuildBackend();
+      case JavacBuildBackend.NAME:
+        javac = new JavacBuildBackend();
+        javac.setClassPath(m_Dependencies);
+        javac.setJarName(getProjectValue("artifactId") + "-" + getProjectValue("version") + ".jar");
+        javac.setJavaHome(m_JavaHome);
+        try {
+          version = m_Reactor.getRoot().getCompilerSetting("source");
+          if (version != null)
+            javac.setSource(version);
+          version = m_Reactor.getRoot().getCompilerSetting("target");
+          if (version != null)
+            javac.setTarget(version);
+        }
+        catch (Exception e) {
+          System.err.println("Failed to determine compiler settings, using defaults!\n" + e);
+        }
+        return javac;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Builds the specified Meka environment.
+   *
+   * @param dir		the build env
+   * @param backend	the name of the build backend to use
+   * @return		null if successful, otherwise error message
+   */
+  protected String build(File dir, String backend) {
+    BuildBackend	build;
+    String		msg;
+
+    build = createBuildBackend(backend);
+    if (build == null)
+      return "Unknown build backend: " + backend;
+
+    if (build instanceof JavacBuildBackend) {
+      if ((m_Reactor != null) && m_Reactor.isMultiModule())
+        return "The " + JavacBuildBackend.NAME + " build backend does not support multi-module build environments!";
+      msg = checkDependencies();
+      if (msg != null)
+        return msg;
+    }
+
+    System.err.println("Building " + dir + " using " + build.getName() + "...");
+    return build.build(dir, new BuildLog(m_BuildLogLines));
+  }
+
+  /**
+   * Reads the pom.xml.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String readPOM() {
+    File			pom;
+    String			input;
+    DocumentBuilderFactory 	factory;
+    DocumentBuilder 		builder;
+
+    pom = new File(m_InputAbs + File.separator + "pom.xml");
+    try {
+      input = new String(Files.readAllBytes(pom.toPath()));
+      factory = DocumentBuilderFactory.newInstance();
+      factory.setValidating(false);
+      factory.setNamespaceAware(false);
+      factory.setXIncludeAware(false);
+      factory.setExpandEntityReferences(false);
+      factory.setIgnoringComments(false);
+      factory.setIgnoringElementContentWhitespace(false);
+      builder = factory.newDocumentBuilder();
+      m_Document = builder.parse(new ByteArrayInputStream(input.getBytes()));
+    }
+    catch (Exception e) {
+      m_Document = null;
+      return "Failed to read/parse: " + pom + "\n" + e;
+    }
+
+    try {
+      m_Reactor = Reactor.read(m_Input);
+    }
+    catch (Exception e) {
+      m_Reactor = null;
+      return "Failed to read modules of: " + pom + "\n" + e;
+    }
+    if (m_Reactor.isMultiModule())
+      System.err.println("Multi-module build environment: " + m_Reactor);
+
+    return null;
+
+  }
+
+  /**
+   * Returns the text content of a top-level tag of the pom.xml.
+   *
+   * @param tag		the tag to retrieve, eg "version"
+   * @return		the content, null if not available
+   */
+  protected String getProjectValue(String tag) {
+    javax.xml.xpath.XPath 	xpath;
+
+    if (m_Document == null)
+      return null;
+
+    try {
+      xpath = XPathFactory.newInstance().newXPath();
+      return (String) xpath.evaluate("/project/" + tag, m_Document, XPathConstants.STRING);
+    }
+    catch (Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * Analyzes the pom.xml to determine the dependency jars in the local
+   * Maven repository. Does not check whether the jars exist.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String assembleDependencies() {
+    List<String>		parts;
+    javax.xml.xpath.XPath 	xpath;
+    NodeList 			list;
+    NodeList 			clist;
+    int				i;
+    int				n;
+    Node			node;
+    String			group;
+    String			artifact;
+    String			version;
+    String			scope;
+    String			part;
+
+    if (m_Reactor.isMultiModule()) {
+      try {
+        parts = m_Reactor.getDependencies(m_MavenRepo);
+      }
+      catch (Exception e) {
+        return "Failed to determine dependencies of modules!\n" + e;
+      }
+      m_Dependencies.clear();
+      m_Dependencies.addAll(parts);
+      return null;
+    }
+
+    parts = new ArrayList<>();
+    try {
+      xpath = XPathFactory.newInstance().newXPath();
+      list  = (NodeList) xpath.evaluate("//dependency", m_Document, XPathConstants.NODESET);
+      for (i = 0; i < list.getLength(); i++) {
+        node = list.item(i);
+        // scope
+        scope = null;
+        clist = (NodeList) xpath.evaluate("./scope", node, XPathConstants.NODESET);
+      	for (n = 0; n < clist.getLength(); n++) {
+	  scope = clist.item(n).getTextContent();
+	  break;
+	}
+	if ((scope != null) && scope.equals("test"))
+	  continue;
+        // group
+        group = null;
+        clist = (NodeList) xpath.evaluate("./groupId", node, XPathConstants.NODESET);
+      	for (n = 0; n < clist.getLength(); n++) {
+	  group = clist.item(n).getTextContent();
+	  break;
+	}
+        // artifact
+        artifact = null;
+        clist = (NodeList) xpath.evaluate("./artifactId", node, XPathConstants.NODESET);
+      	for (n = 0; n < clist.getLength(); n++) {
+	  artifact = clist.item(n).getTextContent();
+	  break;
+	}
+        // version
+        version = null;
+        clist = (NodeList) xpath.evaluate("./version", node, XPathConstants.NODESET);
+      	for (n = 0; n < clist.getLength(); n++) {
+	  version = clist.item(n).getTextContent();
+	  break;
 	}
 	if ((group == null) || (artifact == null) || (version == null))
 	  continue;
 	// assemble part
-	part = System.getProperty("user.home")
-	  + File.separator + ".m2"
-	  + File.separator + "repository"
-	  + File.separator + group.replace(".", File.separator)
-	  + File.separator + artifact
-	  + File.separator + version
-	  + File.separator + artifact + "-" + version + ".jar";
-      	if (!new File(part).exists())
-      	  throw new IllegalStateException("File not found: " + part);
+	part = new Module.Dependency(group, artifact, version).toFile(m_MavenRepo).getAbsolutePath();
       	parts.add(part);
       }
     }
@@ -490,16 +1288,83 @@ public class Meka {
       return "Failed to determine 'dependency' tags to build classpath!\n" + e;
     }
 
-    // meka jar
-    target = new File(m_InputAbs + File.separator + "target");
-    files  = target.listFiles((File dir, String name) -> {
-      return (name.endsWith("-SNAPSHOT.jar"));
-    });
-    if (files == null)
-      return "No jars found in directory: " + target;
-    if (files.length == 0)
-      return "Meka jar not found in directory: " + target;
-    parts.add(0, files[0].getAbsolutePath());
+    m_Dependencies.clear();
+    m_Dependencies.addAll(parts);
+
+    return null;
+  }
+
+  /**
+   * Checks whether all the dependency jars are present.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String checkDependencies() {
+    for (String part: m_Dependencies) {
+      if (!new File(part).exists())
+	return "Failed to determine 'dependency' tags to build classpath!\n"
+	  + new IllegalStateException("File not found: " + part);
+    }
+
+    return null;
+  }
+
+  /**
+   * Locates the Meka jar in the target directory of the build environment,
+   * preferring the one named after artifact and version.
+   *
+   * @param dir		the build environment
+   * @return		the jar, null if not found
+   */
+  protected File findJar(File dir) {
+    return Module.findJar(dir, getProjectValue("artifactId"), getProjectValue("version"));
+  }
+
+  /**
+   * Generates a classpath for MinDeps from the dependencies and the Meka jar.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String assembleMinDepsClassPath() {
+    StringBuilder	cp;
+    List<String>	parts;
+    String		msg;
+    File		target;
+    File		jar;
+    int			i;
+
+    msg = checkDependencies();
+    if (msg != null)
+      return msg;
+
+    parts = new ArrayList<>(m_Dependencies);
+
+    if (m_Reactor.isMultiModule()) {
+      // module jars
+      i = 0;
+      for (Module module: m_Reactor.getModules()) {
+        if (module.getPackaging().equals("pom"))
+          continue;
+        jar = module.getJar();
+        if (jar == null)
+          return "Jar of module " + module + " not found in directory: " + new File(module.getDir(), "target");
+        parts.add(i++, jar.getAbsolutePath());
+      }
+      try {
+        m_Reactor.index();
+      }
+      catch (Exception e) {
+        return "Failed to index module jars!\n" + e;
+      }
+    }
+    else {
+      // meka jar
+      target = new File(m_InputAbs + File.separator + "target");
+      jar    = findJar(m_Input);
+      if (jar == null)
+        return "Meka jar not found in directory: " + target;
+      parts.add(0, jar.getAbsolutePath());
+    }
 
     // assemble the classpath
     cp = new StringBuilder();
@@ -515,13 +1380,215 @@ public class Meka {
     return null;
   }
 
+  /**
+   * Checks whether the class is provided by the JVM.
+   *
+   * @param cls		the class to check
+   * @return		true if a JVM class
+   */
+  protected boolean isPlatformClass(String cls) {
+    ClassLoader		loader;
+
+    loader = ClassLoader.getSystemClassLoader().getParent();
+    if (loader == null)
+      return false;
+
+    return (loader.getResource(cls.replace('.', '/') + ".class") != null);
+  }
+
+  /**
+   * Determines the classes that are referenced by the classes of the
+   * packages to keep, but are missing from the MinDeps classpath, and
+   * locates them in the local Maven repository. Suggests the dependencies
+   * and optionally adds the jars to the classpath.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String resolveMissing() {
+    List<String>		classpath;
+    ClassSet			available;
+    ClassPathScanner		scanner;
+    List<ClassFileInfo>		infos;
+    ClassSet			missing;
+    ClassLocatorIndex		index;
+    Map<File,List<String>>	located;
+    List<String>		unresolved;
+    List<File>			candidates;
+    Set<String>			artifacts;
+    File			jar;
+    String			dependency;
+    int				scanned;
+
+    if (!m_LocateMissing && !m_AddMissing)
+      return null;
+
+    // determine missing classes
+    classpath = ClassPathScanner.split(m_MinDepsClassPath);
+    try {
+      available = ClassPathScanner.list(classpath);
+      scanner   = new ClassPathScanner();
+      scanner.setReferences(true);
+      infos = scanner.scan(classpath, this::isInPackages);
+    }
+    catch (Exception e) {
+      return "Failed to scan classpath for missing classes!\n" + e;
+    }
+    missing = new ClassSet();
+    for (ClassFileInfo info: infos) {
+      for (String ref: info.getReferences()) {
+	if (!available.contains(ref) && !missing.contains(ref) && !isPlatformClass(ref))
+	  missing.add(ref);
+      }
+    }
+    if (missing.isEmpty()) {
+      System.err.println("No missing classes.");
+      return null;
+    }
+    System.err.println("Missing " + missing.size() + " class(es), locating them in: " + m_MavenRepo);
+
+    // locate them
+    index = new ClassLocatorIndex(m_MavenRepo, m_CacheDir);
+    try {
+      scanned = index.update();
+    }
+    catch (Exception e) {
+      return "Failed to update class locator index: " + m_MavenRepo + "\n" + e;
+    }
+    System.err.println("Class locator index: " + index + " (" + scanned + " jar(s) scanned)");
+    located    = new TreeMap<>();
+    unresolved = new ArrayList<>();
+    for (String cls: missing) {
+      candidates = index.locate(cls);
+      if (candidates.isEmpty()) {
+	unresolved.add(cls);
+	continue;
+      }
+      // prefer a jar that got located already, otherwise the highest version
+      jar = index.choose(candidates);
+      for (File candidate: candidates) {
+	if (located.containsKey(candidate)) {
+	  jar = candidate;
+	  break;
+	}
+      }
+      artifacts = new TreeSet<>();
+      for (File candidate: candidates)
+	artifacts.add(index.toArtifact(candidate));
+      if (artifacts.size() > 1) {
+	System.err.println(cls + " found in " + artifacts.size() + " artifacts, using: " + jar);
+	for (File candidate: candidates)
+	  System.err.println("  " + candidate);
+      }
+      if (!located.containsKey(jar))
+	located.put(jar, new ArrayList<>());
+      located.get(jar).add(cls);
+    }
+    index.close();
+
+    for (File jarFile: located.keySet()) {
+      dependency = index.toDependency(jarFile);
+      System.err.println(jarFile + " provides " + located.get(jarFile).size() + " missing class(es), eg " + located.get(jarFile).get(0)
+	+ ((dependency == null) ? "" : "\n" + dependency));
+      if (m_AddMissing) {
+	m_Dependencies.add(jarFile.getAbsolutePath());
+	m_AddedDependencies.add(jarFile.getAbsolutePath());
+	m_MinDepsClassPath += File.pathSeparator + jarFile.getAbsolutePath();
+      }
+    }
+    if (!unresolved.isEmpty())
+      System.err.println("Not found in local Maven repository:\n  " + String.join("\n  ", unresolved));
+    if (m_AddMissing && !located.isEmpty())
+      System.err.println("Added " + located.size() + " jar(s) to the classpath; add the dependencies to the pom.xml as well.");
+
+    return null;
+  }
+
+  /**
+   * Reads the seed classes and expands any expressions (wildcards,
+   * subtypes) using the class hierarchy of the MinDeps classpath.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String determineSeeds() {
+    List<String>	lines;
+    boolean		expressions;
+    ClassHierarchyIndex	index;
+    List<String>	expanded;
+    Set<String>		seeds;
+    List<String>	classpath;
+    List<String>	uncached;
+    String		msg;
+
+    lines = new ArrayList<>();
+    msg   = readClassNames(m_ClassesFile, lines);
+    if (msg != null)
+      return msg;
+
+    expressions = false;
+    for (String line: lines) {
+      if (ClassHierarchyIndex.isExpression(line)) {
+        expressions = true;
+        break;
+      }
+    }
+
+    m_Seeds.clear();
+    if (!expressions) {
+      m_Seeds.addAll(lines);
+      m_SeedsFile = m_ClassesFile;
+      return null;
+    }
+
+    System.err.println("Expanding seed expressions...");
+    try {
+      // the jars built from the input project change with every run
+      classpath = ClassPathScanner.split(m_MinDepsClassPath);
+      uncached  = new ArrayList<>();
+      for (String part: classpath) {
+        if (new File(part).getAbsolutePath().startsWith(m_InputAbs + File.separator))
+          uncached.add(part);
+      }
+      index = ClassHierarchyIndex.load(classpath, uncached, m_CacheDir);
+    }
+    catch (Exception e) {
+      return "Failed to build class hierarchy index!\n" + e;
+    }
+    System.err.println("Class hierarchy: " + index);
+
+    seeds = new LinkedHashSet<>();
+    for (String line: lines) {
+      expanded = index.expand(line);
+      if (expanded == null)
+        return "Unknown type in seed expression: " + line;
+      if (ClassHierarchyIndex.isExpression(line)) {
+        if (expanded.isEmpty())
+          System.err.println("Warning: seed expression matches no classes: " + line);
+        else
+          System.err.println("- " + line + ": " + expanded.size() + " class(es)");
+      }
+      seeds.addAll(expanded);
+    }
+    m_Seeds.addAll(seeds);
+
+    try {
+      m_SeedsFile = File.createTempFile("minify-seeds-", ".txt");
+      m_SeedsFile.deleteOnExit();
+      Files.write(m_SeedsFile.toPath(), m_Seeds);
+    }
+    catch (Exception e) {
+      return "Failed to write expanded seed classes!\n" + e;
+    }
+
+    return null;
+  }
+
   /**
    * Determines the classes to keep.
    *
    * @param classes	to fill in the classes
    * @return		null if successful, otherwise error message
    */
-  protected String determineClasses(List<String> classes) {
+  protected String determineClasses(ClassSet classes) {
     MinDeps	min;
     String	msg;
 
@@ -530,7 +1597,7 @@ public class Meka {
     min.setJavaHome(getJavaHome());
     min.setPackages(new ArrayList<>(m_Packages));
     min.setClassPath(m_MinDepsClassPath);
-    min.setClassesFile(m_ClassesFile);
+    min.setClassesFile(m_SeedsFile);
     min.setAdditionalFile(m_AdditionalFile);
     msg = min.execute();
     if (msg != null)
@@ -541,16 +1608,267 @@ public class Meka {
     return null;
   }
 
+  /**
+   * Counts the dependency jars that at least one of the kept classes
+   * comes from.
+   *
+   * @param classes	the kept classes
+   * @return		null if successful, otherwise error message
+   */
+  protected String determineKeptDependencies(ClassSet classes) {
+    Enumeration<? extends ZipEntry>	entries;
+    String				name;
+
+    m_KeptDependencies = 0;
+    for (String dep: m_Dependencies) {
+      if (!new File(dep).isFile())
+        continue;
+      try (ZipFile zip = new ZipFile(dep)) {
+        entries = zip.entries();
+        while (entries.hasMoreElements()) {
+          name = entries.nextElement().getName();
+          if (!name.endsWith(".class"))
+            continue;
+          if (classes.contains(name.substring(0, name.length() - 6).replace('/', '.'))) {
+            m_KeptDependencies++;
+            break;
+          }
+        }
+      }
+      catch (Exception e) {
+        return "Failed to read dependency: " + dep + "\n" + e;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Reads the class names from the file. Empty lines and lines starting
+   * with # get ignored.
+   *
+   * @param file	the file to read
+   * @param classes	for adding the class names
+   * @return		null if successful, otherwise error message
+   */
+  protected String readClassNames(File file, List<String> classes) {
+    try {
+      for (String line: Files.readAllLines(file.toPath())) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#"))
+          continue;
+        classes.add(line);
+      }
+    }
+    catch (Exception e) {
+      return "Failed to read class names from: " + file + "\n" + e;
+    }
+
+    return null;
+  }
+
+  /**
+   * Checks whether the class is located in one of the packages to keep.
+   *
+   * @param cls		the class to check
+   * @return		true if in one of the packages
+   */
+  protected boolean isInPackages(String cls) {
+    for (String pkg: m_Packages) {
+      if (cls.startsWith(pkg + ".") || cls.equals(pkg))
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether any of the dependency graph queries were requested.
+   *
+   * @return		true if graph required
+   */
+  protected boolean requiresGraph() {
+    return (m_Explain.size() > 0) || (m_WhatIfDrop.size() > 0) || (m_GraphJson != null);
+  }
+
+  /**
+   * Builds the dependency graph between the classes in the packages to keep,
+   * from the same inputs as MinDeps (classpath, packages, seeds and
+   * additional classes), and compares the classes reachable in the graph
+   * with the ones determined by MinDeps.
+   *
+   * @param classes	the classes determined by MinDeps
+   * @return		null if successful, otherwise error message
+   */
+  protected String buildGraph(ClassSet classes) {
+    List<ClassFileInfo>	infos;
+    List<String>	additional;
+    String		msg;
+
+    additional = new ArrayList<>();
+    if (m_AdditionalFile != null) {
+      msg = readClassNames(m_AdditionalFile, additional);
+      if (msg != null)
+        return msg;
+    }
+
+    try {
+      infos = new ClassPathScanner().scan(ClassPathScanner.split(m_MinDepsClassPath), this::isInPackages);
+    }
+    catch (Exception e) {
+      return "Failed to scan classpath for dependency graph!\n" + e;
+    }
+    m_Graph = DependencyGraph.build(infos, this::isInPackages, m_Seeds, additional);
+    System.err.println("Dependency graph: " + m_Graph);
+
+    compareGraph(classes);
+
+    return null;
+  }
+
+  /**
+   * Compares the classes reachable in the dependency graph with the ones
+   * determined by MinDeps and reports any differences, as the graph is
+   * computed independently from the class files.
+   *
+   * @param classes	the classes determined by MinDeps
+   */
+  protected void compareGraph(ClassSet classes) {
+    ClassSet	reachable;
+    ClassSet	kept;
+
+    reachable = new ClassSet(m_Graph.reachable());
+    kept      = new ClassSet();
+    for (String cls: classes) {
+      if (isInPackages(cls))
+        kept.add(ClassFileInfo.toTopLevel(cls));
+    }
+
+    m_GraphOnly.clear();
+    for (String cls: reachable) {
+      if (!kept.contains(cls))
+        m_GraphOnly.add(cls);
+    }
+    m_MinDepsOnly.clear();
+    for (String cls: kept) {
+      if (!reachable.contains(cls))
+        m_MinDepsOnly.add(cls);
+    }
+
+    if (m_GraphOnly.isEmpty() && m_MinDepsOnly.isEmpty()) {
+      System.err.println("Dependency graph agrees with MinDeps: " + kept.size() + " class(es)");
+      return;
+    }
+    System.err.println("Dependency graph differs from MinDeps, explain/what-if results are approximate:");
+    if (!m_GraphOnly.isEmpty())
+      System.err.println("- only in graph (" + m_GraphOnly.size() + "):\n    " + String.join("\n    ", m_GraphOnly));
+    if (!m_MinDepsOnly.isEmpty())
+      System.err.println("- only in MinDeps (" + m_MinDepsOnly.size() + "):\n    " + String.join("\n    ", m_MinDepsOnly));
+  }
+
+  /**
+   * Answers the dependency graph queries and exports the graph, if requested.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String queryGraph() {
+    List<String>	path;
+    List<String>	removed;
+    int			pos;
+    StringBuilder	explain;
+    StringBuilder	whatIf;
+
+    explain = new StringBuilder();
+    for (String cls: new LinkedHashSet<>(m_Explain)) {
+      path = m_Graph.explain(cls);
+      if (path.isEmpty() && m_MinDepsOnly.contains(ClassFileInfo.toTopLevel(cls)))
+	System.err.println("Included by MinDeps, but not reachable in dependency graph: " + cls);
+      else if (path.isEmpty())
+	System.err.println("Not included: " + cls);
+      else
+	System.err.println("Why " + cls + ":\n  " + String.join("\n  -> ", path));
+      if (explain.length() > 0)
+        explain.append(",\n    ");
+      explain.append(DependencyGraph.quote(cls)).append(": ");
+      explain.append(path.isEmpty() ? "[]" : DependencyGraph.toJson(path));
+    }
+
+    whatIf = new StringBuilder();
+    for (String drop: new LinkedHashSet<>(m_WhatIfDrop)) {
+      pos = drop.indexOf("->");
+      if (pos > -1)
+        removed = m_Graph.whatIfDropEdge(drop.substring(0, pos).trim(), drop.substring(pos + 2).trim());
+      else
+        removed = m_Graph.whatIfDropSeed(drop.trim());
+      if (removed == null)
+        System.err.println("Neither seed nor dependency: " + drop);
+      else
+        System.err.println("Dropping " + drop + " removes " + removed.size() + " class(es)" + (removed.isEmpty() ? "" : ":\n  " + String.join("\n  ", removed)));
+      if (whatIf.length() > 0)
+        whatIf.append(",\n    ");
+      whatIf.append(DependencyGraph.quote(drop)).append(": ");
+      whatIf.append((removed == null) ? "null" : DependencyGraph.toJson(removed));
+    }
+
+    if (m_GraphJson != null) {
+      try (BufferedWriter writer = new BufferedWriter(new FileWriter(m_GraphJson))) {
+        writer.write("{\n\"graph\": ");
+        m_Graph.writeJson(writer);
+        writer.write(",\n\"explain\": {\n    " + explain + "\n  }");
+        writer.write(",\n\"whatIfDrop\": {\n    " + whatIf + "\n  }");
+        writer.write(",\n\"minDeps\": {\n    \"onlyGraph\": " + DependencyGraph.toJson(m_GraphOnly)
+          + ",\n    \"onlyMinDeps\": " + DependencyGraph.toJson(m_MinDepsOnly) + "\n  }");
+        writer.write("\n}\n");
+      }
+      catch (Exception e) {
+        return "Failed to write dependency graph to: " + m_GraphJson + "\n" + e;
+      }
+    }
+
+    return null;
+  }
+
   /**
    * Prepares the output directory, either creating or emptying it.
    *
    * @return		null if successful, otherwise error message
    */
   protected String prepareOutputDir() {
-    File[]	files;
     String	msg;
     File	dir;
-    File	outDir;
+
+    if (m_Dist != null)
+      return prepareDist();
+
+    msg = cleanOutputDir();
+    if (msg != null)
+      return msg;
+
+    // module directories get created when copying files
+    if (!m_Reactor.isMultiModule()) {
+      // src/main/java
+      dir = new File(m_OutputAbs + File.separator + "src" + File.separator + "main" + File.separator + "java");
+      if (!dir.mkdirs())
+	return "Failed to create directory: " + dir;
+
+      // src/main/resources
+      dir = new File(m_OutputAbs + File.separator + "src" + File.separator + "main" + File.separator + "resources");
+      if (!dir.mkdirs())
+	return "Failed to create directory: " + dir;
+    }
+
+    m_Sink = new DirectorySink(m_Output);
+
+    return copyBuildFiles();
+  }
+
+  /**
+   * Removes all content from the output directory (or creates it if
+   * missing).
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String cleanOutputDir() {
+    File[]	files;
 
     files = m_Output.listFiles();
     if (files == null) {
@@ -580,15 +1898,60 @@ public class Meka {
       }
     }
 
-    // src/main/java
-    dir = new File(m_OutputAbs + File.separator + "src" + File.separator + "main" + File.separator + "java");
-    if (!dir.mkdirs())
-      return "Failed to create directory: " + dir;
+    return null;
+  }
+
+  /**
+   * Sets up the distribution archive as output.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String prepareDist() {
+    AssemblyLayout	layout;
+    String		baseDir;
+    File		assembly;
+
+    baseDir = getProjectValue("artifactId") + "-" + getProjectValue("version");
+    try {
+      if (m_DistAssembly == null) {
+        layout = new AssemblyLayout(baseDir);
+      }
+      else {
+        assembly = m_DistAssembly;
+        if (!assembly.isAbsolute())
+          assembly = new File(m_InputAbs + File.separator + assembly.getPath());
+        layout = AssemblyLayout.read(assembly, baseDir);
+      }
+    }
+    catch (Exception e) {
+      return "Failed to read assembly descriptor: " + m_DistAssembly + "\n" + e;
+    }
+
+    System.err.println("Writing distribution archive: " + m_Dist);
+    try {
+      if (m_Dist.getName().endsWith(".zip"))
+        m_Sink = new ZipSink(m_Dist, layout, m_DistThreads);
+      else
+        m_Sink = new TarGzSink(m_Dist, layout, m_DistThreads);
+    }
+    catch (Exception e) {
+      return "Failed to create distribution archive: " + m_Dist + "\n" + e;
+    }
+
+    return copyBuildFiles();
+  }
+
+  /**
+   * Copies the files required for building (pom.xml, assembly, etc) to
+   * the output.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String copyBuildFiles() {
+    String	msg;
 
-    // src/main/resources
-    dir = new File(m_OutputAbs + File.separator + "src" + File.separator + "main" + File.separator + "resources");
-    if (!dir.mkdirs())
-      return "Failed to create directory: " + dir;
+    if (m_Reactor.isMultiModule())
+      return copyModuleBuildFiles();
 
     // src/main/assembly
     msg = copyDirectory(new File(m_InputAbs + File.separator + "src" + File.separator + "main" + File.separator + "assembly"));
@@ -613,6 +1976,62 @@ public class Meka {
     return null;
   }
 
+  /**
+   * Copies the files required for building the reactor and the kept modules
+   * to the output. The module entries of dropped modules get removed from
+   * the reactor POMs and the dependencies on dropped modules from the
+   * module POMs.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String copyModuleBuildFiles() {
+    List<Module>	modules;
+    List<Module>	dropped;
+    File		pom;
+    String		content;
+    String		msg;
+
+    dropped = new ArrayList<>();
+    for (Module module: m_Reactor.getModules()) {
+      if (!m_KeptModules.contains(module))
+	dropped.add(module);
+    }
+
+    modules = new ArrayList<>(m_Reactor.getAggregators());
+    for (Module module: m_Reactor.getModules()) {
+      if (m_KeptModules.contains(module))
+	modules.add(module);
+    }
+
+    for (Module module: modules) {
+      // src/main/assembly, src/main/latex, src/main/scripts
+      for (String dir: new String[]{"assembly", "latex", "scripts"}) {
+	pom = new File(module.getDir(), "src" + File.separator + "main" + File.separator + dir);
+	if (!pom.exists())
+	  continue;
+	msg = copyDirectory(pom);
+	if (msg != null)
+	  return msg;
+      }
+
+      // pom.xml
+      pom = new File(module.getDir(), "pom.xml");
+      try {
+	content = new String(Files.readAllBytes(pom.toPath()), StandardCharsets.UTF_8);
+	if (module.getModules().isEmpty())
+	  content = Reactor.removeDependencies(module, content, dropped);
+	else
+	  content = Reactor.removeModules(content, m_Reactor.getDroppedEntries(module, m_KeptModules));
+	m_Sink.addBytes(toRelativePath(pom), content.getBytes(StandardCharsets.UTF_8), pom.lastModified());
+      }
+      catch (Exception e) {
+	return "Failed to copy POM: " + pom + " -> " + m_Sink + "\n" + e;
+      }
+    }
+
+    return null;
+  }
+
   /**
    * Copies the specified input file into the output directory.
    *
@@ -620,18 +2039,19 @@ public class Meka {
    * @return		null if successful, otherwise error message
    */
   protected String copyFile(File inputFile) {
-    File	outputFile;
     String	subPath;
 
     if (inputFile.exists()) {
-      subPath = inputFile.getAbsolutePath().substring(m_InputAbs.length());
-      outputFile = new File(m_OutputAbs + File.separator + subPath);
+      subPath = toRelativePath(inputFile);
+      if (isDeferred(subPath)) {
+        m_Deferred.add(subPath);
+        return null;
+      }
       try {
-        outputFile.getParentFile().mkdirs();
-	FileUtils.copyOrMove(inputFile, outputFile, false, false);
+        m_Sink.addFile(subPath, inputFile);
       }
       catch (Exception e) {
-	return "Failed to copy file: " + inputFile + " -> " + outputFile + "\n" + e;
+	return "Failed to copy file: " + inputFile + " -> " + m_Sink + "\n" + e;
       }
     }
     else {
@@ -641,6 +2061,22 @@ public class Meka {
     return null;
   }
 
+  /**
+   * Checks whether the file gets written only after the final class list
+   * is known, ie one of the props files listing classes (in any module).
+   *
+   * @param subPath	the relative path of the file
+   * @return		true if deferred
+   */
+  protected boolean isDeferred(String subPath) {
+    for (String propsName: new String[]{PROPS_CREATOR, PROPS_EDITORS}) {
+      if (subPath.equals(propsName) || subPath.endsWith("/" + propsName))
+	return true;
+    }
+
+    return false;
+  }
+
   /**
    * Copies a directory to the output dir.
    *
@@ -648,18 +2084,21 @@ public class Meka {
    * @return		null if successful, otherwise error message
    */
   protected String copyDirectory(File inputDir) {
-    File 	outputDir;
-    String	subPath;
+    File[]	files;
+    String	msg;
 
     if (inputDir.exists()) {
-      subPath   = inputDir.getAbsolutePath().substring(m_InputAbs.length());
-      outputDir = new File(m_OutputAbs + File.separator + subPath);
-      try {
-        outputDir.mkdirs();
-	FileUtils.copyOrMove(inputDir, outputDir, false, false);
-      }
-      catch (Exception e) {
-	return "Failed to copy directory: " + inputDir + " -> " + outputDir + "\n" + e;
+      files = inputDir.listFiles();
+      if (files == null)
+	return "Failed to copy directory: " + inputDir + " -> " + m_Sink;
+      Arrays.sort(files);
+      for (File file: files) {
+	if (file.isDirectory())
+	  msg = copyDirectory(file);
+	else
+	  msg = copyFile(file);
+	if (msg != null)
+	  return msg;
       }
     }
     else {
@@ -669,6 +2108,17 @@ public class Meka {
     return null;
   }
 
+  /**
+   * Turns the file from the input build env into a relative path
+   * (using forward slashes).
+   *
+   * @param inputFile	the file to convert
+   * @return		the relative path
+   */
+  protected String toRelativePath(File inputFile) {
+    return inputFile.getAbsolutePath().substring(m_InputAbs.length() + 1).replace(File.separatorChar, '/');
+  }
+
   /**
    * Generates a class file name from the class name.
    *
@@ -679,7 +2129,7 @@ public class Meka {
     return new File(
       m_InputAbs
 	+ File.separator + "src" + File.separator + "main" + File.separator + "java"
-	+ File.separator + cls.replace(".", File.separator) + ".java");
+	+ File.separator + ClassSet.toRelativePath(cls, File.separatorChar, ".java"));
   }
 
   /**
@@ -688,42 +2138,81 @@ public class Meka {
    * @param classes	the classes to copy
    * @return		null if successful, otherwise error message
    */
-  protected String copy(List<String> classes) {
-    List<File> 		inputDirs;
+  protected String copy(ClassSet classes) {
+    List<PackageNode> 	packages;
+    List<File>		resDirs;
     File[]		files;
     File		inFile;
     File		inDir;
+    Module		owner;
+    String		srcDir;
+    String		resDir;
+    String		pkgDir;
+    String		pkgName;
     String		msg;
+    int			i;
+
+    srcDir   = m_InputAbs + File.separator + "src" + File.separator + "main" + File.separator + "java";
+    resDir   = m_InputAbs + File.separator + "src" + File.separator + "main" + File.separator + "resources";
+    packages = classes.packages();
 
     // classes
-    inputDirs = new ArrayList<>();
-    for (String cls: classes) {
-      inFile = classToFile(cls);
-      // record directories
-      inDir = inFile.getParentFile();
-      if (!inputDirs.contains(inDir))
-        inputDirs.add(inDir);
-      // copy
-      msg = copyFile(inFile);
-      if (msg != null)
-        return msg;
+    for (PackageNode pkg: packages) {
+      pkgDir  = pkg.getPath(File.separatorChar);
+      pkgName = pkg.getPath('.');
+      inDir   = new File(srcDir + (pkgDir.isEmpty() ? "" : File.separator + pkgDir));
+      for (i = 0; i < pkg.getClassCount(); i++) {
+	if (m_Reactor.isMultiModule()) {
+	  owner = m_Reactor.ownerOf(pkgName.isEmpty() ? pkg.getSimpleName(i) : pkgName + "." + pkg.getSimpleName(i));
+	  // unowned classes got reported when determining the modules
+	  if (owner == null)
+	    continue;
+	  inDir = new File(owner.getDir(), owner.getSourceDir().replace('/', File.separatorChar) + (pkgDir.isEmpty() ? "" : File.separator + pkgDir));
+	}
+        inFile = new File(inDir, pkg.getSimpleName(i) + ".java");
+	msg    = copyFile(inFile);
+	if (msg != null)
+	  return msg;
+      }
+    }
+
+    // resource directories
+    resDirs = new ArrayList<>();
+    if (m_Reactor.isMultiModule()) {
+      for (Module module: m_Reactor.getModules()) {
+	if (!m_KeptModules.contains(module))
+	  continue;
+	for (String dir: module.getResourceDirs())
+	  resDirs.add(new File(module.getDir(), dir.replace('/', File.separatorChar)));
+      }
+    }
+    else {
+      resDirs.add(new File(resDir));
     }
 
     // other resources
+    if (m_PruneResources)
+      return copyReferencedResources(classes, resDirs);
+
     System.err.println("Copying resources...");
-    for (File inputDir : inputDirs) {
-      inDir = new File(inputDir.getAbsolutePath().replaceAll("main.java", "main" + File.separator + "resources"));
-      files = inDir.listFiles((File dir, String name) -> {
-	  return !name.equals(".") && !name.equals("..") && !name.endsWith(".java");
-      });
-      if (files != null) {
-        System.err.println("- " + inDir);
-	for (File file: files) {
-	  if (file.isDirectory())
-	    continue;
-	  msg = copyFile(file);
-	  if (msg != null)
-	    return msg;
+    for (File dir: resDirs) {
+      for (PackageNode pkg: packages) {
+	pkgDir = pkg.getPath(File.separatorChar);
+	inDir  = new File(dir.getAbsolutePath() + (pkgDir.isEmpty() ? "" : File.separator + pkgDir));
+	files  = inDir.listFiles((File d, String name) -> {
+	    return !name.equals(".") && !name.equals("..") && !name.endsWith(".java");
+	});
+	if (files != null) {
+	  System.err.println("- " + inDir);
+	  for (File file: files) {
+	    if (file.isDirectory())
+	      continue;
+	    msg = copyFile(file);
+	    if (msg != null)
+	      return msg;
+	    m_ResourcesCopied++;
+	    m_ResourceBytesCopied += file.length();
+	  }
 	}
       }
     }
@@ -732,72 +2221,182 @@ public class Meka {
   }
 
   /**
-   * Updates some props files according to the final class list.
+   * Collects the resources below the directory.
    *
-   * @param classes	the final classes
+   * @param root	the resources directory
+   * @param dir		the current directory
+   * @param resources	for collecting the paths (relative, forward slashes)
+   */
+  protected void listResources(File root, File dir, List<String> resources) {
+    File[]	files;
+
+    files = dir.listFiles();
+    if (files == null)
+      return;
+    Arrays.sort(files);
+    for (File file: files) {
+      if (file.isDirectory())
+	listResources(root, file, resources);
+      else if (!file.getName().endsWith(".java"))
+	resources.add(file.getAbsolutePath().substring(root.getAbsolutePath().length() + 1).replace(File.separatorChar, '/'));
+    }
+  }
+
+  /**
+   * Copies only the resources that are referenced by the kept classes,
+   * referenced props files or the keep rules.
+   *
+   * @param classes	the kept classes
+   * @param resDirs	the resources directories
    * @return		null if successful, otherwise error message
    */
-  protected String updateProps(List<String> classes) {
-    String		result;
-    String		propsName;
+  protected String copyReferencedResources(ClassSet classes, List<File> resDirs) {
+    List<String>	resources;
+    List<String>	selected;
+    Set<String>		keep;
+    ResourceReferences	refs;
     File		file;
-    String		baseDir;
-    Properties props;
+    String		msg;
+
+    System.err.println("Determining referenced resources...");
+    refs = new ResourceReferences();
+    for (String pattern: m_KeepResources)
+      refs.addKeep(pattern);
+    try {
+      refs.addClasses(ClassPathScanner.split(m_MinDepsClassPath), classes);
+    }
+    catch (Exception e) {
+      return "Failed to scan kept classes for resource references!\n" + e;
+    }
+
+    System.err.println("Copying resources...");
+    for (File resDir: resDirs) {
+      if (!resDir.exists())
+	continue;
+      resources = new ArrayList<>();
+      listResources(resDir, resDir, resources);
+      selected = refs.select(resDir, resources);
+      keep     = new HashSet<>(selected);
+
+      for (String path: resources) {
+	file = new File(resDir, path.replace('/', File.separatorChar));
+	if (!keep.contains(path)) {
+	  m_ResourcesPruned++;
+	  m_ResourceBytesPruned += file.length();
+	  continue;
+	}
+	msg = copyFile(file);
+	if (msg != null)
+	  return msg;
+	m_ResourcesCopied++;
+	m_ResourceBytesCopied += file.length();
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Removes the keys that don't represent classes from the final class list.
+   *
+   * @param props	the props to update
+   * @param classes	the final classes
+   * @param arrays	whether keys can be array classes (ending with "[]")
+   * @return		true if keys were removed
+   */
+  protected boolean filterProps(Properties props, ClassSet classes, boolean arrays) {
     List<String>	delete;
-    Set<String> cache;
 
-    result = null;
+    delete = new ArrayList<>();
+    for (String key : props.stringPropertyNames()) {
+      if (arrays)
+	key = key.replace("[]", "");
+      if (!classes.contains(key))
+	delete.add(key);
+    }
+    for (String key : delete)
+      props.remove(key);
+
+    return (delete.size() > 0);
+  }
 
-    cache   = new HashSet<>(classes);
-    delete  = new ArrayList<>();
-    baseDir = m_OutputAbs + File.separator + "src" + File.separator + "main" + File.separator + "java";
+  /**
+   * Updates some props files according to the final class list and writes
+   * them to the output.
+   *
+   * @param classes	the final classes
+   * @return		null if successful, otherwise error message
+   */
+  protected String updateProps(ClassSet classes) {
+    File			file;
+    Properties 			props;
+    ByteArrayOutputStream	out;
 
-    // GenericPropertiesCreator.props
-    propsName = "meka|gui|goe|MekaPropertiesCreator.props";
-    file = new File(baseDir + File.separator + propsName.replace("|", File.separator));
-    delete.clear();
-    if (file.exists()) {
+    for (String propsName: new TreeSet<>(m_Deferred)) {
+      file  = new File(m_InputAbs + File.separator + propsName.replace("/", File.separator));
       props = new Properties();
       if (!PropsUtils.load(props, file.getAbsolutePath()))
-        result = "Failed to load props: " + file;
-      if (result == null) {
-	for (String key : props.stringPropertyNames()) {
-	  if (!cache.contains(key))
-	    delete.add(key);
+        return "Failed to load props: " + file;
+      try {
+        if (filterProps(props, classes, propsName.endsWith(PROPS_EDITORS))) {
+          out = new ByteArrayOutputStream();
+          props.store(out, null);
+          m_Sink.addBytes(propsName, out.toByteArray(), System.currentTimeMillis());
 	}
-	if (delete.size() > 0) {
-	  for (String key : delete)
-	    props.remove(key);
-	  if (!PropsUtils.save(props, file.getAbsolutePath()))
-	    result = "Failed to update props: " + file;
+	else {
+          m_Sink.addFile(propsName, file);
 	}
       }
+      catch (Exception e) {
+        return "Failed to update props: " + file + "\n" + e;
+      }
     }
 
-    // GUIEditors.props
-    propsName = "meka|gui|goe|MekaEditors.props";
-    file = new File(baseDir + File.separator + propsName.replace("|", File.separator));
-    delete.clear();
-    if (file.exists()) {
-      props = new Properties();
-      if (!PropsUtils.load(props, file.getAbsolutePath()))
-        result = "Failed to load props: " + file;
-      if (result == null) {
-	for (String key : props.stringPropertyNames()) {
-	  key = key.replace("[]", "");
-	  if (!cache.contains(key))
-	    delete.add(key);
-	}
-	if (delete.size() > 0) {
-	  for (String key : delete)
-	    props.remove(key);
-	  if (!PropsUtils.save(props, file.getAbsolutePath()))
-	    result = "Failed to update props: " + file;
-	}
+    return null;
+  }
+
+  /**
+   * Determines the modules that contain kept classes (modules without
+   * classes, like distribution modules with packaging "pom", are always
+   * kept). Classes that no module owns get reported.
+   *
+   * @param classes	the kept classes
+   */
+  protected void determineModules(ClassSet classes) {
+    List<String>	unowned;
+    Module		owner;
+    String		pkgName;
+    String		cls;
+    int			i;
+
+    m_KeptModules.clear();
+    unowned = new ArrayList<>();
+    for (Module module: m_Reactor.getModules()) {
+      if (module.getPackaging().equals("pom"))
+	m_KeptModules.add(module);
+    }
+    for (PackageNode pkg: classes.packages()) {
+      pkgName = pkg.getPath('.');
+      for (i = 0; i < pkg.getClassCount(); i++) {
+	cls   = pkgName.isEmpty() ? pkg.getSimpleName(i) : pkgName + "." + pkg.getSimpleName(i);
+	owner = m_Reactor.ownerOf(cls);
+	if (owner == null)
+	  unowned.add(cls);
+	else
+	  m_KeptModules.add(owner);
       }
     }
 
-    return result;
+    if (!unowned.isEmpty()) {
+      System.err.println("Class(es) not owned by any module, skipped: " + unowned.size());
+      for (String name: unowned)
+	System.err.println("- " + name);
+    }
+
+    for (Module module: m_Reactor.getModules()) {
+      if (!m_KeptModules.contains(module))
+	System.err.println("Dropping module: " + module);
+    }
   }
 
   /**
@@ -807,14 +2406,37 @@ public class Meka {
    */
   protected String minify() {
     String		msg;
-    List<String>	classes;
+    ClassSet		classes;
+
+    // seed classes
+    msg = determineSeeds();
+    if (msg != null)
+      return msg;
 
     // minimal set of classes
     System.err.println("Determining minimal set of classes...");
-    classes = new ArrayList<>();
+    classes = new ClassSet();
     msg     = determineClasses(classes);
     if (msg != null)
       return msg;
+    System.err.println("Keeping " + classes);
+    m_KeptClasses = classes.size();
+    msg = determineKeptDependencies(classes);
+    if (msg != null)
+      return msg;
+
+    // modules with kept classes
+    if (m_Reactor.isMultiModule())
+      determineModules(classes);
+
+    // dependency graph
+    if (requiresGraph()) {
+      msg = buildGraph(classes);
+      if (msg == null)
+        msg = queryGraph();
+      if (msg != null)
+        return msg;
+    }
 
     // prepare the output directory
     msg = prepareOutputDir();
@@ -831,9 +2453,312 @@ public class Meka {
     if (msg != null)
       return msg;
 
+    // finish output
+    msg = closeSink();
+    if (msg != null)
+      return msg;
+
+    // summary
+    System.err.println("Summary:");
+    System.err.println("- classes kept: " + m_KeptClasses);
+    System.err.println("- dependencies used: " + m_KeptDependencies + "/" + m_Dependencies.size());
+    if (m_Reactor.isMultiModule())
+      System.err.println("- modules kept: " + m_KeptModules.size() + "/" + m_Reactor.getModules().size());
+    System.err.println("- resources copied: " + m_ResourcesCopied + " (" + m_ResourceBytesCopied + " bytes)");
+    if (m_PruneResources)
+      System.err.println("- resources pruned: " + m_ResourcesPruned + " (" + m_ResourceBytesPruned + " bytes)");
+
+    return null;
+  }
+
+  /**
+   * Finishes writing the output.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String closeSink() {
+    if (m_Sink == null)
+      return null;
+
+    try {
+      m_Sink.close();
+    }
+    catch (Exception e) {
+      return "Failed to finish writing output: " + m_Sink + "\n" + e;
+    }
+    m_OutputBytes = m_Sink.getByteCount();
+
+    if (m_Sink instanceof AbstractArchiveSink)
+      System.err.println("Wrote " + m_Sink.getFileCount() + " file(s), " + m_Sink.getByteCount() + " bytes ("
+	+ ((AbstractArchiveSink) m_Sink).getCompressedCount() + " compressed) to " + m_Sink);
+
+    return null;
+  }
+
+  /**
+   * Measures the footprint of the minified build environment.
+   *
+   * @param budget	the budget (for the startup class)
+   * @return		the metrics
+   * @throws Exception	if measuring the startup time fails
+   */
+  protected Metrics measure(Budget budget) throws Exception {
+    Metrics		result;
+    List<File>		jars;
+    File		jar;
+    List<String>	classpath;
+    long		bytes;
+    int			i;
+
+    result = new Metrics();
+    result.set(Metrics.CLASSES, m_KeptClasses);
+    result.set(Metrics.SOURCE_BYTES, m_OutputBytes);
+    result.set(Metrics.DEPENDENCIES, m_KeptDependencies);
+
+    // only available if the minified build environment got built
+    jars = new ArrayList<>();
+    if (m_Test && m_Reactor.isMultiModule()) {
+      for (Module module: m_Reactor.getModules()) {
+	if (!m_KeptModules.contains(module) || module.getPackaging().equals("pom"))
+	  continue;
+	jar = Module.findJar(new File(m_Output, module.getPath()), module.getArtifactId(), module.getVersion());
+	if (jar != null)
+	  jars.add(jar);
+      }
+    }
+    else if (m_Test) {
+      jar = findJar(m_Output);
+      if (jar != null)
+	jars.add(jar);
+    }
+    if (!jars.isEmpty()) {
+      bytes = 0;
+      for (File j: jars)
+	bytes += j.length();
+      result.set(Metrics.JAR_BYTES, bytes);
+      if (budget.getStartupClass() != null) {
+	System.err.println("Measuring startup time of " + budget.getStartupClass() + "...");
+	classpath = new ArrayList<>(m_Dependencies);
+	for (i = 0; i < jars.size(); i++)
+	  classpath.add(i, jars.get(i).getAbsolutePath());
+	result.set(Metrics.STARTUP_MS, StartupProbe.measure(m_JavaHome, classpath, budget.getStartupClass(), budget.getStartupRuns()));
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Measures the minified build environment and compares it against the
+   * budget and the metrics of the previous run.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String checkBudget() {
+    Budget		budget;
+    Metrics		previous;
+    Metrics		current;
+    String		report;
+    String		msg;
+    List<String>	violations;
+
+    if ((m_Budget == null) && (m_Metrics == null))
+      return null;
+
+    if (m_Budget != null) {
+      budget = Budget.load(m_Budget);
+      if (budget == null)
+	return "Failed to load budget: " + m_Budget;
+      msg = budget.validate();
+      if (msg != null)
+	return "Invalid budget: " + m_Budget + "\n" + msg;
+    }
+    else {
+      budget = new Budget();
+    }
+
+    previous = null;
+    if ((m_Metrics != null) && m_Metrics.exists()) {
+      previous = Metrics.load(m_Metrics);
+      if (previous == null)
+	return "Failed to load metrics: " + m_Metrics;
+    }
+
+    try {
+      current = measure(budget);
+    }
+    catch (Exception e) {
+      return "Failed to measure minified build environment: " + e;
+    }
+    System.err.println("Metrics: " + current);
+    for (String key: budget.unmeasured(current))
+      System.err.println("Warning: budget for '" + key + "' not checked, not measured" + (m_Test ? "" : " (requires --test)"));
+
+    // report
+    report = budget.report(current, previous);
+    if (m_BudgetReport != null) {
+      try {
+	Files.write(m_BudgetReport.toPath(), report.getBytes());
+      }
+      catch (Exception e) {
+	return "Failed to write budget report: " + m_BudgetReport + "\n" + e;
+      }
+    }
+    else {
+      System.err.println(report);
+    }
+
+    violations = budget.check(current);
+    if (!violations.isEmpty()) {
+      m_BudgetExceeded = true;
+      return "Budget exceeded:\n" + String.join("\n", violations);
+    }
+
+    // only within budget the metrics become the new baseline
+    if (m_Metrics != null) {
+      msg = current.save(m_Metrics);
+      if (msg != null)
+	return msg;
+    }
+
+    return null;
+  }
+
+  /**
+   * Computes the key of the run from the input build environment, the
+   * dependencies, the JDK and all options that influence the output.
+   *
+   * @return		the key
+   * @throws Exception	if reading of files fails
+   */
+  protected String runKey() throws Exception {
+    RunKey		result;
+    Set<String>		exclude;
+    ClassLocatorIndex	index;
+
+    result = new RunKey();
+    result.add("javahome", m_JavaHome.getAbsolutePath());
+    result.addFile("release", new File(m_JavaHome, "release"));
+    result.addFile("classes", m_ClassesFile);
+    result.addFile("additional", m_AdditionalFile);
+    result.add("packages", m_Packages);
+    result.add("dist", (m_Dist == null) ? null : m_Dist.getName().substring(m_Dist.getName().indexOf('.')));
+    result.add("artifact", getProjectValue("artifactId") + "-" + getProjectValue("version"));
+    result.addFile("distassembly", (m_DistAssembly == null) ? null
+      : (m_DistAssembly.isAbsolute() ? m_DistAssembly : new File(m_Input, m_DistAssembly.getPath())));
+    result.add("pruneresources", m_PruneResources);
+    result.add("keepresources", m_KeepResources);
+    result.add("addmissing", m_AddMissing);
+    result.addCode("minify-meka", Meka.class);
+    result.addCode("deps4j", MinDeps.class);
+    for (String dep: m_Dependencies)
+      result.addFingerprint(new File(dep));
+    // the jars that --add-missing picks from
+    if (m_AddMissing) {
+      index = new ClassLocatorIndex(m_MavenRepo, m_CacheDir);
+      index.update();
+      for (ClassLocatorIndex.Jar jar: index.getJars())
+        result.add("locator", jar.path + "|" + jar.size + "|" + jar.lastModified);
+      index.close();
+    }
+    exclude = new HashSet<>(Arrays.asList("target", ".git", ".idea"));
+    result.addTree(m_Input, exclude);
+
+    return result.toString();
+  }
+
+  /**
+   * Restores the output from the run cache, if the same run has been
+   * performed before.
+   *
+   * @return		null if successful (also if not cached), otherwise error message
+   */
+  protected String restoreRun() {
+    Properties	metadata;
+    String	msg;
+
+    if (!m_RunCache)
+      return null;
+    if (requiresGraph()) {
+      System.err.println("Dependency graph queries require a full run, ignoring run cache.");
+      return null;
+    }
+
+    m_Runs = new RunCache(m_CacheDir, m_RunCacheMaxSize * 1024 * 1024);
+    try {
+      m_RunKey = runKey();
+    }
+    catch (Exception e) {
+      return "Failed to compute key of run!\n" + e;
+    }
+    System.err.println("Run key: " + m_RunKey);
+
+    if ((m_Dist == null) && m_Runs.contains(m_RunKey)) {
+      msg = cleanOutputDir();
+      if (msg != null)
+	return msg;
+    }
+    try {
+      metadata = m_Runs.restore(m_RunKey, (m_Dist == null) ? m_Output : m_Dist);
+    }
+    catch (Exception e) {
+      return "Failed to restore run from cache: " + m_RunKey + "\n" + e;
+    }
+    if (metadata == null)
+      return null;
+
+    m_RunCacheHit = true;
+    m_KeptClasses = Integer.parseInt(metadata.getProperty("classes", "0"));
+    m_KeptDependencies = Integer.parseInt(metadata.getProperty("dependencies", "0"));
+    for (String jar: metadata.getProperty("dependencies.added", "").split(File.pathSeparator)) {
+      if (!jar.isEmpty() && !m_Dependencies.contains(jar)) {
+        m_Dependencies.add(jar);
+        m_AddedDependencies.add(jar);
+      }
+    }
+    m_OutputBytes = Long.parseLong(metadata.getProperty("bytes", "0"));
+    m_KeptModules.clear();
+    for (String path: metadata.getProperty("modules", "").split(",")) {
+      for (Module module: m_Reactor.getModules()) {
+	if (module.getPath().equals(path))
+	  m_KeptModules.add(module);
+      }
+    }
+    System.err.println("Restored output from run cache: " + ((m_Dist == null) ? m_Output : m_Dist));
+
     return null;
   }
 
+  /**
+   * Stores the output in the run cache. Failures only get reported.
+   */
+  protected void storeRun() {
+    Properties		metadata;
+    StringBuilder	modules;
+
+    if (m_RunKey == null)
+      return;
+
+    metadata = new Properties();
+    metadata.setProperty("classes", "" + m_KeptClasses);
+    metadata.setProperty("dependencies", "" + m_KeptDependencies);
+    metadata.setProperty("dependencies.added", String.join(File.pathSeparator, m_AddedDependencies));
+    metadata.setProperty("bytes", "" + m_OutputBytes);
+    modules = new StringBuilder();
+    for (Module module: m_KeptModules) {
+      if (modules.length() > 0)
+	modules.append(",");
+      modules.append(module.getPath());
+    }
+    metadata.setProperty("modules", modules.toString());
+    try {
+      m_Runs.store(m_RunKey, (m_Dist == null) ? m_Output : m_Dist, new HashSet<>(Arrays.asList("target")), metadata);
+    }
+    catch (Exception e) {
+      System.err.println("Failed to store run in cache: " + m_RunKey + "\n" + e);
+    }
+  }
+
   /**
    * Determines the dependencies.
    *
@@ -844,29 +2769,53 @@ public class Meka {
 
     result = check();
 
-    if (result == null) {
-      result = build(m_Input);
-      if (result != null)
-        result = "Failed to build input build environment: " + result;
-    }
-
     if (result == null)
       result = readPOM();
 
     if (result == null)
-      result = assembleMinDepsClassPath();
+      result = assembleDependencies();
 
     if (result == null)
+      result = restoreRun();
+
+    if ((result == null) && !m_RunCacheHit) {
+      result = build(m_Input, m_InputBuild);
+      if (result != null)
+        result = "Failed to build input build environment: " + result;
+    }
+
+    if ((result == null) && !m_RunCacheHit)
+      result = assembleMinDepsClassPath();
+
+    if ((result == null) && !m_RunCacheHit)
+      result = resolveMissing();
+
+    if ((result == null) && !m_RunCacheHit) {
       result = minify();
+      if ((result != null) && (m_Sink instanceof AbstractArchiveSink)) {
+        closeSink();
+        m_Dist.delete();
+      }
+    }
 
     if (result == null) {
       if (m_Test) {
-	result = build(m_Output);
+	result = build(m_Output, m_TestBuild);
 	if (result != null)
 	  result = "Failed to build minified build environment: " + result;
       }
     }
 
+    // only outputs that passed testing get cached
+    if ((result == null) && !m_RunCacheHit)
+      storeRun();
+
+    if (result == null)
+      result = checkBudget();
+
+    if (m_Runs != null)
+      System.err.println(m_Runs.report());
+
     if (result == null)
       System.err.println("Note: Either delete the maven-exec-plugin build tag or use '" + EXEC_SKIP + "'");
 
@@ -882,7 +2831,7 @@ public class Meka {
       error = meka.execute();
       if (error != null) {
 	System.err.println(error);
-	System.exit(2);
+	System.exit(meka.isBudgetExceeded() ? EXIT_BUDGET : 2);
       }
     }
     else {
@@ -0,0 +1,257 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Budget.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.budget;
+
+import nz.ac.waikato.cms.core.PropsUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Footprint budget, loaded from a props file. The maximum for a metric is
+ * defined via "max." + metric, eg "max.classes=1200". The class to measure
+ * the startup time with is defined via "startup.class", the number of
+ * startup runs (the fastest gets used) via "startup.runs". Metrics that
+ * weren't measured (eg the jar size when not testing) don't get checked.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Budget {
+
+  /** the prefix for maximum values. */
+  public final static String MAX_PREFIX = "max.";
+
+  /** the key for the startup class. */
+  public final static String STARTUP_CLASS = "startup.class";
+
+  /** the key for the number of startup runs. */
+  public final static String STARTUP_RUNS = "startup.runs";
+
+  /** the underlying properties. */
+  protected Properties m_Props;
+
+  /**
+   * Initializes an empty budget, ie without any limits.
+   */
+  public Budget() {
+    this(new Properties());
+  }
+
+  /**
+   * Initializes the budget.
+   *
+   * @param props	the properties to use
+   */
+  protected Budget(Properties props) {
+    super();
+    m_Props = props;
+  }
+
+  /**
+   * Loads the budget from the props file.
+   *
+   * @param file	the file to load
+   * @return		the budget, null if failed to load
+   */
+  public static Budget load(File file) {
+    Properties	props;
+
+    props = new Properties();
+    if (!PropsUtils.load(props, file.getAbsolutePath()))
+      return null;
+
+    return new Budget(props);
+  }
+
+  /**
+   * Checks the keys and values of the budget.
+   *
+   * @return		null if valid, otherwise error message
+   */
+  public String validate() {
+    String	key;
+    String	value;
+    long	number;
+
+    for (Object k: m_Props.keySet()) {
+      key   = k.toString();
+      value = m_Props.getProperty(key).trim();
+      if (key.equals(STARTUP_CLASS))
+	continue;
+      if (key.startsWith(MAX_PREFIX)) {
+	if (!Arrays.asList(Metrics.ALL).contains(key.substring(MAX_PREFIX.length())))
+	  return "Unknown metric '" + key.substring(MAX_PREFIX.length()) + "', available: " + String.join(", ", Metrics.ALL);
+	if (value.isEmpty())
+	  continue;
+      }
+      else if (!key.equals(STARTUP_RUNS)) {
+	return "Unknown key: " + key;
+      }
+      try {
+	number = Long.parseLong(value);
+      }
+      catch (NumberFormatException e) {
+	return "Value of '" + key + "' is not a number: " + value;
+      }
+      if (number < 0)
+	return "Value of '" + key + "' cannot be negative: " + value;
+      if (key.equals(STARTUP_RUNS) && (number > Integer.MAX_VALUE))
+	return "Value of '" + key + "' is too large: " + value;
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the maximum for the metric. The budget must have been
+   * validated with {@link #validate()}.
+   *
+   * @param metric	the metric
+   * @return		the maximum, null if no maximum defined
+   */
+  public Long getMax(String metric) {
+    String	value;
+
+    value = m_Props.getProperty(MAX_PREFIX + metric);
+    if ((value == null) || value.trim().isEmpty())
+      return null;
+
+    return Long.parseLong(value.trim());
+  }
+
+  /**
+   * Returns the class to measure the startup time with.
+   *
+   * @return		the class, null if none defined
+   */
+  public String getStartupClass() {
+    String	result;
+
+    result = m_Props.getProperty(STARTUP_CLASS);
+    if ((result != null) && result.trim().isEmpty())
+      result = null;
+
+    return (result == null) ? null : result.trim();
+  }
+
+  /**
+   * Returns the number of startup runs. The budget must have been
+   * validated with {@link #validate()}.
+   *
+   * @return		the number of runs
+   */
+  public int getStartupRuns() {
+    return Math.max(1, Integer.parseInt(m_Props.getProperty(STARTUP_RUNS, "3").trim()));
+  }
+
+  /**
+   * Checks the metrics against the budget. Metrics that weren't measured
+   * get skipped, see {@link #unmeasured(Metrics)}.
+   *
+   * @param metrics	the metrics to check
+   * @return		the violations, empty if within budget
+   */
+  public List<String> check(Metrics metrics) {
+    List<String>	result;
+    Long		max;
+    Long		value;
+
+    result = new ArrayList<>();
+    for (String key: Metrics.ALL) {
+      max = getMax(key);
+      if (max == null)
+	continue;
+      value = metrics.get(key);
+      if ((value != null) && (value > max))
+	result.add(key + ": " + value + " exceeds budget of " + max + " by " + (value - max));
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the metrics that have a budget, but weren't measured.
+   *
+   * @param metrics	the metrics to check
+   * @return		the metrics, empty if all got measured
+   */
+  public List<String> unmeasured(Metrics metrics) {
+    List<String>	result;
+
+    result = new ArrayList<>();
+    for (String key: Metrics.ALL) {
+      if ((getMax(key) != null) && (metrics.get(key) == null))
+	result.add(key);
+    }
+
+    return result;
+  }
+
+  /**
+   * Generates a report comparing the current metrics against the budget
+   * and the previous metrics.
+   *
+   * @param current	the current metrics
+   * @param previous	the previous metrics, null if not available
+   * @return		the report
+   */
+  public String report(Metrics current, Metrics previous) {
+    StringBuilder	result;
+    Long		cur;
+    Long		prev;
+    Long		max;
+    List<String>	violations;
+    List<String>	unmeasured;
+
+    result = new StringBuilder();
+    result.append(String.format("%-15s %15s %15s %15s %15s%n", "metric", "current", "previous", "diff", "budget"));
+    for (String key: Metrics.ALL) {
+      cur  = current.get(key);
+      prev = (previous == null) ? null : previous.get(key);
+      max  = getMax(key);
+      result.append(String.format("%-15s %15s %15s %15s %15s%n",
+	key,
+	(cur == null) ? "-" : cur,
+	(prev == null) ? "-" : prev,
+	((cur == null) || (prev == null)) ? "-" : String.format("%+d", cur - prev),
+	(max == null) ? "-" : max));
+    }
+
+    violations = check(current);
+    unmeasured = unmeasured(current);
+    result.append("\n");
+    if (!unmeasured.isEmpty())
+      result.append("Not measured, budget not checked: ").append(String.join(", ", unmeasured)).append("\n");
+    if (violations.isEmpty()) {
+      result.append("Within budget.\n");
+    }
+    else {
+      result.append("Budget exceeded:\n");
+      for (String violation: violations)
+	result.append("- ").append(violation).append("\n");
+    }
+
+    return result.toString();
+  }
+}
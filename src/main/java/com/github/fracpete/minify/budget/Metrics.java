@@ -0,0 +1,148 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Metrics.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.budget;
+
+import nz.ac.waikato.cms.core.PropsUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Properties;
+
+/**
+ * Footprint metrics of a minification run. Metrics that were not measured
+ * (eg the jar size when not testing) are absent.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Metrics {
+
+  /** the number of kept classes. */
+  public final static String CLASSES = "classes";
+
+  /** the bytes of the minified build environment (sources, resources, etc). */
+  public final static String SOURCE_BYTES = "source.bytes";
+
+  /** the bytes of the jar built from the minified build environment. */
+  public final static String JAR_BYTES = "jar.bytes";
+
+  /** the number of dependency jars that kept classes come from. */
+  public final static String DEPENDENCIES = "dependencies";
+
+  /** the startup time in msec. */
+  public final static String STARTUP_MS = "startup.ms";
+
+  /** all the metrics. */
+  public final static String[] ALL = {CLASSES, SOURCE_BYTES, JAR_BYTES, DEPENDENCIES, STARTUP_MS};
+
+  /** the values. */
+  protected Properties m_Values;
+
+  /**
+   * Initializes empty metrics.
+   */
+  public Metrics() {
+    super();
+    m_Values = new Properties();
+  }
+
+  /**
+   * Sets the value of the metric.
+   *
+   * @param key		the metric
+   * @param value	the value
+   */
+  public void set(String key, long value) {
+    m_Values.setProperty(key, "" + value);
+  }
+
+  /**
+   * Returns the value of the metric.
+   *
+   * @param key		the metric
+   * @return		the value, null if not measured
+   */
+  public Long get(String key) {
+    String	value;
+
+    value = m_Values.getProperty(key);
+    if (value == null)
+      return null;
+    try {
+      return Long.parseLong(value.trim());
+    }
+    catch (Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * Loads the metrics from the props file.
+   *
+   * @param file	the file to load
+   * @return		the metrics, null if failed to load
+   */
+  public static Metrics load(File file) {
+    Metrics	result;
+
+    result = new Metrics();
+    if (!PropsUtils.load(result.m_Values, file.getAbsolutePath()))
+      return null;
+
+    return result;
+  }
+
+  /**
+   * Saves the metrics to the props file.
+   *
+   * @param file	the file to save to
+   * @return		null if successful, otherwise error message
+   */
+  public String save(File file) {
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      m_Values.store(out, "minify-meka metrics");
+      return null;
+    }
+    catch (Exception e) {
+      return "Failed to save metrics to: " + file + "\n" + e;
+    }
+  }
+
+  /**
+   * Returns the metrics as string.
+   *
+   * @return		the metrics
+   */
+  @Override
+  public String toString() {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    for (String key: ALL) {
+      if (get(key) == null)
+	continue;
+      if (result.length() > 0)
+	result.append(", ");
+      result.append(key).append("=").append(get(key));
+    }
+
+    return result.toString();
+  }
+}
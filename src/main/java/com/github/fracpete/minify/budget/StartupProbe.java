@@ -0,0 +1,98 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * StartupProbe.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.budget;
+
+import com.github.fracpete.processoutput4j.output.CollectingProcessOutput;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the startup time of a class in a fresh JVM: the time it takes
+ * to launch the JVM, load and initialize the class and exit again.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class StartupProbe {
+
+  /**
+   * Returns the classpath entry that contains this class.
+   *
+   * @return		the jar or directory
+   * @throws Exception	if the location cannot be determined
+   */
+  protected static String getLocation() throws Exception {
+    return new File(StartupProbe.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath();
+  }
+
+  /**
+   * Measures the startup time, using the fastest of the runs.
+   *
+   * @param javaHome	the java home directory to use
+   * @param classpath	the classpath (jar and dependencies)
+   * @param cls		the class to load
+   * @param runs	the number of runs
+   * @return		the time in msec
+   * @throws Exception	if loading of class fails
+   */
+  public static long measure(File javaHome, List<String> classpath, String cls, int runs) throws Exception {
+    long			result;
+    List<String>		cmd;
+    ProcessBuilder		builder;
+    CollectingProcessOutput	output;
+    long			start;
+    long			duration;
+    int				i;
+
+    cmd = new ArrayList<>();
+    cmd.add(javaHome.getAbsolutePath() + File.separator + "bin" + File.separator + "java");
+    cmd.add("-cp");
+    cmd.add(getLocation() + File.pathSeparator + String.join(File.pathSeparator, classpath));
+    cmd.add(StartupProbe.class.getName());
+    cmd.add(cls);
+
+    result = Long.MAX_VALUE;
+    for (i = 0; i < runs; i++) {
+      builder = new ProcessBuilder();
+      builder.command(cmd);
+      output = new CollectingProcessOutput();
+      start  = System.nanoTime();
+      output.monitor(builder);
+      duration = (System.nanoTime() - start) / 1000000;
+      if (!output.hasSucceeded())
+	throw new IllegalStateException("Failed to load class " + cls + ":\n" + output.getStdErr());
+      result = Math.min(result, duration);
+    }
+
+    return result;
+  }
+
+  /**
+   * Loads and initializes the class supplied as first argument.
+   *
+   * @param args	the class name
+   * @throws Exception	if loading fails
+   */
+  public static void main(String[] args) throws Exception {
+    Class.forName(args[0], true, StartupProbe.class.getClassLoader());
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * BuildBackend.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.build;
+
+import java.io.File;
+
+/**
+ * Interface for schemes that build a Meka build environment, i.e., compile
+ * the sources and generate the jar in the "target" directory.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public interface BuildBackend {
+
+  /**
+   * Returns the name of the backend, as used on the command-line.
+   *
+   * @return		the name
+   */
+  public String getName();
+
+  /**
+   * Builds the specified build environment.
+   *
+   * @param dir		the build env
+   * @param log		for logging the build output
+   * @return		null if successful, otherwise error message
+   */
+  public String build(File dir, BuildLog log);
+}
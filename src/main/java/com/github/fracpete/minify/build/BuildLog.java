@@ -0,0 +1,179 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * BuildLog.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.build;
+
+import com.github.fracpete.processoutput4j.core.StreamingProcessOutputType;
+import com.github.fracpete.processoutput4j.core.StreamingProcessOwner;
+
+/**
+ * Bounded log for build output. Only the most recent lines are kept,
+ * older ones get discarded (but counted).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class BuildLog
+  implements StreamingProcessOwner {
+
+  /** the default number of lines to keep. */
+  public final static int DEFAULT_MAX_LINES = 1000;
+
+  /** the ring buffer with the lines. */
+  protected String[] m_Lines;
+
+  /** the position for the next line. */
+  protected int m_Next;
+
+  /** the number of lines currently stored. */
+  protected int m_Size;
+
+  /** the total number of lines received. */
+  protected long m_Total;
+
+  /** whether to echo the lines on stderr. */
+  protected boolean m_Echo;
+
+  /**
+   * Initializes the log with the default number of lines.
+   */
+  public BuildLog() {
+    this(DEFAULT_MAX_LINES);
+  }
+
+  /**
+   * Initializes the log.
+   *
+   * @param maxLines	the maximum number of lines to keep
+   */
+  public BuildLog(int maxLines) {
+    super();
+
+    if (maxLines < 1)
+      maxLines = 1;
+    m_Lines = new String[maxLines];
+    m_Next  = 0;
+    m_Size  = 0;
+    m_Total = 0;
+    m_Echo  = false;
+  }
+
+  /**
+   * Sets whether to echo the lines on stderr as they come in.
+   *
+   * @param value	true if to echo
+   */
+  public void setEcho(boolean value) {
+    m_Echo = value;
+  }
+
+  /**
+   * Returns whether to echo the lines on stderr as they come in.
+   *
+   * @return		true if to echo
+   */
+  public boolean getEcho() {
+    return m_Echo;
+  }
+
+  /**
+   * Returns the maximum number of lines that are kept.
+   *
+   * @return		the maximum
+   */
+  public int getMaxLines() {
+    return m_Lines.length;
+  }
+
+  /**
+   * Returns the total number of lines that were received.
+   *
+   * @return		the number of lines
+   */
+  public synchronized long getTotal() {
+    return m_Total;
+  }
+
+  /**
+   * Removes all lines.
+   */
+  public synchronized void clear() {
+    m_Lines = new String[m_Lines.length];
+    m_Next  = 0;
+    m_Size  = 0;
+    m_Total = 0;
+  }
+
+  /**
+   * Adds the line to the log.
+   *
+   * @param line	the line to add
+   */
+  public synchronized void add(String line) {
+    m_Lines[m_Next] = line;
+    m_Next = (m_Next + 1) % m_Lines.length;
+    if (m_Size < m_Lines.length)
+      m_Size++;
+    m_Total++;
+    if (m_Echo)
+      System.err.println(line);
+  }
+
+  /**
+   * Returns what output from the process to forward.
+   *
+   * @return 		the output type
+   */
+  @Override
+  public StreamingProcessOutputType getOutputType() {
+    return StreamingProcessOutputType.BOTH;
+  }
+
+  /**
+   * Processes the incoming line.
+   *
+   * @param line	the line to process
+   * @param stdout	whether stdout or stderr
+   */
+  @Override
+  public void processOutput(String line, boolean stdout) {
+    add(line);
+  }
+
+  /**
+   * Returns the stored lines, oldest first.
+   *
+   * @return		the lines
+   */
+  @Override
+  public synchronized String toString() {
+    StringBuilder	result;
+    int			i;
+    int			start;
+
+    result = new StringBuilder();
+    if (m_Total > m_Size)
+      result.append("[... ").append(m_Total - m_Size).append(" line(s) omitted ...]\n");
+    start = (m_Next - m_Size + m_Lines.length) % m_Lines.length;
+    for (i = 0; i < m_Size; i++)
+      result.append(m_Lines[(start + i) % m_Lines.length]).append("\n");
+
+    return result.toString();
+  }
+}
@@ -0,0 +1,612 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * JavacBuildBackend.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.build;
+
+import com.github.fracpete.processoutput4j.output.StreamingProcessOutput;
+import nz.ac.waikato.cms.core.FileUtils;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Builds the environment using the Java compiler and the supplied (already
+ * resolved) classpath. The sizes and timestamps of all sources, resources
+ * and dependencies, as well as the compiler options, get recorded in
+ * "target/javac-build.props". If nothing changed since the last build,
+ * the build is skipped. Otherwise, "target/classes" gets cleared and all
+ * sources get recompiled, so that dependents of changed classes get
+ * updated as well and class files of deleted sources disappear. Resources
+ * get copied into "target/classes" and the jar is generated from there.
+ * <br>
+ * Uses the compiler of the running JVM in-process, if it is the same JDK as
+ * the specified Java home, otherwise forks the javac of the Java home.
+ * <br>
+ * Requires the dependencies to be present in the local Maven repository,
+ * i.e., the build environment must have been built with Maven at least once.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class JavacBuildBackend
+  implements BuildBackend {
+
+  public final static String NAME = "javac";
+
+  /** the file with the state of the last build (in the target directory). */
+  public final static String STATE = "javac-build.props";
+
+  /** the default source/target version. */
+  public final static String DEFAULT_VERSION = "1.8";
+
+  /** the classpath parts (dependencies). */
+  protected List<String> m_ClassPath;
+
+  /** the name of the jar to generate in the target directory. */
+  protected String m_JarName;
+
+  /** the source version to compile for. */
+  protected String m_Source;
+
+  /** the target version to compile for. */
+  protected String m_Target;
+
+  /** the Java home to use the compiler from (null for the running JVM). */
+  protected File m_JavaHome;
+
+  /**
+   * Initializes the backend.
+   */
+  public JavacBuildBackend() {
+    super();
+
+    m_ClassPath = new ArrayList<>();
+    m_JarName   = null;
+    m_Source    = DEFAULT_VERSION;
+    m_Target    = DEFAULT_VERSION;
+    m_JavaHome  = null;
+  }
+
+  /**
+   * Returns the name of the backend, as used on the command-line.
+   *
+   * @return		the name
+   */
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  /**
+   * Sets the classpath (ie dependencies) to compile against.
+   *
+   * @param value	the jars
+   */
+  public void setClassPath(List<String> value) {
+    m_ClassPath.clear();
+    m_ClassPath.addAll(value);
+  }
+
+  /**
+   * Returns the classpath (ie dependencies) to compile against.
+   *
+   * @return		the jars
+   */
+  public List<String> getClassPath() {
+    return m_ClassPath;
+  }
+
+  /**
+   * Sets the name of the jar to generate (eg "meka-1.9.3-SNAPSHOT.jar").
+   *
+   * @param value	the name
+   */
+  public void setJarName(String value) {
+    m_JarName = value;
+  }
+
+  /**
+   * Returns the name of the jar to generate.
+   *
+   * @return		the name, null if not set
+   */
+  public String getJarName() {
+    return m_JarName;
+  }
+
+  /**
+   * Sets the source version to compile for.
+   *
+   * @param value	the version, eg "1.8"
+   */
+  public void setSource(String value) {
+    m_Source = value;
+  }
+
+  /**
+   * Returns the source version to compile for.
+   *
+   * @return		the version
+   */
+  public String getSource() {
+    return m_Source;
+  }
+
+  /**
+   * Sets the target version to compile for.
+   *
+   * @param value	the version, eg "1.8"
+   */
+  public void setTarget(String value) {
+    m_Target = value;
+  }
+
+  /**
+   * Returns the target version to compile for.
+   *
+   * @return		the version
+   */
+  public String getTarget() {
+    return m_Target;
+  }
+
+  /**
+   * Sets the Java home to use the compiler from.
+   *
+   * @param value	the Java home, null for the running JVM
+   */
+  public void setJavaHome(File value) {
+    m_JavaHome = value;
+  }
+
+  /**
+   * Returns the Java home to use the compiler from.
+   *
+   * @return		the Java home, null for the running JVM
+   */
+  public File getJavaHome() {
+    return m_JavaHome;
+  }
+
+  /**
+   * Collects all files below the directory that satisfy the extension
+   * (or, if extension is null, all files).
+   *
+   * @param dir		the directory to traverse
+   * @param ext		the extension, null for all files
+   * @param files	for collecting the files
+   */
+  protected void collect(File dir, String ext, List<File> files) {
+    File[]	list;
+
+    list = dir.listFiles();
+    if (list == null)
+      return;
+    for (File file: list) {
+      if (file.isDirectory())
+        collect(file, ext, files);
+      else if ((ext == null) || file.getName().endsWith(ext))
+        files.add(file);
+    }
+  }
+
+  /**
+   * Returns the compiler options.
+   *
+   * @param classesDir	the output directory
+   * @return		the options
+   */
+  protected List<String> getOptions(File classesDir) {
+    List<String>	result;
+    StringBuilder	cp;
+
+    cp = new StringBuilder(classesDir.getAbsolutePath());
+    for (String part: m_ClassPath)
+      cp.append(File.pathSeparator).append(part);
+
+    result = new ArrayList<>();
+    result.add("-d");
+    result.add(classesDir.getAbsolutePath());
+    result.add("-classpath");
+    result.add(cp.toString());
+    result.add("-source");
+    result.add(m_Source);
+    result.add("-target");
+    result.add(m_Target);
+    result.add("-nowarn");
+    result.add("-encoding");
+    result.add("UTF-8");
+
+    return result;
+  }
+
+  /**
+   * Records size and timestamp of the files.
+   *
+   * @param state	for storing the fingerprints
+   * @param prefix	the prefix for the keys
+   * @param root	the directory the files are relative to
+   * @param files	the files to record
+   */
+  protected void record(Properties state, String prefix, File root, List<File> files) {
+    String	rootAbs;
+
+    rootAbs = root.getAbsolutePath();
+    for (File file: files)
+      state.setProperty(prefix + file.getAbsolutePath().substring(rootAbs.length()).replace(File.separatorChar, '/'), file.length() + "|" + file.lastModified());
+  }
+
+  /**
+   * Determines the state of the build environment, ie the fingerprints of
+   * sources, resources, dependencies and the compiler options.
+   *
+   * @param srcDir	the source directory
+   * @param sources	the sources
+   * @param resDir	the resources directory
+   * @param resources	the resources
+   * @param options	the compiler options
+   * @return		the state
+   */
+  protected Properties determineState(File srcDir, List<File> sources, File resDir, List<File> resources, List<String> options) {
+    Properties	result;
+    File	file;
+
+    result = new Properties();
+    result.setProperty("options", String.join(" ", options));
+    result.setProperty("compiler", (m_JavaHome == null) ? "" : m_JavaHome.getAbsolutePath());
+    record(result, "src:", srcDir, sources);
+    record(result, "res:", resDir, resources);
+    for (String part: m_ClassPath) {
+      file = new File(part);
+      result.setProperty("dep:" + file.getAbsolutePath(), file.length() + "|" + file.lastModified());
+    }
+
+    return result;
+  }
+
+  /**
+   * Reads the state of the last build.
+   *
+   * @param file	the state file
+   * @return		the state, empty if not available
+   */
+  protected Properties readState(File file) {
+    Properties	result;
+
+    result = new Properties();
+    if (!file.exists())
+      return result;
+    try (InputStream in = new FileInputStream(file)) {
+      result.load(in);
+    }
+    catch (Exception e) {
+      result.clear();
+    }
+
+    return result;
+  }
+
+  /**
+   * Writes the state of the build.
+   *
+   * @param state	the state
+   * @param file	the state file
+   * @throws Exception	if writing fails
+   */
+  protected void writeState(Properties state, File file) throws Exception {
+    try (OutputStream out = new FileOutputStream(file)) {
+      state.store(out, "minify-meka " + NAME + " build");
+    }
+  }
+
+  /**
+   * Returns whether the Java home is the one of the running JVM.
+   *
+   * @return		true if the running JVM (or no Java home set)
+   */
+  protected boolean isRunningJavaHome() {
+    File	running;
+    File	home;
+
+    if (m_JavaHome == null)
+      return true;
+    try {
+      running = new File(System.getProperty("java.home")).getCanonicalFile();
+      home    = m_JavaHome.getCanonicalFile();
+    }
+    catch (Exception e) {
+      return false;
+    }
+
+    // Java 8: java.home points to the "jre" sub-directory of the JDK
+    return running.equals(home) || (running.getName().equals("jre") && running.getParentFile().equals(home));
+  }
+
+  /**
+   * Compiles the sources in-process.
+   *
+   * @param sources	the sources to compile
+   * @param options	the compiler options
+   * @param log		for logging the compiler output
+   * @return		null if successful, otherwise error message
+   */
+  protected String compile(List<File> sources, List<String> options, BuildLog log) {
+    JavaCompiler				compiler;
+    StandardJavaFileManager			manager;
+    DiagnosticCollector<JavaFileObject>		diagnostics;
+    boolean					success;
+
+    compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null)
+      return "No Java compiler available, " + NAME + " backend requires a JDK!";
+
+    diagnostics = new DiagnosticCollector<>();
+    manager     = compiler.getStandardFileManager(diagnostics, null, null);
+    try {
+      success = compiler.getTask(null, manager, diagnostics, options, null, manager.getJavaFileObjectsFromFiles(sources)).call();
+      manager.close();
+    }
+    catch (Exception e) {
+      return "Failed to compile sources: " + e;
+    }
+
+    for (Diagnostic<? extends JavaFileObject> diag: diagnostics.getDiagnostics()) {
+      if (diag.getKind() == Diagnostic.Kind.ERROR)
+        log.add(diag.toString());
+    }
+
+    if (!success)
+      return "Compilation failed:\n" + log;
+
+    return null;
+  }
+
+  /**
+   * Compiles the sources by forking the javac of the Java home. Options and
+   * sources get passed on via an argument file.
+   *
+   * @param sources	the sources to compile
+   * @param options	the compiler options
+   * @param targetDir	the directory for the argument file
+   * @param log		for logging the compiler output
+   * @return		null if successful, otherwise error message
+   */
+  protected String fork(List<File> sources, List<String> options, File targetDir, BuildLog log) {
+    File			javac;
+    File			argFile;
+    List<String>		args;
+    ProcessBuilder		builder;
+    StreamingProcessOutput	output;
+
+    javac = new File(m_JavaHome, "bin" + File.separator + "javac");
+    if (!javac.exists() && !new File(javac.getPath() + ".exe").exists())
+      javac = new File(m_JavaHome.getParentFile(), "bin" + File.separator + "javac");
+    if (!javac.exists() && !new File(javac.getPath() + ".exe").exists())
+      return "No javac found in Java home, " + NAME + " backend requires a JDK: " + m_JavaHome;
+
+    args = new ArrayList<>();
+    for (String option: options)
+      args.add("\"" + option.replace("\\", "\\\\") + "\"");
+    for (File source: sources)
+      args.add("\"" + source.getAbsolutePath().replace("\\", "\\\\") + "\"");
+    argFile = new File(targetDir, "javac.args");
+    try {
+      Files.write(argFile.toPath(), args, StandardCharsets.UTF_8);
+    }
+    catch (Exception e) {
+      return "Failed to write javac argument file: " + argFile + "\n" + e;
+    }
+
+    builder = new ProcessBuilder();
+    builder.command(javac.getAbsolutePath(), "@" + argFile.getAbsolutePath());
+    output = new StreamingProcessOutput(log);
+    try {
+      output.monitor(builder);
+      if (!output.hasSucceeded())
+        return "Compilation failed, exit code: " + output.getExitCode() + "\nOutput:\n" + log;
+    }
+    catch (Exception e) {
+      return "Failed to execute: " + builder.command() + "\n" + e;
+    }
+
+    return null;
+  }
+
+  /**
+   * Copies the resources into the classes directory.
+   *
+   * @param resDir	the resources directory
+   * @param resources	the resources to copy
+   * @param classesDir	the output directory
+   * @param log		for logging
+   * @throws Exception	if copying fails
+   */
+  protected void copyResources(File resDir, List<File> resources, File classesDir, BuildLog log) throws Exception {
+    String	resAbs;
+    File	target;
+
+    resAbs = resDir.getAbsolutePath();
+    for (File file: resources) {
+      target = new File(classesDir.getAbsolutePath() + file.getAbsolutePath().substring(resAbs.length()));
+      target.getParentFile().mkdirs();
+      Files.copy(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+    }
+    log.add("Copied " + resources.size() + " resource(s)");
+  }
+
+  /**
+   * Generates the jar from the classes directory. A manifest present in
+   * the classes directory (ie from the resources) is used as basis for
+   * the manifest of the jar.
+   *
+   * @param classesDir	the directory to jar
+   * @param jarFile	the jar to generate
+   * @throws Exception	if writing of jar fails
+   */
+  protected void jar(File classesDir, File jarFile) throws Exception {
+    Manifest		manifest;
+    File		manifestFile;
+    List<File>		files;
+    String		classesAbs;
+    String		name;
+    JarEntry		entry;
+
+    manifestFile = new File(classesDir, JarFile.MANIFEST_NAME.replace('/', File.separatorChar));
+    manifest     = new Manifest();
+    if (manifestFile.exists()) {
+      try (InputStream in = new FileInputStream(manifestFile)) {
+        manifest.read(in);
+      }
+    }
+    if (manifest.getMainAttributes().getValue(Attributes.Name.MANIFEST_VERSION) == null)
+      manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+
+    files = new ArrayList<>();
+    collect(classesDir, null, files);
+    Collections.sort(files);
+    classesAbs = classesDir.getAbsolutePath();
+    try (JarOutputStream out = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(jarFile)), manifest)) {
+      for (File file: files) {
+        name = file.getAbsolutePath().substring(classesAbs.length() + 1).replace(File.separatorChar, '/');
+        if (name.equalsIgnoreCase(JarFile.MANIFEST_NAME))
+          continue;
+        entry = new JarEntry(name);
+        entry.setTime(file.lastModified());
+        out.putNextEntry(entry);
+        Files.copy(file.toPath(), out);
+        out.closeEntry();
+      }
+    }
+  }
+
+  /**
+   * Builds the specified build environment.
+   *
+   * @param dir		the build env
+   * @param log		for logging the build output
+   * @return		null if successful, otherwise error message
+   */
+  @Override
+  public String build(File dir, BuildLog log) {
+    String		msg;
+    File		srcDir;
+    File		resDir;
+    File		targetDir;
+    File		classesDir;
+    File		jarFile;
+    File		stateFile;
+    List<File>		sources;
+    List<File>		resources;
+    List<String>	options;
+    Properties		state;
+
+    if (m_JarName == null)
+      return "No jar name set for " + NAME + " backend!";
+
+    srcDir     = new File(dir.getAbsolutePath() + File.separator + "src" + File.separator + "main" + File.separator + "java");
+    resDir     = new File(dir.getAbsolutePath() + File.separator + "src" + File.separator + "main" + File.separator + "resources");
+    targetDir  = new File(dir.getAbsolutePath() + File.separator + "target");
+    classesDir = new File(targetDir.getAbsolutePath() + File.separator + "classes");
+    jarFile    = new File(targetDir.getAbsolutePath() + File.separator + m_JarName);
+    stateFile  = new File(targetDir.getAbsolutePath() + File.separator + STATE);
+
+    sources = new ArrayList<>();
+    collect(srcDir, ".java", sources);
+    resources = new ArrayList<>();
+    collect(resDir, null, resources);
+    options = getOptions(classesDir);
+    state   = determineState(srcDir, sources, resDir, resources, options);
+    if (jarFile.exists() && state.equals(readState(stateFile))) {
+      log.add("Nothing changed, skipping build");
+      return null;
+    }
+
+    // start from scratch, removing outputs of deleted sources/resources
+    try {
+      if (classesDir.exists())
+        FileUtils.delete(classesDir);
+      if (stateFile.exists() && !stateFile.delete())
+        return "Failed to delete: " + stateFile;
+    }
+    catch (Exception e) {
+      return "Failed to delete directory: " + classesDir + "\n" + e;
+    }
+    if (!classesDir.mkdirs())
+      return "Failed to create directory: " + classesDir;
+
+    // compile
+    log.add("Compiling " + sources.size() + " source(s)");
+    if (sources.size() > 0) {
+      if (isRunningJavaHome())
+        msg = compile(sources, options, log);
+      else
+        msg = fork(sources, options, targetDir, log);
+      if (msg != null)
+        return msg;
+    }
+
+    // resources
+    try {
+      copyResources(resDir, resources, classesDir, log);
+    }
+    catch (Exception e) {
+      return "Failed to copy resources from " + resDir + " to " + classesDir + "\n" + e;
+    }
+
+    // jar
+    log.add("Generating jar: " + jarFile);
+    try {
+      jar(classesDir, jarFile);
+    }
+    catch (Exception e) {
+      return "Failed to generate jar: " + jarFile + "\n" + e;
+    }
+
+    try {
+      writeState(state, stateFile);
+    }
+    catch (Exception e) {
+      return "Failed to write build state: " + stateFile + "\n" + e;
+    }
+
+    return null;
+  }
+}
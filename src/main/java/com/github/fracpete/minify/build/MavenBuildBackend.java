@@ -0,0 +1,102 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * MavenBuildBackend.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.build;
+
+import com.github.fracpete.processoutput4j.output.StreamingProcessOutput;
+
+import java.io.File;
+
+/**
+ * Builds the environment by forking a Maven process
+ * ("mvn clean compile package").
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class MavenBuildBackend
+  implements BuildBackend {
+
+  public final static String NAME = "maven";
+
+  public final static String EXEC_SKIP = "-Dexec.skip=True";
+
+  /**
+   * Returns the name of the backend, as used on the command-line.
+   *
+   * @return		the name
+   */
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  /**
+   * Returns the Maven executable to launch.
+   *
+   * @return		the executable
+   */
+  protected String getExecutable() {
+    return "mvn";
+  }
+
+  /**
+   * Returns the command to execute.
+   *
+   * @return		the command
+   */
+  protected String[] getCommand() {
+    return new String[]{
+      getExecutable(),
+      "clean",
+      "compile",
+      "package",
+      "-DskipTests=True",
+      EXEC_SKIP,
+    };
+  }
+
+  /**
+   * Builds the specified build environment.
+   *
+   * @param dir		the build env
+   * @param log		for logging the build output
+   * @return		null if successful, otherwise error message
+   */
+  @Override
+  public String build(File dir, BuildLog log) {
+    ProcessBuilder 		builder;
+    StreamingProcessOutput 	output;
+
+    builder = new ProcessBuilder();
+    builder.command(getCommand());
+    builder.directory(dir);
+    output = new StreamingProcessOutput(log);
+    try {
+      output.monitor(builder);
+      if (!output.hasSucceeded())
+        return "\nExit code: " + output.getExitCode() + "\nOutput:\n" + log;
+    }
+    catch (Exception e) {
+      return "Failed to execute: " + builder.command() + "\n" + e;
+    }
+
+    return null;
+  }
+}
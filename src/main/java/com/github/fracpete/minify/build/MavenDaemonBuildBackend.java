@@ -0,0 +1,69 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * MavenDaemonBuildBackend.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.build;
+
+/**
+ * Builds the environment using the Maven daemon ("mvnd"), which keeps a
+ * warm JVM around between builds. No "clean" is performed, to allow the
+ * daemon to build incrementally.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class MavenDaemonBuildBackend
+  extends MavenBuildBackend {
+
+  public final static String NAME = "mvnd";
+
+  /**
+   * Returns the name of the backend, as used on the command-line.
+   *
+   * @return		the name
+   */
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  /**
+   * Returns the Maven executable to launch.
+   *
+   * @return		the executable
+   */
+  @Override
+  protected String getExecutable() {
+    return "mvnd";
+  }
+
+  /**
+   * Returns the command to execute.
+   *
+   * @return		the command
+   */
+  @Override
+  protected String[] getCommand() {
+    return new String[]{
+      getExecutable(),
+      "package",
+      "-DskipTests=True",
+      EXEC_SKIP,
+    };
+  }
+}
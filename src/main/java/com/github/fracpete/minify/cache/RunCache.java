@@ -0,0 +1,378 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * RunCache.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.cache;
+
+import nz.ac.waikato.cms.core.FileUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Content-addressed store of the outputs of previous runs, keyed by
+ * {@link RunKey}. Each entry is a directory named after the key, containing
+ * the output (directory tree or archive) and the metadata of the run.
+ * Outputs get stored and restored as copies (not hard links), so that
+ * modifying or overwriting the output later on cannot corrupt the cache.
+ * Once the store exceeds its maximum size, the least recently used entries
+ * get evicted.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class RunCache {
+
+  /** the sub-directory of the cache directory. */
+  public final static String RUNS = "runs";
+
+  /** the name of the content in an entry. */
+  public final static String CONTENT = "content";
+
+  /** the name of the metadata file in an entry. */
+  public final static String METADATA = "run.props";
+
+  /** the file with the statistics. */
+  public final static String STATS = "stats.props";
+
+  /** the key for hits. */
+  public final static String HITS = "hits";
+
+  /** the key for misses. */
+  public final static String MISSES = "misses";
+
+  /** the key for evictions. */
+  public final static String EVICTIONS = "evictions";
+
+  /** the directory with the entries. */
+  protected File m_Dir;
+
+  /** the maximum size in bytes. */
+  protected long m_MaxSize;
+
+  /** the statistics. */
+  protected Properties m_Stats;
+
+  /** the outcome of the last lookup (null if none yet). */
+  protected Boolean m_LastHit;
+
+  /**
+   * Initializes the cache.
+   *
+   * @param cacheDir	the cache directory (entries get stored in sub-dir "runs")
+   * @param maxSize	the maximum size in bytes
+   */
+  public RunCache(File cacheDir, long maxSize) {
+    super();
+
+    m_Dir     = new File(cacheDir, RUNS);
+    m_MaxSize = maxSize;
+    m_Stats   = new Properties();
+    m_LastHit = null;
+    loadStats();
+  }
+
+  /**
+   * Loads the statistics.
+   */
+  protected void loadStats() {
+    File	file;
+
+    file = new File(m_Dir, STATS);
+    if (!file.exists())
+      return;
+    try (InputStream in = new FileInputStream(file)) {
+      m_Stats.load(in);
+    }
+    catch (Exception e) {
+      System.err.println("Failed to read run cache statistics: " + file + "\n" + e);
+    }
+  }
+
+  /**
+   * Increments the counter and saves the statistics.
+   *
+   * @param key		the counter to increment
+   * @param amount	the amount to add
+   */
+  protected void increment(String key, long amount) {
+    File	file;
+
+    m_Stats.setProperty(key, "" + (getStat(key) + amount));
+    file = new File(m_Dir, STATS);
+    if (!m_Dir.exists() && !m_Dir.mkdirs())
+      return;
+    try (OutputStream out = new FileOutputStream(file)) {
+      m_Stats.store(out, "minify-meka run cache");
+    }
+    catch (Exception e) {
+      System.err.println("Failed to write run cache statistics: " + file + "\n" + e);
+    }
+  }
+
+  /**
+   * Returns the counter.
+   *
+   * @param key		the counter
+   * @return		the value
+   */
+  public long getStat(String key) {
+    return Long.parseLong(m_Stats.getProperty(key, "0"));
+  }
+
+  /**
+   * Copies the file, keeping its attributes (timestamp, permissions).
+   *
+   * @param source	the file to copy
+   * @param target	the copy to create
+   * @return		the number of bytes
+   * @throws IOException	if copying fails
+   */
+  protected static long copy(File source, File target) throws IOException {
+    Files.copy(source.toPath(), target.toPath(), StandardCopyOption.COPY_ATTRIBUTES, StandardCopyOption.REPLACE_EXISTING);
+
+    return source.length();
+  }
+
+  /**
+   * Copies the file or directory tree.
+   *
+   * @param source	the file/directory to copy
+   * @param target	the file/directory to create
+   * @param exclude	the names of top-level files/directories to skip
+   * @return		the number of bytes
+   * @throws IOException	if copying fails
+   */
+  protected static long copyTree(File source, File target, Set<String> exclude) throws IOException {
+    long	result;
+    File[]	files;
+
+    if (!source.isDirectory())
+      return copy(source, target);
+
+    if (!target.exists() && !target.mkdirs())
+      throw new IOException("Failed to create directory: " + target);
+    files = source.listFiles();
+    if (files == null)
+      throw new IOException("Failed to list directory: " + source);
+    result = 0;
+    for (File file: files) {
+      if ((exclude != null) && exclude.contains(file.getName()))
+	continue;
+      result += copyTree(file, new File(target, file.getName()), null);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the directory of the entry.
+   *
+   * @param key		the key of the run
+   * @return		the directory
+   */
+  protected File entryDir(String key) {
+    return new File(m_Dir, key);
+  }
+
+  /**
+   * Checks whether the run is cached.
+   *
+   * @param key		the key of the run
+   * @return		true if cached
+   */
+  public boolean contains(String key) {
+    return new File(entryDir(key), METADATA).exists() && new File(entryDir(key), CONTENT).exists();
+  }
+
+  /**
+   * Restores the output of a previous run with the same key.
+   *
+   * @param key		the key of the run
+   * @param target	the output directory or archive to restore
+   * @return		the metadata of the run, null if not cached
+   * @throws Exception	if restoring fails
+   */
+  public Properties restore(String key, File target) throws Exception {
+    Properties	result;
+    File	entry;
+    File	metadata;
+
+    entry    = entryDir(key);
+    metadata = new File(entry, METADATA);
+    if (!contains(key)) {
+      m_LastHit = false;
+      increment(MISSES, 1);
+      return null;
+    }
+
+    result = new Properties();
+    try (InputStream in = new FileInputStream(metadata)) {
+      result.load(in);
+    }
+    copyTree(new File(entry, CONTENT), target, null);
+    metadata.setLastModified(System.currentTimeMillis());
+    m_LastHit = true;
+    increment(HITS, 1);
+
+    return result;
+  }
+
+  /**
+   * Stores the output of the run, evicting least recently used entries if
+   * the maximum size is exceeded.
+   *
+   * @param key		the key of the run
+   * @param source	the output directory or archive to store
+   * @param exclude	the names of top-level files/directories to skip
+   * @param metadata	the metadata of the run
+   * @throws Exception	if storing fails
+   */
+  public void store(String key, File source, Set<String> exclude, Properties metadata) throws Exception {
+    File	entry;
+    File	tmp;
+    long	size;
+
+    entry = entryDir(key);
+    tmp   = new File(m_Dir, key + ".tmp");
+    if (tmp.exists())
+      FileUtils.delete(tmp);
+    if (!tmp.mkdirs())
+      throw new IOException("Failed to create directory: " + tmp);
+
+    size = copyTree(source, new File(tmp, CONTENT), exclude);
+    metadata.setProperty("size", "" + size);
+    try (OutputStream out = new FileOutputStream(new File(tmp, METADATA))) {
+      metadata.store(out, "minify-meka run " + key);
+    }
+
+    if (entry.exists())
+      FileUtils.delete(entry);
+    if (!tmp.renameTo(entry)) {
+      FileUtils.delete(tmp);
+      throw new IOException("Failed to rename " + tmp + " to " + entry);
+    }
+
+    evict(key);
+  }
+
+  /**
+   * Returns the size of the entry.
+   *
+   * @param entry	the entry directory
+   * @return		the size in bytes
+   */
+  protected long size(File entry) {
+    Properties	props;
+
+    props = new Properties();
+    try (InputStream in = new FileInputStream(new File(entry, METADATA))) {
+      props.load(in);
+      return Long.parseLong(props.getProperty("size", "0"));
+    }
+    catch (Exception e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Returns the entries, least recently used first.
+   *
+   * @return		the entry directories
+   */
+  protected List<File> entries() {
+    List<File>	result;
+    File[]	files;
+
+    result = new ArrayList<>();
+    files  = m_Dir.listFiles();
+    if (files == null)
+      return result;
+    for (File file: files) {
+      if (file.isDirectory() && new File(file, METADATA).exists())
+	result.add(file);
+    }
+    result.sort((File f1, File f2) -> Long.compare(
+      new File(f1, METADATA).lastModified(), new File(f2, METADATA).lastModified()));
+
+    return result;
+  }
+
+  /**
+   * Evicts the least recently used entries until the cache is within its
+   * maximum size.
+   *
+   * @param keep	the key of the entry to keep
+   * @throws Exception	if deleting fails
+   */
+  protected void evict(String keep) throws Exception {
+    List<File>	entries;
+    long	total;
+
+    entries = entries();
+    total   = 0;
+    for (File entry: entries)
+      total += size(entry);
+
+    for (File entry: entries) {
+      if (total <= m_MaxSize)
+	break;
+      if (entry.getName().equals(keep))
+	continue;
+      total -= size(entry);
+      FileUtils.delete(entry);
+      increment(EVICTIONS, 1);
+      System.err.println("Evicted run from cache: " + entry.getName());
+    }
+  }
+
+  /**
+   * Returns a report on the cache usage.
+   *
+   * @return		the report
+   */
+  public String report() {
+    List<File>	entries;
+    long	total;
+    long	hits;
+    long	misses;
+
+    entries = entries();
+    total   = 0;
+    for (File entry: entries)
+      total += size(entry);
+    hits   = getStat(HITS);
+    misses = getStat(MISSES);
+
+    return "Run cache: " + ((m_LastHit == null) ? "not used" : (m_LastHit ? "hit" : "miss"))
+      + ", hits=" + hits + ", misses=" + misses
+      + ((hits + misses > 0) ? String.format(" (%.1f%% hit rate)", 100.0 * hits / (hits + misses)) : "")
+      + ", evictions=" + getStat(EVICTIONS)
+      + ", entries=" + entries.size() + ", size=" + total + "/" + m_MaxSize + " bytes";
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * RunKey.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.cache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Computes the key of a run: a SHA-256 hash over options, the content of
+ * input files and the fingerprints (path, size, timestamp) of jars.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class RunKey {
+
+  /** the digest in use. */
+  protected MessageDigest m_Digest;
+
+  /** the buffer for reading files. */
+  protected byte[] m_Buffer;
+
+  /**
+   * Initializes the key.
+   *
+   * @throws Exception	if SHA-256 is not available
+   */
+  public RunKey() throws Exception {
+    super();
+
+    m_Digest = MessageDigest.getInstance("SHA-256");
+    m_Buffer = new byte[65536];
+  }
+
+  /**
+   * Adds the named value.
+   *
+   * @param name	the name of the value
+   * @param value	the value, can be null
+   */
+  public void add(String name, Object value) {
+    m_Digest.update((name + "=" + value + "\n").getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Adds the content of the file.
+   *
+   * @param name	the name of the file
+   * @param file	the file, can be null or non-existent
+   * @throws Exception	if reading fails
+   */
+  public void addFile(String name, File file) throws Exception {
+    int		len;
+
+    if ((file == null) || !file.isFile()) {
+      add(name, "-");
+      return;
+    }
+    add(name, file.length());
+    try (InputStream in = new FileInputStream(file)) {
+      while ((len = in.read(m_Buffer)) > -1)
+	m_Digest.update(m_Buffer, 0, len);
+    }
+  }
+
+  /**
+   * Adds the relative paths and the content of all the files below the
+   * directory.
+   *
+   * @param root	the directory
+   * @param exclude	the names of files/directories to skip
+   * @throws Exception	if reading fails
+   */
+  public void addTree(File root, Set<String> exclude) throws Exception {
+    addTree(root, root, exclude);
+  }
+
+  /**
+   * Adds the relative paths and the content of all the files below the
+   * directory.
+   *
+   * @param root	the root directory
+   * @param dir		the current directory
+   * @param exclude	the names of files/directories to skip
+   * @throws Exception	if reading fails
+   */
+  protected void addTree(File root, File dir, Set<String> exclude) throws Exception {
+    File[]	files;
+
+    files = dir.listFiles();
+    if (files == null)
+      return;
+    Arrays.sort(files);
+    for (File file: files) {
+      if (exclude.contains(file.getName()))
+	continue;
+      if (file.isDirectory())
+	addTree(root, file, exclude);
+      else
+	addFile(file.getAbsolutePath().substring(root.getAbsolutePath().length() + 1).replace(File.separatorChar, '/'), file);
+    }
+  }
+
+  /**
+   * Adds the fingerprint (path, size, timestamp) of the file, eg a jar.
+   *
+   * @param file	the file
+   */
+  public void addFingerprint(File file) {
+    add("fingerprint", file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified());
+  }
+
+  /**
+   * Adds the version of the code the class was loaded from: the
+   * implementation version from the manifest (if any) and the fingerprint
+   * of the jar, or the content of the directory when not running from a
+   * jar (eg in a development environment).
+   *
+   * @param name	the name of the code, eg the tool
+   * @param cls		the class to determine the code from
+   * @throws Exception	if reading fails
+   */
+  public void addCode(String name, Class<?> cls) throws Exception {
+    CodeSource	source;
+    URL		location;
+    File	file;
+
+    add(name, (cls.getPackage() == null) ? null : cls.getPackage().getImplementationVersion());
+    source   = cls.getProtectionDomain().getCodeSource();
+    location = (source == null) ? null : source.getLocation();
+    if ((location == null) || !location.getProtocol().equals("file")) {
+      add(name + ".location", location);
+      return;
+    }
+    file = new File(location.toURI());
+    if (file.isDirectory())
+      addTree(file, Collections.<String>emptySet());
+    else
+      addFingerprint(file);
+  }
+
+  /**
+   * Returns the key.
+   *
+   * @return		the key (hex string)
+   */
+  @Override
+  public String toString() {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    try {
+      for (byte b: ((MessageDigest) m_Digest.clone()).digest())
+	result.append(String.format("%02x", b));
+    }
+    catch (CloneNotSupportedException e) {
+      throw new IllegalStateException(e);
+    }
+
+    return result.toString();
+  }
+}
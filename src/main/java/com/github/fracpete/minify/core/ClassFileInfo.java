@@ -0,0 +1,424 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ClassFileInfo.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Information extracted from a class file's constant pool and header,
+ * without loading the class.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ClassFileInfo {
+
+  /** the magic number of class files. */
+  public final static int MAGIC = 0xCAFEBABE;
+
+  /** the access flag for interfaces. */
+  public final static int ACC_INTERFACE = 0x0200;
+
+  /** the access flag for abstract classes. */
+  public final static int ACC_ABSTRACT = 0x0400;
+
+  /** the class name (dot notation). */
+  protected String m_Name;
+
+  /** the access flags. */
+  protected int m_Access;
+
+  /** the superclass (dot notation), null if none. */
+  protected String m_SuperName;
+
+  /** the implemented interfaces (dot notation). */
+  protected String[] m_Interfaces;
+
+  /** the referenced classes (dot notation, excl itself). */
+  protected Set<String> m_References;
+
+  /** the string constants. */
+  protected Set<String> m_Strings;
+
+  /**
+   * Initializes the info.
+   */
+  protected ClassFileInfo() {
+    super();
+
+    m_Name       = null;
+    m_Access     = 0;
+    m_SuperName  = null;
+    m_Interfaces = new String[0];
+    m_References = new TreeSet<>();
+    m_Strings    = new TreeSet<>();
+  }
+
+  /**
+   * Returns the class name.
+   *
+   * @return		the name (dot notation)
+   */
+  public String getName() {
+    return m_Name;
+  }
+
+  /**
+   * Returns the access flags.
+   *
+   * @return		the flags
+   */
+  public int getAccess() {
+    return m_Access;
+  }
+
+  /**
+   * Returns whether the class is an interface.
+   *
+   * @return		true if interface
+   */
+  public boolean isInterface() {
+    return (m_Access & ACC_INTERFACE) != 0;
+  }
+
+  /**
+   * Returns whether the class is abstract (or an interface).
+   *
+   * @return		true if abstract
+   */
+  public boolean isAbstract() {
+    return (m_Access & (ACC_ABSTRACT | ACC_INTERFACE)) != 0;
+  }
+
+  /**
+   * Returns the superclass.
+   *
+   * @return		the superclass (dot notation), null if none
+   */
+  public String getSuperName() {
+    return m_SuperName;
+  }
+
+  /**
+   * Returns the implemented interfaces.
+   *
+   * @return		the interfaces (dot notation)
+   */
+  public String[] getInterfaces() {
+    return m_Interfaces;
+  }
+
+  /**
+   * Returns the referenced classes.
+   *
+   * @return		the classes (dot notation)
+   */
+  public Set<String> getReferences() {
+    return m_References;
+  }
+
+  /**
+   * Returns the string constants, eg resource names.
+   *
+   * @return		the strings
+   */
+  public Set<String> getStrings() {
+    return m_Strings;
+  }
+
+  /**
+   * Turns an internal name (eg "java/lang/String") into a class name.
+   *
+   * @param internal	the internal name
+   * @return		the class name
+   */
+  public static String toClassName(String internal) {
+    return internal.replace('/', '.');
+  }
+
+  /**
+   * Returns the top-level class of the class name, ie strips nested class
+   * names ("a.b.Outer$Inner" becomes "a.b.Outer").
+   *
+   * @param cls		the class name
+   * @return		the top-level class name
+   */
+  public static String toTopLevel(String cls) {
+    int		pos;
+    int		dot;
+
+    pos = cls.indexOf('$');
+    if (pos <= 0)
+      return cls;
+    dot = cls.lastIndexOf('.');
+    if (pos < dot)
+      return cls;
+    return cls.substring(0, pos);
+  }
+
+  /**
+   * Adds all classes referenced in the descriptor or array class name.
+   *
+   * @param descriptor	the descriptor, eg "(Ljava/lang/String;)V"
+   */
+  protected void addDescriptor(String descriptor) {
+    int		start;
+    int		end;
+
+    start = descriptor.indexOf('L');
+    while (start > -1) {
+      end = descriptor.indexOf(';', start);
+      if (end == -1)
+        break;
+      addReference(descriptor.substring(start + 1, end));
+      start = descriptor.indexOf('L', end);
+    }
+  }
+
+  /**
+   * Adds the referenced class (internal name or array descriptor).
+   *
+   * @param internal	the name
+   */
+  protected void addReference(String internal) {
+    if (internal.startsWith("["))
+      addDescriptor(internal);
+    else if (!internal.isEmpty())
+      m_References.add(toClassName(internal));
+  }
+
+  /**
+   * Writes the header information (name, access flags, superclass,
+   * interfaces), eg for caching.
+   *
+   * @param out		the stream to write to
+   * @throws IOException	if writing fails
+   */
+  public void writeHeader(DataOutputStream out) throws IOException {
+    out.writeUTF(m_Name);
+    out.writeInt(m_Access);
+    out.writeUTF((m_SuperName == null) ? "" : m_SuperName);
+    out.writeInt(m_Interfaces.length);
+    for (String iface: m_Interfaces)
+      out.writeUTF(iface);
+  }
+
+  /**
+   * Reads the header information written by {@link #writeHeader(DataOutputStream)}.
+   *
+   * @param in		the stream to read from
+   * @return		the information (without references/strings)
+   * @throws IOException	if reading fails
+   */
+  public static ClassFileInfo readHeader(DataInputStream in) throws IOException {
+    ClassFileInfo	result;
+    int			i;
+
+    result              = new ClassFileInfo();
+    result.m_Name       = in.readUTF();
+    result.m_Access     = in.readInt();
+    result.m_SuperName  = in.readUTF();
+    if (result.m_SuperName.isEmpty())
+      result.m_SuperName = null;
+    result.m_Interfaces = new String[in.readInt()];
+    for (i = 0; i < result.m_Interfaces.length; i++)
+      result.m_Interfaces[i] = in.readUTF();
+
+    return result;
+  }
+
+  /**
+   * Parses the class file, including the references.
+   *
+   * @param stream	the stream to read from (does not get closed)
+   * @return		the extracted information
+   * @throws IOException	if reading fails or not a class file
+   */
+  public static ClassFileInfo parse(InputStream stream) throws IOException {
+    return parse(stream, true);
+  }
+
+  /**
+   * Parses the class file.
+   *
+   * @param stream	the stream to read from (does not get closed)
+   * @param references	whether to determine the references and string
+   * 			constants or only the header (name, superclass,
+   * 			interfaces)
+   * @return		the extracted information
+   * @throws IOException	if reading fails or not a class file
+   */
+  public static ClassFileInfo parse(InputStream stream, boolean references) throws IOException {
+    ClassFileInfo	result;
+    DataInputStream	in;
+    int			count;
+    int			i;
+    int			n;
+    int			tag;
+    String[]		utf8;
+    int[]		classes;
+    int[]		descriptors;
+    int			numDesc;
+    int[]		strings;
+    int			numStr;
+    int			thisClass;
+    int			members;
+    int			attributes;
+    int			superClass;
+
+    in = new DataInputStream(stream);
+    if (in.readInt() != MAGIC)
+      throw new IOException("Not a class file!");
+    in.readUnsignedShort();  // minor
+    in.readUnsignedShort();  // major
+
+    // constant pool
+    count       = in.readUnsignedShort();
+    utf8        = new String[count];
+    classes     = new int[count];
+    descriptors = new int[count];
+    numDesc     = 0;
+    strings     = new int[count];
+    numStr      = 0;
+    for (i = 1; i < count; i++) {
+      tag = in.readUnsignedByte();
+      switch (tag) {
+	case 1:  // Utf8
+	  utf8[i] = in.readUTF();
+	  break;
+	case 7:  // Class
+	  classes[i] = in.readUnsignedShort();
+	  break;
+	case 16:  // MethodType
+	  descriptors[numDesc++] = in.readUnsignedShort();
+	  break;
+	case 12:  // NameAndType
+	  in.readUnsignedShort();
+	  descriptors[numDesc++] = in.readUnsignedShort();
+	  break;
+	case 8:  // String
+	  strings[numStr++] = in.readUnsignedShort();
+	  break;
+	case 19:  // Module
+	case 20:  // Package
+	  in.readUnsignedShort();
+	  break;
+	case 3:  // Integer
+	case 4:  // Float
+	case 9:  // Fieldref
+	case 10:  // Methodref
+	case 11:  // InterfaceMethodref
+	case 17:  // Dynamic
+	case 18:  // InvokeDynamic
+	  in.readInt();
+	  break;
+	case 5:  // Long
+	case 6:  // Double
+	  in.readLong();
+	  i++;
+	  break;
+	case 15:  // MethodHandle
+	  in.readUnsignedByte();
+	  in.readUnsignedShort();
+	  break;
+	default:
+	  throw new IOException("Unknown constant pool tag " + tag + " at #" + i);
+      }
+    }
+
+    result = new ClassFileInfo();
+    result.m_Access = in.readUnsignedShort();
+    thisClass       = in.readUnsignedShort();
+    result.m_Name   = toClassName(utf8[classes[thisClass]]);
+    superClass      = in.readUnsignedShort();
+    if (superClass > 0)
+      result.m_SuperName = toClassName(utf8[classes[superClass]]);
+    count = in.readUnsignedShort();
+    result.m_Interfaces = new String[count];
+    for (i = 0; i < count; i++)
+      result.m_Interfaces[i] = toClassName(utf8[classes[in.readUnsignedShort()]]);
+    if (!references)
+      return result;
+
+    // fields and methods
+    for (members = 0; members < 2; members++) {
+      count = in.readUnsignedShort();
+      for (i = 0; i < count; i++) {
+	in.readUnsignedShort();  // access
+	in.readUnsignedShort();  // name
+	result.addDescriptor(utf8[in.readUnsignedShort()]);
+	attributes = in.readUnsignedShort();
+	for (n = 0; n < attributes; n++) {
+	  in.readUnsignedShort();
+	  skip(in, in.readInt() & 0xFFFFFFFFL);
+	}
+      }
+    }
+
+    // references
+    for (i = 1; i < classes.length; i++) {
+      if ((classes[i] > 0) && (i != thisClass))
+	result.addReference(utf8[classes[i]]);
+    }
+    for (i = 0; i < numDesc; i++)
+      result.addDescriptor(utf8[descriptors[i]]);
+    result.m_References.remove(result.m_Name);
+    for (i = 0; i < numStr; i++)
+      result.m_Strings.add(utf8[strings[i]]);
+
+    return result;
+  }
+
+  /**
+   * Skips the specified number of bytes.
+   *
+   * @param in		the stream to skip
+   * @param len		the number of bytes
+   * @throws IOException	if skipping fails
+   */
+  protected static void skip(DataInputStream in, long len) throws IOException {
+    long	skipped;
+
+    while (len > 0) {
+      skipped = in.skip(len);
+      if (skipped <= 0) {
+        if (in.read() == -1)
+          throw new IOException("Premature end of class file!");
+        skipped = 1;
+      }
+      len -= skipped;
+    }
+  }
+
+  /**
+   * Returns the class name.
+   *
+   * @return		the name
+   */
+  @Override
+  public String toString() {
+    return m_Name;
+  }
+}
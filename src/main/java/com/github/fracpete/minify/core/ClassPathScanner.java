@@ -0,0 +1,333 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ClassPathScanner.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.core;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Scans the jars and directories of a classpath in parallel and parses the
+ * class files. Directories are scanned as a single task, the entries of
+ * jars get split into chunks that are processed in parallel.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ClassPathScanner {
+
+  /** the default number of jar entries per task. */
+  public final static int DEFAULT_CHUNK_SIZE = 1000;
+
+  /** the number of threads to use. */
+  protected int m_NumThreads;
+
+  /** the number of jar entries per task. */
+  protected int m_ChunkSize;
+
+  /** whether to determine the references as well. */
+  protected boolean m_References;
+
+  /**
+   * Initializes the scanner, using as many threads as there are processors.
+   */
+  public ClassPathScanner() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Initializes the scanner.
+   *
+   * @param numThreads	the number of threads to use
+   */
+  public ClassPathScanner(int numThreads) {
+    super();
+    m_NumThreads = Math.max(1, numThreads);
+    m_ChunkSize  = DEFAULT_CHUNK_SIZE;
+    m_References = true;
+  }
+
+  /**
+   * Sets whether to determine the references of the classes or only
+   * parse the header (name, superclass, interfaces).
+   *
+   * @param value	true if to determine references
+   */
+  public void setReferences(boolean value) {
+    m_References = value;
+  }
+
+  /**
+   * Returns whether to determine the references of the classes or only
+   * parse the header (name, superclass, interfaces).
+   *
+   * @return		true if to determine references
+   */
+  public boolean getReferences() {
+    return m_References;
+  }
+
+  /**
+   * Sets the number of jar entries to process per task.
+   *
+   * @param value	the number of entries
+   */
+  public void setChunkSize(int value) {
+    m_ChunkSize = Math.max(1, value);
+  }
+
+  /**
+   * Returns the number of jar entries to process per task.
+   *
+   * @return		the number of entries
+   */
+  public int getChunkSize() {
+    return m_ChunkSize;
+  }
+
+  /**
+   * Splits the classpath string into its parts.
+   *
+   * @param classpath	the classpath to split
+   * @return		the parts
+   */
+  public static List<String> split(String classpath) {
+    List<String>	result;
+
+    result = new ArrayList<>();
+    for (String part: classpath.split(File.pathSeparator)) {
+      if (!part.trim().isEmpty())
+        result.add(part.trim());
+    }
+
+    return result;
+  }
+
+  /**
+   * Turns the path of a class file (in a jar or directory) into a class name.
+   *
+   * @param path	the path (using forward slashes), eg "a/b/C.class"
+   * @return		the class name, null if not a class file
+   */
+  public static String pathToClassName(String path) {
+    if (!path.endsWith(".class") || path.endsWith("module-info.class") || path.endsWith("package-info.class"))
+      return null;
+    if (path.startsWith("META-INF/"))
+      return null;
+    return path.substring(0, path.length() - ".class".length()).replace('/', '.');
+  }
+
+  /**
+   * Lists the classes available from the classpath, using only the
+   * directory listings and the central directories of the jars (ie without
+   * parsing any class files).
+   *
+   * @param classpath	the jars/directories to list
+   * @return		the class names
+   * @throws Exception	if reading fails
+   */
+  public static ClassSet list(List<String> classpath) throws Exception {
+    ClassSet				result;
+    File				file;
+    Enumeration<? extends ZipEntry>	entries;
+    String				cls;
+
+    result = new ClassSet();
+    for (String part: classpath) {
+      file = new File(part);
+      if (file.isDirectory()) {
+        listDir(file, file, result);
+      }
+      else if (file.exists()) {
+        try (ZipFile zip = new ZipFile(file)) {
+          entries = zip.entries();
+          while (entries.hasMoreElements()) {
+            cls = pathToClassName(entries.nextElement().getName());
+            if (cls != null)
+              result.add(cls);
+	  }
+	}
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Lists the classes in the directory recursively.
+   *
+   * @param root	the root directory of the classes
+   * @param dir		the current directory
+   * @param classes	for collecting the class names
+   */
+  protected static void listDir(File root, File dir, ClassSet classes) {
+    File[]	files;
+    String	cls;
+
+    files = dir.listFiles();
+    if (files == null)
+      return;
+    for (File file: files) {
+      if (file.isDirectory()) {
+        listDir(root, file, classes);
+        continue;
+      }
+      cls = pathToClassName(file.getAbsolutePath().substring(root.getAbsolutePath().length() + 1).replace(File.separatorChar, '/'));
+      if (cls != null)
+        classes.add(cls);
+    }
+  }
+
+  /**
+   * Parses the jar entries.
+   *
+   * @param zip		the jar the entries belong to
+   * @param entries	the entries to parse
+   * @return		the parsed classes
+   * @throws Exception	if reading fails
+   */
+  protected List<ClassFileInfo> scanEntries(ZipFile zip, List<ZipEntry> entries) throws Exception {
+    List<ClassFileInfo>		result;
+
+    result = new ArrayList<>();
+    for (ZipEntry entry: entries) {
+      try (InputStream in = new BufferedInputStream(zip.getInputStream(entry))) {
+	result.add(ClassFileInfo.parse(in, m_References));
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Scans the directory recursively.
+   *
+   * @param root	the root directory of the classes
+   * @param dir		the current directory
+   * @param filter	the filter for class names, null to accept all
+   * @param classes	for collecting the parsed classes
+   * @throws Exception	if reading fails
+   */
+  protected void scanDir(File root, File dir, Predicate<String> filter, List<ClassFileInfo> classes) throws Exception {
+    File[]	files;
+    String	cls;
+
+    files = dir.listFiles();
+    if (files == null)
+      return;
+    for (File file: files) {
+      if (file.isDirectory()) {
+        scanDir(root, file, filter, classes);
+        continue;
+      }
+      cls = pathToClassName(file.getAbsolutePath().substring(root.getAbsolutePath().length() + 1).replace(File.separatorChar, '/'));
+      if ((cls == null) || ((filter != null) && !filter.test(cls)))
+	continue;
+      try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+	classes.add(ClassFileInfo.parse(in, m_References));
+      }
+    }
+  }
+
+  /**
+   * Scans the classpath entries in parallel.
+   *
+   * @param classpath	the jars/directories to scan
+   * @param filter	the filter for class names, null to accept all
+   * @return		the parsed classes, in order of the classpath
+   * @throws Exception	if scanning fails
+   */
+  public List<ClassFileInfo> scan(List<String> classpath, final Predicate<String> filter) throws Exception {
+    List<ClassFileInfo>			result;
+    ExecutorService			executor;
+    List<Future<List<ClassFileInfo>>>	futures;
+    List<ZipFile>			zips;
+    Enumeration<? extends ZipEntry>	entries;
+    ZipEntry				entry;
+    List<ZipEntry>			chunk;
+    String				cls;
+    File				file;
+
+    result   = new ArrayList<>();
+    futures  = new ArrayList<>();
+    zips     = new ArrayList<>();
+    executor = Executors.newFixedThreadPool(m_NumThreads);
+    try {
+      for (String part: classpath) {
+        file = new File(part);
+        if (file.isDirectory()) {
+          final File dir = file;
+          futures.add(executor.submit(() -> {
+            List<ClassFileInfo> classes = new ArrayList<>();
+            scanDir(dir, dir, filter, classes);
+            return classes;
+	  }));
+	}
+	else if (file.exists()) {
+	  final ZipFile zip = new ZipFile(file);
+	  zips.add(zip);
+	  entries = zip.entries();
+	  chunk   = new ArrayList<>();
+	  while (entries.hasMoreElements()) {
+	    entry = entries.nextElement();
+	    cls   = pathToClassName(entry.getName());
+	    if ((cls == null) || ((filter != null) && !filter.test(cls)))
+	      continue;
+	    chunk.add(entry);
+	    if (chunk.size() == m_ChunkSize) {
+	      final List<ZipEntry> current = chunk;
+	      futures.add(executor.submit(() -> scanEntries(zip, current)));
+	      chunk = new ArrayList<>();
+	    }
+	  }
+	  if (chunk.size() > 0) {
+	    final List<ZipEntry> current = chunk;
+	    futures.add(executor.submit(() -> scanEntries(zip, current)));
+	  }
+	}
+      }
+      for (Future<List<ClassFileInfo>> future: futures)
+	result.addAll(future.get());
+    }
+    finally {
+      executor.shutdownNow();
+      for (ZipFile zip: zips) {
+        try {
+          zip.close();
+	}
+	catch (Exception e) {
+          // ignored
+	}
+      }
+    }
+
+    return result;
+  }
+}
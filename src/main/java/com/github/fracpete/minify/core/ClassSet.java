@@ -0,0 +1,649 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ClassSet.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * Compact set of class names, stored as a trie of packages. Each package
+ * is stored only once (with interned name segments), each package node
+ * holds the sorted simple names of its classes. Full class names are only
+ * generated on demand.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ClassSet
+  implements Iterable<String> {
+
+  /**
+   * A node in the package trie.
+   */
+  public static class PackageNode {
+
+    /** the parent, null if root. */
+    protected PackageNode m_Parent;
+
+    /** the name segment of this package, empty string for root. */
+    protected String m_Name;
+
+    /** the sub-packages, null if none. */
+    protected Map<String,PackageNode> m_Children;
+
+    /** the sorted simple class names, null if none. */
+    protected String[] m_Classes;
+
+    /** the number of classes in use. */
+    protected int m_Count;
+
+    /**
+     * Initializes the node.
+     *
+     * @param parent	the parent, null if root
+     * @param name	the name segment
+     */
+    protected PackageNode(PackageNode parent, String name) {
+      m_Parent   = parent;
+      m_Name     = name;
+      m_Children = null;
+      m_Classes  = null;
+      m_Count    = 0;
+    }
+
+    /**
+     * Returns the parent node.
+     *
+     * @return		the parent, null if root
+     */
+    public PackageNode getParent() {
+      return m_Parent;
+    }
+
+    /**
+     * Returns the name segment of this package.
+     *
+     * @return		the segment, empty string if root
+     */
+    public String getName() {
+      return m_Name;
+    }
+
+    /**
+     * Returns the child node with the name segment.
+     *
+     * @param name	the name segment
+     * @return		the node, null if not present
+     */
+    public PackageNode getChild(String name) {
+      if (m_Children == null)
+        return null;
+      return m_Children.get(name);
+    }
+
+    /**
+     * Returns the sub-packages.
+     *
+     * @return		the sub-packages (sorted by name)
+     */
+    public Collection<PackageNode> getChildren() {
+      if (m_Children == null)
+        return new ArrayList<>();
+      return m_Children.values();
+    }
+
+    /**
+     * Returns the number of classes in this package (excl sub-packages).
+     *
+     * @return		the number of classes
+     */
+    public int getClassCount() {
+      return m_Count;
+    }
+
+    /**
+     * Returns the simple class name at the specified position.
+     *
+     * @param index	the position
+     * @return		the simple name
+     */
+    public String getSimpleName(int index) {
+      if (index >= m_Count)
+        throw new IndexOutOfBoundsException(index + " >= " + m_Count);
+      return m_Classes[index];
+    }
+
+    /**
+     * Checks whether the simple class name is present.
+     *
+     * @param simpleName	the name to look for
+     * @return		true if present
+     */
+    public boolean containsSimpleName(String simpleName) {
+      return (m_Count > 0) && (Arrays.binarySearch(m_Classes, 0, m_Count, simpleName) >= 0);
+    }
+
+    /**
+     * Adds the simple class name, if not already present.
+     *
+     * @param simpleName	the name to add
+     * @return		true if added
+     */
+    protected boolean addSimpleName(String simpleName) {
+      int	index;
+
+      if (m_Classes == null)
+        m_Classes = new String[4];
+      index = Arrays.binarySearch(m_Classes, 0, m_Count, simpleName);
+      if (index >= 0)
+        return false;
+      index = -index - 1;
+      if (m_Count == m_Classes.length)
+        m_Classes = Arrays.copyOf(m_Classes, m_Count * 2);
+      System.arraycopy(m_Classes, index, m_Classes, index + 1, m_Count - index);
+      m_Classes[index] = simpleName;
+      m_Count++;
+      return true;
+    }
+
+    /**
+     * Removes the simple class name.
+     *
+     * @param simpleName	the name to remove
+     * @return		true if removed
+     */
+    protected boolean removeSimpleName(String simpleName) {
+      int	index;
+
+      if (m_Count == 0)
+        return false;
+      index = Arrays.binarySearch(m_Classes, 0, m_Count, simpleName);
+      if (index < 0)
+        return false;
+      System.arraycopy(m_Classes, index + 1, m_Classes, index, m_Count - index - 1);
+      m_Count--;
+      m_Classes[m_Count] = null;
+      return true;
+    }
+
+    /**
+     * Appends the path of this package to the buffer.
+     *
+     * @param buffer	the buffer to append to
+     * @param separator	the separator to use between segments
+     */
+    protected void appendPath(StringBuilder buffer, char separator) {
+      if (m_Parent == null)
+        return;
+      m_Parent.appendPath(buffer, separator);
+      if (m_Parent.m_Parent != null)
+        buffer.append(separator);
+      buffer.append(m_Name);
+    }
+
+    /**
+     * Returns the path of this package.
+     *
+     * @param separator	the separator to use between segments, eg '.' or '/'
+     * @return		the path, empty string for the default package
+     */
+    public String getPath(char separator) {
+      StringBuilder	result;
+
+      result = new StringBuilder();
+      appendPath(result, separator);
+      return result.toString();
+    }
+
+    /**
+     * Returns the package name.
+     *
+     * @return		the name, empty string for the default package
+     */
+    public String getPackage() {
+      return getPath('.');
+    }
+
+    /**
+     * Returns the full class name of the class at the specified position.
+     *
+     * @param index	the position
+     * @return		the class name
+     */
+    public String getClassName(int index) {
+      StringBuilder	result;
+
+      result = new StringBuilder();
+      appendPath(result, '.');
+      if (result.length() > 0)
+        result.append('.');
+      result.append(getSimpleName(index));
+      return result.toString();
+    }
+
+    /**
+     * Returns the package name.
+     *
+     * @return		the name
+     */
+    @Override
+    public String toString() {
+      return getPackage();
+    }
+  }
+
+  /** the root of the trie (= default package). */
+  protected PackageNode m_Root;
+
+  /** for interning the name segments. */
+  protected Map<String,String> m_Segments;
+
+  /** the number of classes. */
+  protected int m_Size;
+
+  /**
+   * Initializes the set.
+   */
+  public ClassSet() {
+    super();
+    clear();
+  }
+
+  /**
+   * Initializes the set with the specified class names.
+   *
+   * @param classes	the class names to add
+   */
+  public ClassSet(Collection<String> classes) {
+    this();
+    addAll(classes);
+  }
+
+  /**
+   * Removes all classes.
+   */
+  public void clear() {
+    m_Root     = new PackageNode(null, "");
+    m_Segments = new HashMap<>();
+    m_Size     = 0;
+  }
+
+  /**
+   * Returns the interned version of the segment.
+   *
+   * @param segment	the segment to intern
+   * @return		the interned segment
+   */
+  protected String intern(String segment) {
+    String	result;
+
+    result = m_Segments.get(segment);
+    if (result == null) {
+      result = new String(segment);
+      m_Segments.put(result, result);
+    }
+
+    return result;
+  }
+
+  /**
+   * Locates the node for the package.
+   *
+   * @param pkg		the package (dot-separated), empty string for default package
+   * @param create	whether to create missing nodes
+   * @return		the node, null if not found and not created
+   */
+  protected PackageNode findPackage(String pkg, boolean create) {
+    PackageNode	result;
+    PackageNode	child;
+    int		start;
+    int		end;
+    String	segment;
+
+    result = m_Root;
+    if (pkg.isEmpty())
+      return result;
+
+    start = 0;
+    while (start <= pkg.length()) {
+      end = pkg.indexOf('.', start);
+      if (end == -1)
+        end = pkg.length();
+      segment = pkg.substring(start, end);
+      child   = result.getChild(segment);
+      if (child == null) {
+        if (!create)
+          return null;
+        segment = intern(segment);
+        child   = new PackageNode(result, segment);
+        if (result.m_Children == null)
+          result.m_Children = new TreeMap<>();
+        result.m_Children.put(segment, child);
+      }
+      result = child;
+      start  = end + 1;
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the node for the package.
+   *
+   * @param pkg		the package (dot-separated), empty string for default package
+   * @return		the node, null if not present
+   */
+  public PackageNode getPackage(String pkg) {
+    return findPackage(pkg, false);
+  }
+
+  /**
+   * Returns the root node (= default package).
+   *
+   * @return		the root
+   */
+  public PackageNode getRoot() {
+    return m_Root;
+  }
+
+  /**
+   * Adds the class.
+   *
+   * @param cls		the class to add
+   * @return		true if added, false if already present
+   */
+  public boolean add(String cls) {
+    int		pos;
+    PackageNode	node;
+
+    pos  = cls.lastIndexOf('.');
+    node = findPackage((pos == -1) ? "" : cls.substring(0, pos), true);
+    if (node.addSimpleName(new String(cls.substring(pos + 1)))) {
+      m_Size++;
+      return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * Adds all the classes.
+   *
+   * @param classes	the classes to add
+   */
+  public void addAll(Iterable<String> classes) {
+    for (String cls: classes)
+      add(cls);
+  }
+
+  /**
+   * Removes the class.
+   *
+   * @param cls		the class to remove
+   * @return		true if removed
+   */
+  public boolean remove(String cls) {
+    int		pos;
+    PackageNode	node;
+
+    pos  = cls.lastIndexOf('.');
+    node = findPackage((pos == -1) ? "" : cls.substring(0, pos), false);
+    if ((node != null) && node.removeSimpleName(cls.substring(pos + 1))) {
+      m_Size--;
+      prune(node);
+      return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * Removes the node and its ancestors from the trie as long as they
+   * neither contain classes nor sub-packages.
+   *
+   * @param node	the node to start from
+   */
+  protected void prune(PackageNode node) {
+    PackageNode	parent;
+
+    while ((node.m_Parent != null) && (node.m_Count == 0) && ((node.m_Children == null) || node.m_Children.isEmpty())) {
+      parent = node.m_Parent;
+      parent.m_Children.remove(node.m_Name);
+      if (parent.m_Children.isEmpty())
+        parent.m_Children = null;
+      node = parent;
+    }
+  }
+
+  /**
+   * Checks whether the class is present.
+   *
+   * @param cls		the class to look for
+   * @return		true if present
+   */
+  public boolean contains(String cls) {
+    int		pos;
+    PackageNode	node;
+
+    pos  = cls.lastIndexOf('.');
+    node = findPackage((pos == -1) ? "" : cls.substring(0, pos), false);
+    return (node != null) && node.containsSimpleName(cls.substring(pos + 1));
+  }
+
+  /**
+   * Checks whether the package (or any of its sub-packages) contains classes.
+   *
+   * @param pkg		the package to check
+   * @return		true if classes present
+   */
+  public boolean containsPackage(String pkg) {
+    PackageNode	node;
+
+    node = findPackage(pkg, false);
+    return (node != null) && (countClasses(node, true) > 0);
+  }
+
+  /**
+   * Returns the number of classes.
+   *
+   * @return		the number of classes
+   */
+  public int size() {
+    return m_Size;
+  }
+
+  /**
+   * Returns whether the set is empty.
+   *
+   * @return		true if empty
+   */
+  public boolean isEmpty() {
+    return (m_Size == 0);
+  }
+
+  /**
+   * Counts the classes below the node.
+   *
+   * @param node	the node to start from
+   * @param recursive	whether to include sub-packages
+   * @return		the number of classes
+   */
+  protected int countClasses(PackageNode node, boolean recursive) {
+    int		result;
+
+    result = node.getClassCount();
+    if (recursive) {
+      for (PackageNode child: node.getChildren())
+        result += countClasses(child, true);
+    }
+
+    return result;
+  }
+
+  /**
+   * Collects all package nodes that contain classes.
+   *
+   * @param node	the node to start from
+   * @param nodes	for collecting the nodes
+   */
+  protected void collectPackages(PackageNode node, List<PackageNode> nodes) {
+    if (node.getClassCount() > 0)
+      nodes.add(node);
+    for (PackageNode child: node.getChildren())
+      collectPackages(child, nodes);
+  }
+
+  /**
+   * Returns all packages that contain classes, in sorted order.
+   *
+   * @return		the package nodes
+   */
+  public List<PackageNode> packages() {
+    List<PackageNode>	result;
+
+    result = new ArrayList<>();
+    collectPackages(m_Root, result);
+
+    return result;
+  }
+
+  /**
+   * Returns the classes of the package.
+   *
+   * @param pkg		the package
+   * @param recursive	whether to include sub-packages
+   * @return		the class names
+   */
+  public List<String> classesIn(String pkg, boolean recursive) {
+    List<String>	result;
+    PackageNode		node;
+    List<PackageNode>	nodes;
+    int			i;
+
+    result = new ArrayList<>();
+    node   = findPackage(pkg, false);
+    if (node == null)
+      return result;
+
+    nodes = new ArrayList<>();
+    if (recursive)
+      collectPackages(node, nodes);
+    else
+      nodes.add(node);
+    for (PackageNode n: nodes) {
+      for (i = 0; i < n.getClassCount(); i++)
+        result.add(n.getClassName(i));
+    }
+
+    return result;
+  }
+
+  /**
+   * Turns the class name into a relative path.
+   *
+   * @param cls		the class name
+   * @param separator	the separator to use, eg '/'
+   * @param extension	the extension to append, eg ".java"
+   * @return		the relative path
+   */
+  public static String toRelativePath(String cls, char separator, String extension) {
+    return cls.replace('.', separator) + extension;
+  }
+
+  /**
+   * Returns the classes as list, in sorted order.
+   *
+   * @return		the class names
+   */
+  public List<String> toList() {
+    List<String>	result;
+
+    result = new ArrayList<>(m_Size);
+    for (String cls: this)
+      result.add(cls);
+
+    return result;
+  }
+
+  /**
+   * Returns an iterator over all class names, in sorted order (by package).
+   *
+   * @return		the iterator
+   */
+  @Override
+  public Iterator<String> iterator() {
+    final List<PackageNode>	nodes;
+
+    nodes = packages();
+
+    return new Iterator<String>() {
+      protected int m_Node = 0;
+
+      protected int m_Index = 0;
+
+      protected String m_Prefix = null;
+
+      @Override
+      public boolean hasNext() {
+        return (m_Node < nodes.size());
+      }
+
+      @Override
+      public String next() {
+        PackageNode	node;
+        String		result;
+
+        if (!hasNext())
+          throw new NoSuchElementException();
+        node = nodes.get(m_Node);
+        if (m_Prefix == null) {
+          m_Prefix = node.getPackage();
+          if (!m_Prefix.isEmpty())
+            m_Prefix += ".";
+        }
+        result = m_Prefix + node.getSimpleName(m_Index);
+        m_Index++;
+        if (m_Index >= node.getClassCount()) {
+          m_Node++;
+          m_Index  = 0;
+          m_Prefix = null;
+        }
+        return result;
+      }
+    };
+  }
+
+  /**
+   * Returns a short description of the set.
+   *
+   * @return		the description
+   */
+  @Override
+  public String toString() {
+    return m_Size + " class(es) in " + packages().size() + " package(s)";
+  }
+}
@@ -0,0 +1,610 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * DependencyGraph.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.graph;
+
+import com.github.fracpete.minify.core.ClassFileInfo;
+import com.github.fracpete.minify.core.ClassSet;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Indexed dependency graph between top-level classes. Nodes are identified
+ * by their position in the sorted array of class names, forward and reverse
+ * adjacency are stored in compressed form (offsets + targets) in primitive
+ * arrays.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class DependencyGraph {
+
+  /** the sorted class names. */
+  protected String[] m_Names;
+
+  /** the offsets into the forward targets (length: nodes + 1). */
+  protected int[] m_ForwardOffsets;
+
+  /** the forward targets. */
+  protected int[] m_ForwardTargets;
+
+  /** the offsets into the reverse targets (length: nodes + 1). */
+  protected int[] m_ReverseOffsets;
+
+  /** the reverse targets. */
+  protected int[] m_ReverseTargets;
+
+  /** the seed nodes. */
+  protected int[] m_Seeds;
+
+  /** the additional nodes (included, but their dependencies are not). */
+  protected int[] m_Additional;
+
+  /**
+   * Initializes the graph.
+   *
+   * @param names	the sorted class names
+   * @param fwdOffsets	the forward offsets
+   * @param fwdTargets	the forward targets
+   * @param seeds	the seed nodes
+   * @param additional	the additional nodes
+   */
+  protected DependencyGraph(String[] names, int[] fwdOffsets, int[] fwdTargets, int[] seeds, int[] additional) {
+    super();
+
+    m_Names          = names;
+    m_ForwardOffsets = fwdOffsets;
+    m_ForwardTargets = fwdTargets;
+    m_Seeds          = seeds;
+    m_Additional     = additional;
+    reverse();
+  }
+
+  /**
+   * Computes the reverse adjacency from the forward one.
+   */
+  protected void reverse() {
+    int[]	fill;
+    int		i;
+    int		n;
+
+    m_ReverseOffsets = new int[m_Names.length + 1];
+    for (i = 0; i < m_ForwardTargets.length; i++)
+      m_ReverseOffsets[m_ForwardTargets[i] + 1]++;
+    for (i = 0; i < m_Names.length; i++)
+      m_ReverseOffsets[i + 1] += m_ReverseOffsets[i];
+    m_ReverseTargets = new int[m_ForwardTargets.length];
+    fill = Arrays.copyOf(m_ReverseOffsets, m_Names.length);
+    for (i = 0; i < m_Names.length; i++) {
+      for (n = m_ForwardOffsets[i]; n < m_ForwardOffsets[i + 1]; n++)
+	m_ReverseTargets[fill[m_ForwardTargets[n]]++] = i;
+    }
+  }
+
+  /**
+   * Turns the class names into sorted, unique node indices.
+   *
+   * @param sorted	the sorted node names
+   * @param classes	the classes to convert (nested classes get collapsed)
+   * @return		the node indices (unknown classes get skipped)
+   */
+  protected static int[] toNodes(String[] sorted, Collection<String> classes) {
+    BitSet	nodes;
+    int[]	result;
+    int		i;
+    int		n;
+
+    nodes = new BitSet(sorted.length);
+    for (String cls: classes) {
+      i = Arrays.binarySearch(sorted, ClassFileInfo.toTopLevel(cls));
+      if (i >= 0)
+	nodes.set(i);
+    }
+    result = new int[nodes.cardinality()];
+    n      = 0;
+    for (i = nodes.nextSetBit(0); i >= 0; i = nodes.nextSetBit(i + 1))
+      result[n++] = i;
+
+    return result;
+  }
+
+  /**
+   * Builds the graph from the parsed classes. Nested classes get collapsed
+   * into their top-level class, references to classes that are not
+   * accepted by the filter get dropped.
+   *
+   * @param classes	the parsed classes
+   * @param filter	the filter for the classes to include, null for all
+   * @param seeds	the seed classes
+   * @param additional	the additional classes, which get included without
+   * 			their dependencies (like MinDeps does)
+   * @return		the graph
+   */
+  public static DependencyGraph build(Collection<ClassFileInfo> classes, Predicate<String> filter, Collection<String> seeds, Collection<String> additional) {
+    ClassSet		names;
+    String[]		sorted;
+    List<BitSet>	edges;
+    int[]		offsets;
+    int[]		targets;
+    int			from;
+    int			to;
+    int			i;
+    int			n;
+    int			count;
+    BitSet		set;
+    String		cls;
+
+    // nodes
+    names = new ClassSet();
+    for (ClassFileInfo info: classes) {
+      cls = ClassFileInfo.toTopLevel(info.getName());
+      if ((filter == null) || filter.test(cls))
+	names.add(cls);
+    }
+    sorted = names.toList().toArray(new String[names.size()]);
+    Arrays.sort(sorted);
+
+    // edges
+    edges = new ArrayList<>(sorted.length);
+    for (i = 0; i < sorted.length; i++)
+      edges.add(null);
+    for (ClassFileInfo info: classes) {
+      from = Arrays.binarySearch(sorted, ClassFileInfo.toTopLevel(info.getName()));
+      if (from < 0)
+	continue;
+      for (String ref: info.getReferences()) {
+	to = Arrays.binarySearch(sorted, ClassFileInfo.toTopLevel(ref));
+	if ((to < 0) || (to == from))
+	  continue;
+	set = edges.get(from);
+	if (set == null) {
+	  set = new BitSet();
+	  edges.set(from, set);
+	}
+	set.set(to);
+      }
+    }
+
+    // compress
+    offsets = new int[sorted.length + 1];
+    count   = 0;
+    for (i = 0; i < sorted.length; i++) {
+      offsets[i] = count;
+      if (edges.get(i) != null)
+	count += edges.get(i).cardinality();
+    }
+    offsets[sorted.length] = count;
+    targets = new int[count];
+    for (i = 0; i < sorted.length; i++) {
+      set = edges.get(i);
+      if (set == null)
+	continue;
+      n = offsets[i];
+      for (to = set.nextSetBit(0); to >= 0; to = set.nextSetBit(to + 1))
+	targets[n++] = to;
+      edges.set(i, null);
+    }
+
+    return new DependencyGraph(sorted, offsets, targets, toNodes(sorted, seeds), toNodes(sorted, additional));
+  }
+
+  /**
+   * Returns the number of nodes.
+   *
+   * @return		the number of nodes
+   */
+  public int numNodes() {
+    return m_Names.length;
+  }
+
+  /**
+   * Returns the number of edges.
+   *
+   * @return		the number of edges
+   */
+  public int numEdges() {
+    return m_ForwardTargets.length;
+  }
+
+  /**
+   * Returns the node index of the class.
+   *
+   * @param cls		the class name (nested classes get collapsed)
+   * @return		the index, -1 if not present
+   */
+  public int indexOf(String cls) {
+    int		result;
+
+    result = Arrays.binarySearch(m_Names, ClassFileInfo.toTopLevel(cls));
+    return (result < 0) ? -1 : result;
+  }
+
+  /**
+   * Returns the class name of the node.
+   *
+   * @param index	the node index
+   * @return		the class name
+   */
+  public String getName(int index) {
+    return m_Names[index];
+  }
+
+  /**
+   * Returns the seed classes.
+   *
+   * @return		the classes
+   */
+  public List<String> getSeeds() {
+    List<String>	result;
+
+    result = new ArrayList<>();
+    for (int seed: m_Seeds)
+      result.add(m_Names[seed]);
+
+    return result;
+  }
+
+  /**
+   * Returns the additional classes.
+   *
+   * @return		the classes
+   */
+  public List<String> getAdditional() {
+    List<String>	result;
+
+    result = new ArrayList<>();
+    for (int node: m_Additional)
+      result.add(m_Names[node]);
+
+    return result;
+  }
+
+  /**
+   * Returns the direct dependencies of the node.
+   *
+   * @param index	the node index
+   * @return		the node indices
+   */
+  public int[] getDependencies(int index) {
+    return Arrays.copyOfRange(m_ForwardTargets, m_ForwardOffsets[index], m_ForwardOffsets[index + 1]);
+  }
+
+  /**
+   * Returns the classes that directly depend on the node.
+   *
+   * @param index	the node index
+   * @return		the node indices
+   */
+  public int[] getDependents(int index) {
+    return Arrays.copyOfRange(m_ReverseTargets, m_ReverseOffsets[index], m_ReverseOffsets[index + 1]);
+  }
+
+  /**
+   * Determines all nodes reachable from the seeds, plus the additional
+   * nodes (whose dependencies don't get followed).
+   *
+   * @param skipSeed	the seed/additional node to ignore, -1 for none
+   * @param skipFrom	the source of the edge to ignore, -1 for none
+   * @param skipTo	the target of the edge to ignore, -1 for none
+   * @param parents	for storing the BFS parents (-1 for seeds), can be null
+   * @return		the reachable nodes
+   */
+  protected BitSet reachable(int skipSeed, int skipFrom, int skipTo, int[] parents) {
+    BitSet	result;
+    int[]	queue;
+    int		head;
+    int		tail;
+    int		node;
+    int		target;
+    int		i;
+
+    result = new BitSet(m_Names.length);
+    queue  = new int[m_Names.length];
+    head   = 0;
+    tail   = 0;
+    for (int seed: m_Seeds) {
+      if ((seed == skipSeed) || result.get(seed))
+	continue;
+      result.set(seed);
+      queue[tail++] = seed;
+      if (parents != null)
+	parents[seed] = -1;
+    }
+    while (head < tail) {
+      node = queue[head++];
+      for (i = m_ForwardOffsets[node]; i < m_ForwardOffsets[node + 1]; i++) {
+	target = m_ForwardTargets[i];
+	if ((node == skipFrom) && (target == skipTo))
+	  continue;
+	if (result.get(target))
+	  continue;
+	result.set(target);
+	queue[tail++] = target;
+	if (parents != null)
+	  parents[target] = node;
+      }
+    }
+    for (int add: m_Additional) {
+      if ((add == skipSeed) || result.get(add))
+	continue;
+      result.set(add);
+      if (parents != null)
+	parents[add] = -1;
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns all classes reachable from the seeds.
+   *
+   * @return		the classes
+   */
+  public List<String> reachable() {
+    return toNames(reachable(-1, -1, -1, null));
+  }
+
+  /**
+   * Turns the nodes into class names.
+   *
+   * @param nodes	the nodes
+   * @return		the class names
+   */
+  protected List<String> toNames(BitSet nodes) {
+    List<String>	result;
+    int			i;
+
+    result = new ArrayList<>(nodes.cardinality());
+    for (i = nodes.nextSetBit(0); i >= 0; i = nodes.nextSetBit(i + 1))
+      result.add(m_Names[i]);
+
+    return result;
+  }
+
+  /**
+   * Explains why the class is included, ie returns the shortest path from
+   * any of the seeds to the class.
+   *
+   * @param cls		the class to explain
+   * @return		the path (seed first, class last), empty if not reachable
+   */
+  public List<String> explain(String cls) {
+    List<String>	result;
+    int[]		parents;
+    int			target;
+    BitSet		reached;
+    int			node;
+
+    result = new ArrayList<>();
+    target = indexOf(cls);
+    if (target == -1)
+      return result;
+
+    parents = new int[m_Names.length];
+    reached = reachable(-1, -1, -1, parents);
+    if (!reached.get(target))
+      return result;
+
+    node = target;
+    while (node != -1) {
+      result.add(m_Names[node]);
+      node = parents[node];
+    }
+    Collections.reverse(result);
+
+    return result;
+  }
+
+  /**
+   * Returns the classes that would no longer be included if the seed were
+   * dropped.
+   *
+   * @param seed	the seed (or additional class) to drop
+   * @return		the classes that would get removed, null if not a seed
+   */
+  public List<String> whatIfDropSeed(String seed) {
+    BitSet	all;
+    BitSet	without;
+    int		index;
+
+    index = indexOf(seed);
+    if ((index == -1) || (!contains(m_Seeds, index) && !contains(m_Additional, index)))
+      return null;
+
+    all     = reachable(-1, -1, -1, null);
+    without = reachable(index, -1, -1, null);
+    all.andNot(without);
+
+    return toNames(all);
+  }
+
+  /**
+   * Returns the classes that would no longer be included if the dependency
+   * between the two classes were dropped.
+   *
+   * @param from	the class with the dependency
+   * @param to		the class it depends on
+   * @return		the classes that would get removed, null if no such edge
+   */
+  public List<String> whatIfDropEdge(String from, String to) {
+    BitSet	all;
+    BitSet	without;
+    int		f;
+    int		t;
+
+    f = indexOf(from);
+    t = indexOf(to);
+    if ((f == -1) || (t == -1))
+      return null;
+    if (Arrays.binarySearch(m_ForwardTargets, m_ForwardOffsets[f], m_ForwardOffsets[f + 1], t) < 0)
+      return null;
+
+    all     = reachable(-1, -1, -1, null);
+    without = reachable(-1, f, t, null);
+    all.andNot(without);
+
+    return toNames(all);
+  }
+
+  /**
+   * Checks whether the value is in the array.
+   *
+   * @param array	the array to check
+   * @param value	the value to look for
+   * @return		true if present
+   */
+  protected static boolean contains(int[] array, int value) {
+    for (int v: array) {
+      if (v == value)
+	return true;
+    }
+    return false;
+  }
+
+  /**
+   * Quotes the string for JSON.
+   *
+   * @param s		the string to quote
+   * @return		the quoted string
+   */
+  public static String quote(String s) {
+    StringBuilder	result;
+    char		c;
+    int			i;
+
+    result = new StringBuilder("\"");
+    for (i = 0; i < s.length(); i++) {
+      c = s.charAt(i);
+      switch (c) {
+	case '"':
+	  result.append("\\\"");
+	  break;
+	case '\\':
+	  result.append("\\\\");
+	  break;
+	case '\n':
+	  result.append("\\n");
+	  break;
+	case '\r':
+	  result.append("\\r");
+	  break;
+	case '\t':
+	  result.append("\\t");
+	  break;
+	default:
+	  if (c < 0x20)
+	    result.append(String.format("\\u%04x", (int) c));
+	  else
+	    result.append(c);
+      }
+    }
+    result.append("\"");
+
+    return result.toString();
+  }
+
+  /**
+   * Turns the class names into a JSON array.
+   *
+   * @param names	the names to convert
+   * @return		the JSON array
+   */
+  public static String toJson(List<String> names) {
+    StringBuilder	result;
+    int			i;
+
+    result = new StringBuilder("[");
+    for (i = 0; i < names.size(); i++) {
+      if (i > 0)
+	result.append(", ");
+      result.append(quote(names.get(i)));
+    }
+    result.append("]");
+
+    return result.toString();
+  }
+
+  /**
+   * Writes the node indices as JSON array.
+   *
+   * @param writer	the writer to use
+   * @param nodes	the node indices
+   * @throws IOException	if writing fails
+   */
+  protected static void writeJson(Writer writer, int[] nodes) throws IOException {
+    int		i;
+
+    writer.write("[");
+    for (i = 0; i < nodes.length; i++) {
+      if (i > 0)
+	writer.write(", ");
+      writer.write(Integer.toString(nodes[i]));
+    }
+    writer.write("]");
+  }
+
+  /**
+   * Writes the graph as JSON object with the "classes" (array of names),
+   * the "seeds", the "additional" classes and "dependencies" (array of
+   * node index arrays, aligned with "classes").
+   *
+   * @param writer	the writer to use
+   * @throws IOException	if writing fails
+   */
+  public void writeJson(Writer writer) throws IOException {
+    int		i;
+    int		n;
+
+    writer.write("{\n  \"classes\": ");
+    writer.write(toJson(Arrays.asList(m_Names)));
+    writer.write(",\n  \"seeds\": ");
+    writeJson(writer, m_Seeds);
+    writer.write(",\n  \"additional\": ");
+    writeJson(writer, m_Additional);
+    writer.write(",\n  \"dependencies\": [\n");
+    for (i = 0; i < m_Names.length; i++) {
+      writer.write("    [");
+      for (n = m_ForwardOffsets[i]; n < m_ForwardOffsets[i + 1]; n++) {
+	if (n > m_ForwardOffsets[i])
+	  writer.write(", ");
+	writer.write(Integer.toString(m_ForwardTargets[n]));
+      }
+      writer.write((i < m_Names.length - 1) ? "],\n" : "]\n");
+    }
+    writer.write("  ]\n}");
+  }
+
+  /**
+   * Returns a short description of the graph.
+   *
+   * @return		the description
+   */
+  @Override
+  public String toString() {
+    return numNodes() + " class(es), " + numEdges() + " dependencies, " + m_Seeds.length + " seed(s), " + m_Additional.length + " additional";
+  }
+}
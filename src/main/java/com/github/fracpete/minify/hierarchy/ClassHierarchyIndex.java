@@ -0,0 +1,566 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ClassHierarchyIndex.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.hierarchy;
+
+import com.github.fracpete.minify.core.ClassFileInfo;
+import com.github.fracpete.minify.core.ClassPathScanner;
+import com.github.fracpete.minify.core.ClassSet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Index of the superclass and interfaces of all the classes on a
+ * classpath, for resolving seed expressions:
+ * <ul>
+ *   <li>fully qualified class name, eg "meka.classifiers.multilabel.BR"</li>
+ *   <li>all classes in a package, eg "meka.classifiers.multilabel.*"</li>
+ *   <li>all classes in a package and its sub-packages, eg "meka.classifiers.**"</li>
+ *   <li>all concrete subtypes, eg "subtypes-of:meka.classifiers.multilabel.MultiLabelClassifier"</li>
+ * </ul>
+ * Wildcards and subtypes only return top-level, non-anonymous classes,
+ * subtypes only non-abstract classes. The class headers of jars can be
+ * cached on disk, one file per jar, invalidated by size and timestamp.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ClassHierarchyIndex {
+
+  /** the prefix for subtype expressions. */
+  public final static String SUBTYPES_OF = "subtypes-of:";
+
+  /** the version of the cache file format. */
+  public final static int VERSION = 2;
+
+  /** the prefix of the cache files. */
+  public final static String PREFIX = "hierarchy-";
+
+  /** the extension of the cache files. */
+  public final static String SUFFIX = ".idx";
+
+  /** the time in msec after which unused cache files get removed (30 days). */
+  public final static long MAX_AGE = 30L * 24 * 60 * 60 * 1000;
+
+  /** the sorted class names (incl supertypes not on the classpath). */
+  protected String[] m_Names;
+
+  /** the access flags (-1 if not on classpath). */
+  protected int[] m_Access;
+
+  /** the superclass indices (-1 if none). */
+  protected int[] m_Super;
+
+  /** the offsets into the interfaces (length: classes + 1). */
+  protected int[] m_InterfaceOffsets;
+
+  /** the interface indices. */
+  protected int[] m_Interfaces;
+
+  /** the offsets into the direct subtypes (length: classes + 1). */
+  protected int[] m_SubtypeOffsets;
+
+  /** the direct subtypes. */
+  protected int[] m_Subtypes;
+
+  /** the top-level classes on the classpath, for wildcard expressions. */
+  protected ClassSet m_TopLevel;
+
+  /**
+   * Initializes the index.
+   *
+   * @param names	the sorted names
+   * @param access	the access flags
+   * @param sup		the superclasses
+   * @param ifaceOffsets	the offsets into the interfaces
+   * @param ifaces	the interfaces
+   */
+  protected ClassHierarchyIndex(String[] names, int[] access, int[] sup, int[] ifaceOffsets, int[] ifaces) {
+    super();
+
+    m_Names            = names;
+    m_Access           = access;
+    m_Super            = sup;
+    m_InterfaceOffsets = ifaceOffsets;
+    m_Interfaces       = ifaces;
+    computeSubtypes();
+    computeTopLevel();
+  }
+
+  /**
+   * Collects the top-level classes that are present on the classpath.
+   */
+  protected void computeTopLevel() {
+    int		i;
+
+    m_TopLevel = new ClassSet();
+    for (i = 0; i < m_Names.length; i++) {
+      if (isTopLevel(i))
+	m_TopLevel.add(m_Names[i]);
+    }
+  }
+
+  /**
+   * Computes the direct subtypes from the superclasses and interfaces.
+   */
+  protected void computeSubtypes() {
+    int[]	fill;
+    int		i;
+    int		n;
+
+    m_SubtypeOffsets = new int[m_Names.length + 1];
+    for (i = 0; i < m_Names.length; i++) {
+      if (m_Super[i] > -1)
+	m_SubtypeOffsets[m_Super[i] + 1]++;
+    }
+    for (i = 0; i < m_Interfaces.length; i++)
+      m_SubtypeOffsets[m_Interfaces[i] + 1]++;
+    for (i = 0; i < m_Names.length; i++)
+      m_SubtypeOffsets[i + 1] += m_SubtypeOffsets[i];
+
+    m_Subtypes = new int[m_SubtypeOffsets[m_Names.length]];
+    fill       = Arrays.copyOf(m_SubtypeOffsets, m_Names.length);
+    for (i = 0; i < m_Names.length; i++) {
+      if (m_Super[i] > -1)
+	m_Subtypes[fill[m_Super[i]]++] = i;
+      for (n = m_InterfaceOffsets[i]; n < m_InterfaceOffsets[i + 1]; n++)
+	m_Subtypes[fill[m_Interfaces[n]]++] = i;
+    }
+  }
+
+  /**
+   * Builds the index from the parsed classes.
+   *
+   * @param classes	the classes
+   * @return		the index
+   */
+  public static ClassHierarchyIndex build(List<ClassFileInfo> classes) {
+    ClassSet		all;
+    String[]		names;
+    int[]		access;
+    int[]		sup;
+    int[]		offsets;
+    int[]		ifaces;
+    int			i;
+    int			n;
+    int			count;
+    ClassFileInfo[]	infos;
+
+    all = new ClassSet();
+    for (ClassFileInfo info: classes) {
+      all.add(info.getName());
+      if (info.getSuperName() != null)
+	all.add(info.getSuperName());
+      all.addAll(Arrays.asList(info.getInterfaces()));
+    }
+    names = all.toList().toArray(new String[all.size()]);
+    Arrays.sort(names);
+
+    infos = new ClassFileInfo[names.length];
+    count = 0;
+    for (ClassFileInfo info: classes) {
+      i = Arrays.binarySearch(names, info.getName());
+      if (infos[i] == null) {
+	infos[i] = info;
+	count   += info.getInterfaces().length;
+      }
+    }
+
+    access  = new int[names.length];
+    sup     = new int[names.length];
+    offsets = new int[names.length + 1];
+    ifaces  = new int[count];
+    count   = 0;
+    for (i = 0; i < names.length; i++) {
+      offsets[i] = count;
+      if (infos[i] == null) {
+	access[i] = -1;
+	sup[i]    = -1;
+	continue;
+      }
+      access[i] = infos[i].getAccess();
+      sup[i]    = (infos[i].getSuperName() == null) ? -1 : Arrays.binarySearch(names, infos[i].getSuperName());
+      for (n = 0; n < infos[i].getInterfaces().length; n++)
+	ifaces[count++] = Arrays.binarySearch(names, infos[i].getInterfaces()[n]);
+    }
+    offsets[names.length] = count;
+
+    return new ClassHierarchyIndex(names, access, sup, offsets, ifaces);
+  }
+
+  /**
+   * Builds the index from the classpath, scanning it in parallel.
+   *
+   * @param classpath	the classpath entries
+   * @return		the index
+   * @throws Exception	if scanning fails
+   */
+  public static ClassHierarchyIndex scan(List<String> classpath) throws Exception {
+    return build(scanHeaders(classpath));
+  }
+
+  /**
+   * Returns the cache file for the jar, named after a hash of its path.
+   *
+   * @param cacheDir	the cache directory
+   * @param jar		the jar
+   * @return		the cache file
+   * @throws Exception	if hashing fails
+   */
+  public static File cacheFile(File cacheDir, File jar) throws Exception {
+    MessageDigest	digest;
+    StringBuilder	result;
+    byte[]		hash;
+    int			i;
+
+    digest = MessageDigest.getInstance("SHA-256");
+    hash   = digest.digest(jar.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+    result = new StringBuilder(PREFIX);
+    for (i = 0; i < 16; i++)
+      result.append(String.format("%02x", hash[i]));
+    result.append(SUFFIX);
+
+    return new File(cacheDir, result.toString());
+  }
+
+  /**
+   * Builds the index from the classpath. The class headers of jars get
+   * cached per jar (invalidated by size and timestamp), except for the
+   * uncached entries (eg jars that get rebuilt on every run) and
+   * directories. Cache files that haven't been used for {@link #MAX_AGE}
+   * milliseconds get removed.
+   *
+   * @param classpath	the classpath entries
+   * @param uncached	the entries not to cache
+   * @param cacheDir	the cache directory, null to not cache
+   * @return		the index
+   * @throws Exception	if building fails
+   */
+  public static ClassHierarchyIndex load(List<String> classpath, Collection<String> uncached, File cacheDir) throws Exception {
+    List<ClassFileInfo>	result;
+    List<String>	scan;
+    Set<File>		used;
+    File		jar;
+    File		cacheFile;
+    List<ClassFileInfo>	infos;
+
+    if (cacheDir == null)
+      return scan(classpath);
+
+    result = new ArrayList<>();
+    scan   = new ArrayList<>();
+    used   = new HashSet<>();
+    for (String part: classpath) {
+      jar = new File(part);
+      if (uncached.contains(part) || !jar.isFile()) {
+	scan.add(part);
+	continue;
+      }
+      cacheFile = cacheFile(cacheDir, jar);
+      used.add(cacheFile);
+      infos = null;
+      if (cacheFile.exists()) {
+	try {
+	  infos = read(cacheFile, jar);
+	  if (infos != null)
+	    cacheFile.setLastModified(System.currentTimeMillis());
+	}
+	catch (Exception e) {
+	  System.err.println("Failed to read class hierarchy cache, rebuilding: " + cacheFile + "\n" + e);
+	}
+      }
+      if (infos == null) {
+	infos = scanHeaders(Arrays.asList(part));
+	try {
+	  if (!cacheDir.exists() && !cacheDir.mkdirs())
+	    throw new IOException("Failed to create directory: " + cacheDir);
+	  write(cacheFile, jar, infos);
+	}
+	catch (Exception e) {
+	  System.err.println("Failed to write class hierarchy cache: " + cacheFile + "\n" + e);
+	}
+      }
+      result.addAll(infos);
+    }
+    if (!scan.isEmpty())
+      result.addAll(scanHeaders(scan));
+
+    evict(cacheDir, used);
+
+    return build(result);
+  }
+
+  /**
+   * Scans the classpath entries for the class headers.
+   *
+   * @param classpath	the entries to scan
+   * @return		the headers
+   * @throws Exception	if scanning fails
+   */
+  protected static List<ClassFileInfo> scanHeaders(List<String> classpath) throws Exception {
+    ClassPathScanner	scanner;
+
+    scanner = new ClassPathScanner();
+    scanner.setReferences(false);
+    return scanner.scan(classpath, null);
+  }
+
+  /**
+   * Removes the cache files that haven't been used for {@link #MAX_AGE}
+   * milliseconds.
+   *
+   * @param cacheDir	the cache directory
+   * @param used	the cache files used in this run
+   */
+  protected static void evict(File cacheDir, Set<File> used) {
+    File[]	files;
+    long	oldest;
+
+    files = cacheDir.listFiles((File dir, String name) -> name.startsWith(PREFIX) && (name.endsWith(SUFFIX) || name.endsWith(SUFFIX + ".tmp")));
+    if (files == null)
+      return;
+    oldest = System.currentTimeMillis() - MAX_AGE;
+    for (File file: files) {
+      if (used.contains(file) || (file.lastModified() >= oldest))
+	continue;
+      if (!file.delete())
+	System.err.println("Failed to remove class hierarchy cache: " + file);
+    }
+  }
+
+  /**
+   * Writes the class headers of the jar to the cache file.
+   *
+   * @param file	the cache file to write to
+   * @param jar		the jar the headers come from
+   * @param infos	the class headers
+   * @throws IOException	if writing fails
+   */
+  public static void write(File file, File jar, List<ClassFileInfo> infos) throws IOException {
+    File	tmp;
+
+    tmp = new File(file.getAbsolutePath() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+      out.writeInt(VERSION);
+      out.writeUTF(jar.getAbsolutePath());
+      out.writeLong(jar.length());
+      out.writeLong(jar.lastModified());
+      out.writeInt(infos.size());
+      for (ClassFileInfo info: infos)
+	info.writeHeader(out);
+    }
+    if (file.exists() && !file.delete()) {
+      tmp.delete();
+      throw new IOException("Failed to replace " + file);
+    }
+    if (!tmp.renameTo(file)) {
+      tmp.delete();
+      throw new IOException("Failed to rename " + tmp + " to " + file);
+    }
+  }
+
+  /**
+   * Reads the class headers of the jar from the cache file.
+   *
+   * @param file	the cache file to read
+   * @param jar		the jar the headers are for
+   * @return		the class headers, null if the jar has changed since
+   * @throws IOException	if reading fails
+   */
+  public static List<ClassFileInfo> read(File file, File jar) throws IOException {
+    List<ClassFileInfo>	result;
+    int			i;
+    int			num;
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (in.readInt() != VERSION)
+	return null;
+      if (!in.readUTF().equals(jar.getAbsolutePath()) || (in.readLong() != jar.length()) || (in.readLong() != jar.lastModified()))
+	return null;
+      num    = in.readInt();
+      result = new ArrayList<>(num);
+      for (i = 0; i < num; i++)
+	result.add(ClassFileInfo.readHeader(in));
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the number of classes in the index.
+   *
+   * @return		the number of classes
+   */
+  public int size() {
+    return m_Names.length;
+  }
+
+  /**
+   * Returns whether the class is on the classpath.
+   *
+   * @param cls		the class to check
+   * @return		true if on classpath
+   */
+  public boolean contains(String cls) {
+    int		index;
+
+    index = Arrays.binarySearch(m_Names, cls);
+    return (index >= 0) && (m_Access[index] != -1);
+  }
+
+  /**
+   * Checks whether the class is a top-level, non-anonymous class that is
+   * present on the classpath.
+   *
+   * @param index	the index of the class
+   * @return		true if a top-level class
+   */
+  protected boolean isTopLevel(int index) {
+    return (m_Access[index] != -1) && (m_Names[index].indexOf('$') == -1);
+  }
+
+  /**
+   * Checks whether the class is a concrete class.
+   *
+   * @param index	the index of the class
+   * @return		true if concrete
+   */
+  protected boolean isConcrete(int index) {
+    return (m_Access[index] != -1) && ((m_Access[index] & (ClassFileInfo.ACC_ABSTRACT | ClassFileInfo.ACC_INTERFACE)) == 0);
+  }
+
+  /**
+   * Returns the top-level classes in the package.
+   *
+   * @param pkg		the package
+   * @param recursive	whether to include sub-packages
+   * @return		the classes
+   */
+  public List<String> classesIn(String pkg, boolean recursive) {
+    return m_TopLevel.classesIn(pkg, recursive);
+  }
+
+  /**
+   * Returns all concrete, top-level subtypes (transitive) of the class or
+   * interface.
+   *
+   * @param cls		the class/interface
+   * @return		the subtypes, null if the type is unknown
+   */
+  public List<String> subtypesOf(String cls) {
+    List<String>	result;
+    BitSet		visited;
+    int[]		queue;
+    int			head;
+    int			tail;
+    int			node;
+    int			i;
+    int			index;
+
+    index = Arrays.binarySearch(m_Names, cls);
+    if (index < 0)
+      return null;
+
+    result  = new ArrayList<>();
+    visited = new BitSet(m_Names.length);
+    queue   = new int[m_Names.length];
+    head    = 0;
+    tail    = 0;
+    visited.set(index);
+    queue[tail++] = index;
+    while (head < tail) {
+      node = queue[head++];
+      for (i = m_SubtypeOffsets[node]; i < m_SubtypeOffsets[node + 1]; i++) {
+	if (visited.get(m_Subtypes[i]))
+	  continue;
+	visited.set(m_Subtypes[i]);
+	queue[tail++] = m_Subtypes[i];
+      }
+    }
+    visited.clear(index);
+    for (i = visited.nextSetBit(0); i >= 0; i = visited.nextSetBit(i + 1)) {
+      if (isTopLevel(i) && isConcrete(i))
+	result.add(m_Names[i]);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns whether the seed is an expression rather than a plain class name.
+   *
+   * @param seed	the seed to check
+   * @return		true if an expression
+   */
+  public static boolean isExpression(String seed) {
+    return seed.startsWith(SUBTYPES_OF) || seed.endsWith(".*") || seed.endsWith(".**");
+  }
+
+  /**
+   * Expands the seed expression.
+   *
+   * @param seed	the expression or class name
+   * @return		the class names, null if expression could not be resolved
+   */
+  public List<String> expand(String seed) {
+    List<String>	result;
+
+    if (seed.startsWith(SUBTYPES_OF)) {
+      result = subtypesOf(seed.substring(SUBTYPES_OF.length()).trim());
+    }
+    else if (seed.endsWith(".**")) {
+      result = classesIn(seed.substring(0, seed.length() - 3), true);
+    }
+    else if (seed.endsWith(".*")) {
+      result = classesIn(seed.substring(0, seed.length() - 2), false);
+    }
+    else {
+      result = new ArrayList<>();
+      result.add(seed);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns a short description of the index.
+   *
+   * @return		the description
+   */
+  @Override
+  public String toString() {
+    return m_Names.length + " type(s), " + m_Interfaces.length + " interface implementation(s)";
+  }
+}
@@ -0,0 +1,961 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ClassLocatorIndex.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.locator;
+
+import com.github.fracpete.minify.core.ClassPathScanner;
+import com.github.fracpete.minify.core.ClassSet;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Persistent index that maps class names to the jars in the local Maven
+ * repository that contain them. Only the central directories of the jars
+ * get read (in parallel) and only jars that were added or changed (size,
+ * timestamp) since the last update get rescanned. Directories of the
+ * repository whose timestamp hasn't changed since the last update don't
+ * get listed again.
+ * <br>
+ * The index is a single file in the cache directory (replaced atomically
+ * on update): a header with the directories, the jars and the number of
+ * entries, followed by the memory-mapped table of (64-bit hash of class
+ * name, jar index) pairs, sorted by hash, which gets binary searched for
+ * lookups. Since only hashes are stored, the candidates of a lookup get
+ * verified against the entries of the jars. Table entries with a jar
+ * index out of range mark the index as corrupt, which then gets rebuilt.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ClassLocatorIndex {
+
+  /** the version of the file format. */
+  public final static int VERSION = 2;
+
+  /** the index file. */
+  public final static String INDEX_FILE = "locator.idx";
+
+  /** the size in bytes of a table entry. */
+  public final static int ENTRY_SIZE = 12;
+
+  /**
+   * Container for a jar in the repository.
+   */
+  public static class Jar {
+
+    /** the absolute path. */
+    public String path;
+
+    /** the size in bytes. */
+    public long size;
+
+    /** the timestamp. */
+    public long lastModified;
+
+    /**
+     * Initializes the container.
+     *
+     * @param path	the absolute path
+     * @param size	the size in bytes
+     * @param lastModified	the timestamp
+     */
+    public Jar(String path, long size, long lastModified) {
+      this.path         = path;
+      this.size         = size;
+      this.lastModified = lastModified;
+    }
+  }
+
+  /** the repository directory. */
+  protected File m_Repository;
+
+  /** the cache directory. */
+  protected File m_CacheDir;
+
+  /** the number of threads to use for scanning. */
+  protected int m_NumThreads;
+
+  /** the jars. */
+  protected List<Jar> m_Jars;
+
+  /** the directories of the repository with their timestamps. */
+  protected Map<String,Long> m_Dirs;
+
+  /** the classes of the jars that lookups got verified against. */
+  protected Map<File,ClassSet> m_Contents;
+
+  /** the memory-mapped table. */
+  protected MappedByteBuffer m_Table;
+
+  /** the number of table entries. */
+  protected int m_NumEntries;
+
+  /**
+   * Initializes the index.
+   *
+   * @param repository	the local Maven repository, eg ~/.m2/repository
+   * @param cacheDir	the directory to store the index in
+   */
+  public ClassLocatorIndex(File repository, File cacheDir) {
+    super();
+
+    m_Repository = repository;
+    m_CacheDir   = cacheDir;
+    m_NumThreads = Runtime.getRuntime().availableProcessors();
+    m_Jars       = new ArrayList<>();
+    m_Dirs       = new HashMap<>();
+    m_Contents   = new HashMap<>();
+    m_Table      = null;
+    m_NumEntries = 0;
+  }
+
+  /**
+   * Returns the repository directory.
+   *
+   * @return		the directory
+   */
+  public File getRepository() {
+    return m_Repository;
+  }
+
+  /**
+   * Returns the jars in the index.
+   *
+   * @return		the jars
+   */
+  public List<Jar> getJars() {
+    return Collections.unmodifiableList(m_Jars);
+  }
+
+  /**
+   * Returns the number of jars in the index.
+   *
+   * @return		the number of jars
+   */
+  public int numJars() {
+    return m_Jars.size();
+  }
+
+  /**
+   * Returns the number of classes in the index.
+   *
+   * @return		the number of classes
+   */
+  public int numClasses() {
+    return m_NumEntries;
+  }
+
+  /**
+   * Computes the 64-bit FNV-1a hash of the class name.
+   *
+   * @param cls		the class name
+   * @return		the hash
+   */
+  public static long hash(String cls) {
+    long	result;
+    int		i;
+    char	c;
+
+    result = 0xcbf29ce484222325L;
+    for (i = 0; i < cls.length(); i++) {
+      c       = cls.charAt(i);
+      result ^= (c & 0xFF);
+      result *= 0x100000001b3L;
+      result ^= (c >>> 8);
+      result *= 0x100000001b3L;
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns whether the file is a jar to index, ie not a sources, javadoc
+   * or test jar.
+   *
+   * @param name	the file name
+   * @return		true if to index
+   */
+  protected static boolean isJar(String name) {
+    if (!name.endsWith(".jar"))
+      return false;
+    return !name.endsWith("-sources.jar") && !name.endsWith("-javadoc.jar") && !name.endsWith("-tests.jar");
+  }
+
+  /**
+   * Collects the jars below the directory. Directories whose timestamp
+   * hasn't changed since the last update don't get listed, their
+   * subdirectories and jars are taken from the index instead.
+   *
+   * @param dir		the directory to search
+   * @param subdirs	the subdirectories per directory in the index
+   * @param dirJars	the jars per directory in the index
+   * @param dirs	for collecting the directories with their timestamps
+   * @param jars	for collecting the jars
+   */
+  protected void findJars(File dir, Map<String,List<String>> subdirs, Map<String,List<String>> dirJars, Map<String,Long> dirs, List<File> jars) {
+    File[]	files;
+    String	path;
+    Long	last;
+    long	current;
+
+    path    = dir.getAbsolutePath();
+    current = dir.lastModified();
+    last    = m_Dirs.get(path);
+    dirs.put(path, current);
+
+    if ((last != null) && (last == current) && (current != 0)) {
+      for (String sub: subdirs.getOrDefault(path, Collections.emptyList()))
+	findJars(new File(sub), subdirs, dirJars, dirs, jars);
+      for (String jar: dirJars.getOrDefault(path, Collections.emptyList()))
+	jars.add(new File(jar));
+      return;
+    }
+
+    files = dir.listFiles();
+    if (files == null)
+      return;
+    for (File file: files) {
+      if (file.isDirectory())
+	findJars(file, subdirs, dirJars, dirs, jars);
+      else if (isJar(file.getName()))
+	jars.add(file);
+    }
+  }
+
+  /**
+   * Hashes the names of the classes in the jar, using only the central
+   * directory.
+   *
+   * @param jar		the jar to scan
+   * @return		the hashes
+   */
+  protected long[] scanJar(File jar) {
+    long[]				result;
+    int					count;
+    Enumeration<? extends ZipEntry>	entries;
+    String				cls;
+
+    try (ZipFile zip = new ZipFile(jar)) {
+      result  = new long[zip.size()];
+      count   = 0;
+      entries = zip.entries();
+      while (entries.hasMoreElements()) {
+	cls = ClassPathScanner.pathToClassName(entries.nextElement().getName());
+	if (cls != null)
+	  result[count++] = hash(cls);
+      }
+    }
+    catch (Exception e) {
+      System.err.println("Failed to read jar, skipping: " + jar + "\n" + e);
+      return new long[0];
+    }
+
+    if (count < result.length)
+      result = Arrays.copyOf(result, count);
+
+    return result;
+  }
+
+  /**
+   * Loads the index from the cache directory, if present. The header
+   * must match the size of the table, otherwise the index gets rebuilt.
+   *
+   * @return		true if loaded
+   */
+  public boolean load() {
+    File		file;
+    List<Jar>		jars;
+    Map<String,Long>	dirs;
+    int			num;
+    int			headerSize;
+    int			entries;
+    byte[]		header;
+    int			i;
+
+    file = new File(m_CacheDir, INDEX_FILE);
+    if (!file.exists())
+      return false;
+
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      if (raf.readInt() != VERSION)
+	throw new IOException("Unsupported version!");
+      headerSize = raf.readInt();
+      if ((headerSize < 0) || (8L + headerSize > raf.length()))
+	throw new IOException("Corrupt header!");
+      header = new byte[headerSize];
+      raf.readFully(header);
+      try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(header))) {
+	if (!in.readUTF().equals(m_Repository.getAbsolutePath()))
+	  return false;
+	num  = in.readInt();
+	dirs = new HashMap<>(num * 2);
+	for (i = 0; i < num; i++)
+	  dirs.put(in.readUTF(), in.readLong());
+	num  = in.readInt();
+	jars = new ArrayList<>(num);
+	for (i = 0; i < num; i++)
+	  jars.add(new Jar(in.readUTF(), in.readLong(), in.readLong()));
+	entries = in.readInt();
+      }
+      if (raf.length() != 8L + headerSize + (long) entries * ENTRY_SIZE)
+	throw new IOException("Table size doesn't match header!");
+      map(raf, 8L + headerSize, entries);
+      m_Jars = jars;
+      m_Dirs = dirs;
+    }
+    catch (Exception e) {
+      System.err.println("Failed to read class locator index, rebuilding: " + file + "\n" + e);
+      close();
+      m_Jars = new ArrayList<>();
+      m_Dirs = new HashMap<>();
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Memory-maps the table. The jar indices of the entries get checked when
+   * accessed, see {@link #jarIndex(int)}.
+   *
+   * @param raf		the index file
+   * @param offset	the offset of the table
+   * @param entries	the number of entries in the table
+   * @throws IOException	if mapping fails
+   */
+  protected void map(RandomAccessFile raf, long offset, int entries) throws IOException {
+    if ((long) entries * ENTRY_SIZE > Integer.MAX_VALUE)
+      throw new IOException("Table too large!");
+    m_Table      = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, offset, (long) entries * ENTRY_SIZE);
+    m_NumEntries = entries;
+  }
+
+  /**
+   * Returns the jar index of the table entry.
+   *
+   * @param entry	the index of the table entry
+   * @return		the jar index
+   * @throws IOException	if the jar index is out of range
+   */
+  protected int jarIndex(int entry) throws IOException {
+    int		result;
+
+    result = m_Table.getInt(entry * ENTRY_SIZE + 8);
+    if ((result < 0) || (result >= m_Jars.size()))
+      throw new IOException("Invalid jar index in table entry #" + entry + ": " + result);
+
+    return result;
+  }
+
+  /**
+   * Discards the index, in memory and on disk, so that the next update
+   * rebuilds it from scratch.
+   */
+  protected void discard() {
+    close();
+    m_Jars = new ArrayList<>();
+    m_Dirs = new HashMap<>();
+    m_Contents.clear();
+    new File(m_CacheDir, INDEX_FILE).delete();
+  }
+
+  /**
+   * Releases the memory-mapped table. Since Java offers no official way of
+   * unmapping a buffer, the buffer's cleaner gets invoked via reflection
+   * (the mapping would otherwise linger until garbage collection, which
+   * prevents replacing the file on some platforms).
+   */
+  public void close() {
+    MappedByteBuffer	table;
+
+    table        = m_Table;
+    m_Table      = null;
+    m_NumEntries = 0;
+    if (table == null)
+      return;
+
+    try {
+      unmap(table);
+    }
+    catch (Throwable t) {
+      // mapping gets released on garbage collection
+    }
+  }
+
+  /**
+   * Unmaps the buffer, using Unsafe.invokeCleaner (Java 9+) or the
+   * buffer's cleaner (Java 8).
+   *
+   * @param buffer	the buffer to unmap, must not be accessed afterwards
+   * @throws Exception	if unmapping fails
+   */
+  protected static void unmap(ByteBuffer buffer) throws Exception {
+    Class<?>	cls;
+    Field	field;
+    Method	method;
+    Object	cleaner;
+
+    cls = Class.forName("sun.misc.Unsafe");
+    try {
+      method = cls.getMethod("invokeCleaner", ByteBuffer.class);
+      field  = cls.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      method.invoke(field.get(null), buffer);
+    }
+    catch (NoSuchMethodException e) {
+      method = buffer.getClass().getMethod("cleaner");
+      method.setAccessible(true);
+      cleaner = method.invoke(buffer);
+      if (cleaner != null)
+	cleaner.getClass().getMethod("clean").invoke(cleaner);
+    }
+  }
+
+  /**
+   * Sorts the hashes (and jar indices alongside) in ascending order.
+   *
+   * @param hashes	the hashes to sort
+   * @param jars	the jar indices
+   * @param lo		the first index (incl)
+   * @param hi		the last index (incl)
+   */
+  protected static void sort(long[] hashes, int[] jars, int lo, int hi) {
+    long	pivot;
+    long	h;
+    int		j;
+    int		i;
+    int		k;
+
+    while (hi - lo > 16) {
+      pivot = hashes[(lo + hi) >>> 1];
+      i     = lo;
+      k     = hi;
+      while (i <= k) {
+	while (hashes[i] < pivot)
+	  i++;
+	while (hashes[k] > pivot)
+	  k--;
+	if (i <= k) {
+	  h = hashes[i]; hashes[i] = hashes[k]; hashes[k] = h;
+	  j = jars[i];   jars[i]   = jars[k];   jars[k]   = j;
+	  i++;
+	  k--;
+	}
+      }
+      // recurse into smaller half
+      if (k - lo < hi - i) {
+	sort(hashes, jars, lo, k);
+	lo = i;
+      }
+      else {
+	sort(hashes, jars, i, hi);
+	hi = k;
+      }
+    }
+
+    // insertion sort for small ranges
+    for (i = lo + 1; i <= hi; i++) {
+      h = hashes[i];
+      j = jars[i];
+      k = i - 1;
+      while ((k >= lo) && (hashes[k] > h)) {
+	hashes[k + 1] = hashes[k];
+	jars[k + 1]   = jars[k];
+	k--;
+      }
+      hashes[k + 1] = h;
+      jars[k + 1]   = j;
+    }
+  }
+
+  /**
+   * Updates the index: rescans added/changed jars, drops removed ones and
+   * writes the index to the cache directory.
+   *
+   * @return		the number of jars that got (re)scanned
+   * @throws Exception	if scanning or writing fails
+   */
+  public int update() throws Exception {
+    List<File>			files;
+    Map<String,List<String>>	subdirs;
+    Map<String,List<String>>	dirJars;
+    Map<String,Long>		dirs;
+    String			parent;
+    Map<String,Integer>		old;
+    int[]			remap;
+    List<Jar>			jars;
+    List<Future<long[]>>	futures;
+    List<Integer>		scanned;
+    ExecutorService		executor;
+    Jar				jar;
+    Integer			idx;
+    long[][]			hashes;
+    long[]			allHashes;
+    int[]			allJars;
+    int				count;
+    int				i;
+    int				n;
+
+    if (m_Table == null)
+      load();
+
+    // walk the repository, only listing directories that changed
+    subdirs = new HashMap<>();
+    for (String dir: m_Dirs.keySet()) {
+      parent = new File(dir).getParent();
+      if (parent != null)
+	subdirs.computeIfAbsent(parent, k -> new ArrayList<>()).add(dir);
+    }
+    dirJars = new HashMap<>();
+    for (Jar j: m_Jars)
+      dirJars.computeIfAbsent(new File(j.path).getParent(), k -> new ArrayList<>()).add(j.path);
+    files = new ArrayList<>();
+    dirs  = new HashMap<>();
+    findJars(m_Repository.getAbsoluteFile(), subdirs, dirJars, dirs, files);
+    files.sort(null);
+
+    // determine which jars can keep their entries
+    old = new HashMap<>();
+    for (i = 0; i < m_Jars.size(); i++)
+      old.put(m_Jars.get(i).path, i);
+    remap   = new int[m_Jars.size()];
+    for (i = 0; i < remap.length; i++)
+      remap[i] = -1;
+    jars    = new ArrayList<>();
+    scanned = new ArrayList<>();
+    for (File file: files) {
+      jar = new Jar(file.getAbsolutePath(), file.length(), file.lastModified());
+      idx = old.get(jar.path);
+      if ((idx != null) && (m_Jars.get(idx).size == jar.size) && (m_Jars.get(idx).lastModified == jar.lastModified))
+	remap[idx] = jars.size();
+      else
+	scanned.add(jars.size());
+      jars.add(jar);
+    }
+    if (scanned.isEmpty() && (jars.size() == m_Jars.size()) && dirs.equals(m_Dirs))
+      return 0;
+
+    // scan new/changed jars
+    hashes   = new long[jars.size()][];
+    futures  = new ArrayList<>();
+    executor = Executors.newFixedThreadPool(m_NumThreads);
+    try {
+      for (Integer s: scanned) {
+	final File current = new File(jars.get(s).path);
+	futures.add(executor.submit(() -> scanJar(current)));
+      }
+      for (i = 0; i < scanned.size(); i++)
+	hashes[scanned.get(i)] = futures.get(i).get();
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    // merge with retained entries
+    count = 0;
+    try {
+      for (i = 0; i < m_NumEntries; i++) {
+	if (remap[jarIndex(i)] > -1)
+	  count++;
+      }
+    }
+    catch (IOException e) {
+      System.err.println("Corrupt class locator index, rebuilding: " + new File(m_CacheDir, INDEX_FILE) + "\n" + e);
+      discard();
+      return update();
+    }
+    for (long[] jarHashes: hashes) {
+      if (jarHashes != null)
+	count += jarHashes.length;
+    }
+    allHashes = new long[count];
+    allJars   = new int[count];
+    n         = 0;
+    for (i = 0; i < m_NumEntries; i++) {
+      idx = remap[jarIndex(i)];
+      if (idx > -1) {
+	allHashes[n] = m_Table.getLong(i * ENTRY_SIZE);
+	allJars[n]   = idx;
+	n++;
+      }
+    }
+    for (i = 0; i < hashes.length; i++) {
+      if (hashes[i] == null)
+	continue;
+      for (long value: hashes[i]) {
+	allHashes[n] = value;
+	allJars[n]   = i;
+	n++;
+      }
+    }
+    sort(allHashes, allJars, 0, count - 1);
+
+    // write
+    close();
+    m_Contents.clear();
+    if (!m_CacheDir.exists() && !m_CacheDir.mkdirs())
+      throw new IOException("Failed to create directory: " + m_CacheDir);
+    write(new File(m_CacheDir, INDEX_FILE), dirs, jars, allHashes, allJars);
+    m_Jars = jars;
+    m_Dirs = dirs;
+    try (RandomAccessFile raf = new RandomAccessFile(new File(m_CacheDir, INDEX_FILE), "r")) {
+      raf.readInt();
+      map(raf, 8L + raf.readInt(), count);
+    }
+
+    return scanned.size();
+  }
+
+  /**
+   * Writes the index to a temporary file, which then replaces the index
+   * file.
+   *
+   * @param file	the index file
+   * @param dirs	the directories with their timestamps
+   * @param jars	the jars
+   * @param hashes	the sorted hashes
+   * @param indices	the jar indices
+   * @throws IOException	if writing fails
+   */
+  protected void write(File file, Map<String,Long> dirs, List<Jar> jars, long[] hashes, int[] indices) throws IOException {
+    ByteArrayOutputStream	header;
+    File			tmp;
+    int				i;
+
+    header = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(header)) {
+      out.writeUTF(m_Repository.getAbsolutePath());
+      out.writeInt(dirs.size());
+      for (Map.Entry<String,Long> dir: dirs.entrySet()) {
+	out.writeUTF(dir.getKey());
+	out.writeLong(dir.getValue());
+      }
+      out.writeInt(jars.size());
+      for (Jar jar: jars) {
+	out.writeUTF(jar.path);
+	out.writeLong(jar.size);
+	out.writeLong(jar.lastModified);
+      }
+      out.writeInt(hashes.length);
+    }
+
+    tmp = new File(file.getAbsolutePath() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 65536))) {
+      out.writeInt(VERSION);
+      out.writeInt(header.size());
+      header.writeTo(out);
+      for (i = 0; i < hashes.length; i++) {
+	out.writeLong(hashes[i]);
+	out.writeInt(indices[i]);
+      }
+    }
+    // some platforms (eg Windows) don't replace existing files
+    if (!tmp.renameTo(file) && (!file.delete() || !tmp.renameTo(file))) {
+      tmp.delete();
+      throw new IOException("Failed to rename " + tmp + " to " + file);
+    }
+
+    // files of the previous format
+    new File(m_CacheDir, "locator-jars.bin").delete();
+    new File(m_CacheDir, "locator-table.bin").delete();
+  }
+
+  /**
+   * Checks whether the jar contains the class.
+   *
+   * @param jar		the jar to check
+   * @param cls		the class name
+   * @return		true if contained
+   */
+  protected boolean contains(File jar, String cls) {
+    ClassSet	classes;
+
+    classes = m_Contents.get(jar);
+    if (classes == null) {
+      try {
+	classes = ClassPathScanner.list(Arrays.asList(jar.getAbsolutePath()));
+      }
+      catch (Exception e) {
+	System.err.println("Failed to read jar: " + jar + "\n" + e);
+	classes = new ClassSet();
+      }
+      m_Contents.put(jar, classes);
+    }
+
+    return classes.contains(cls);
+  }
+
+  /**
+   * Locates the jars that contain the class. Candidates that only match
+   * the hash get removed. If the table turns out to be corrupt, the index
+   * gets rebuilt.
+   *
+   * @param cls		the class name
+   * @return		the jars (sorted by path), empty if not found
+   */
+  public List<File> locate(String cls) {
+    List<File>	result;
+    File	jar;
+    int		idx;
+    long	h;
+    int		lo;
+    int		hi;
+    int		mid;
+
+    result = new ArrayList<>();
+    if (m_Table == null)
+      return result;
+
+    // find first entry with hash >= h
+    h  = hash(cls);
+    lo = 0;
+    hi = m_NumEntries;
+    while (lo < hi) {
+      mid = (lo + hi) >>> 1;
+      if (m_Table.getLong(mid * ENTRY_SIZE) < h)
+	lo = mid + 1;
+      else
+	hi = mid;
+    }
+    while ((lo < m_NumEntries) && (m_Table.getLong(lo * ENTRY_SIZE) == h)) {
+      try {
+	idx = jarIndex(lo);
+      }
+      catch (IOException e) {
+	System.err.println("Corrupt class locator index, rebuilding: " + new File(m_CacheDir, INDEX_FILE) + "\n" + e);
+	discard();
+	try {
+	  update();
+	}
+	catch (Exception ex) {
+	  System.err.println("Failed to rebuild class locator index!\n" + ex);
+	  return new ArrayList<>();
+	}
+	return locate(cls);
+      }
+      jar = new File(m_Jars.get(idx).path);
+      if (contains(jar, cls))
+	result.add(jar);
+      lo++;
+    }
+    // the order of entries with the same hash is arbitrary
+    result.sort(null);
+
+    return result;
+  }
+
+  /**
+   * Compares two Maven versions: the numeric parts numerically, the others
+   * lexicographically; a version without qualifier (eg "1.0") is higher
+   * than one with (eg "1.0-SNAPSHOT", "1.0-beta").
+   *
+   * @param v1		the first version
+   * @param v2		the second version
+   * @return		less than, equal to or greater than zero if the first
+   * 			version is lower, equal or higher
+   */
+  public static int compareVersions(String v1, String v2) {
+    String[]	parts1;
+    String[]	parts2;
+    boolean	num1;
+    boolean	num2;
+    int		result;
+    int		i;
+
+    parts1 = v1.split("[.-]");
+    parts2 = v2.split("[.-]");
+    for (i = 0; i < Math.min(parts1.length, parts2.length); i++) {
+      num1 = parts1[i].matches("[0-9]{1,18}");
+      num2 = parts2[i].matches("[0-9]{1,18}");
+      if (num1 && num2)
+	result = Long.compare(Long.parseLong(parts1[i]), Long.parseLong(parts2[i]));
+      else if (num1)
+	result = 1;
+      else if (num2)
+	result = -1;
+      else
+	result = parts1[i].compareToIgnoreCase(parts2[i]);
+      if (result != 0)
+	return result;
+    }
+
+    // additional numeric part: higher; additional qualifier: lower
+    if (parts1.length > parts2.length)
+      return parts1[i].matches("[0-9]+") ? 1 : -1;
+    if (parts2.length > parts1.length)
+      return parts2[i].matches("[0-9]+") ? -1 : 1;
+
+    return 0;
+  }
+
+  /**
+   * Determines the Maven coordinates of the jar, based on the repository
+   * layout (group/artifact/version/artifact-version[-classifier].jar).
+   *
+   * @param jar		the jar in the repository
+   * @return		group, artifact, version and classifier (empty if
+   * 			none), null if not matching the layout
+   */
+  protected String[] coordinates(File jar) {
+    String	rel;
+    String[]	parts;
+    String	group;
+    String	artifact;
+    String	version;
+    String	classifier;
+    String	prefix;
+    String	name;
+    int		i;
+
+    if (!jar.getAbsolutePath().startsWith(m_Repository.getAbsolutePath() + File.separator))
+      return null;
+    rel   = jar.getAbsolutePath().substring(m_Repository.getAbsolutePath().length() + 1);
+    parts = rel.split(File.separator.equals("\\") ? "\\\\" : File.separator);
+    if (parts.length < 4)
+      return null;
+
+    artifact = parts[parts.length - 3];
+    version  = parts[parts.length - 2];
+    name     = parts[parts.length - 1];
+    prefix   = artifact + "-" + version;
+    if (!name.startsWith(prefix))
+      return null;
+    classifier = name.substring(prefix.length(), name.length() - ".jar".length());
+    if (classifier.startsWith("-"))
+      classifier = classifier.substring(1);
+    group = parts[0];
+    for (i = 1; i < parts.length - 3; i++)
+      group += "." + parts[i];
+
+    return new String[]{group, artifact, version, classifier};
+  }
+
+  /**
+   * Returns the artifact of the jar, ie the coordinates without version.
+   *
+   * @param jar		the jar in the repository
+   * @return		group:artifact[:classifier], the path if not
+   * 			matching the repository layout
+   */
+  public String toArtifact(File jar) {
+    String[]	coords;
+
+    coords = coordinates(jar);
+    if (coords == null)
+      return jar.getAbsolutePath();
+
+    return coords[0] + ":" + coords[1] + (coords[3].isEmpty() ? "" : ":" + coords[3]);
+  }
+
+  /**
+   * Chooses a jar from the candidates deterministically: of the artifact
+   * that comes first alphabetically, the highest version.
+   *
+   * @param candidates	the jars to choose from, see {@link #locate(String)}
+   * @return		the jar, null if no candidates
+   */
+  public File choose(List<File> candidates) {
+    File	result;
+    String	resultArtifact;
+    String[]	resultCoords;
+    String	artifact;
+    String[]	coords;
+    int		cmp;
+
+    result         = null;
+    resultArtifact = null;
+    resultCoords   = null;
+    for (File jar: candidates) {
+      artifact = toArtifact(jar);
+      coords   = coordinates(jar);
+      if (result == null) {
+	cmp = -1;
+      }
+      else {
+	cmp = artifact.compareTo(resultArtifact);
+	if ((cmp == 0) && (coords != null) && (resultCoords != null))
+	  cmp = -compareVersions(coords[2], resultCoords[2]);
+      }
+      if (cmp < 0) {
+	result         = jar;
+	resultArtifact = artifact;
+	resultCoords   = coords;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Generates the Maven dependency for the jar, based on the repository
+   * layout (group/artifact/version/artifact-version[-classifier].jar).
+   *
+   * @param jar		the jar in the repository
+   * @return		the dependency XML, null if not matching the layout
+   */
+  public String toDependency(File jar) {
+    String[]	coords;
+
+    coords = coordinates(jar);
+    if (coords == null)
+      return null;
+
+    return "<dependency>\n"
+      + "  <groupId>" + coords[0] + "</groupId>\n"
+      + "  <artifactId>" + coords[1] + "</artifactId>\n"
+      + "  <version>" + coords[2] + "</version>\n"
+      + (coords[3].isEmpty() ? "" : "  <classifier>" + coords[3] + "</classifier>\n")
+      + "</dependency>";
+  }
+
+  /**
+   * Returns a short description of the index.
+   *
+   * @return		the description
+   */
+  @Override
+  public String toString() {
+    return m_Repository + ": " + numJars() + " jars, " + numClasses() + " classes";
+  }
+}
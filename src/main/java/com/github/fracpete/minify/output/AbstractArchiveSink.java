@@ -0,0 +1,300 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractArchiveSink.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.output;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Ancestor for sinks that stream the build environment into an archive.
+ * Entries get compressed in parallel, but are written to the archive
+ * in the order they were added. The number of entries waiting to be
+ * written is bounded, to keep memory usage in check. The parent
+ * directories of the files get added as separate entries (names ending
+ * with "/"), using the modes determined by the layout.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @param <T>	the type of the compressed entries
+ */
+public abstract class AbstractArchiveSink<T>
+  implements OutputSink {
+
+  /** the archive to write. */
+  protected File m_Archive;
+
+  /** the layout to use. */
+  protected AssemblyLayout m_Layout;
+
+  /** the stream to write to. */
+  protected OutputStream m_Stream;
+
+  /** for compressing the entries. */
+  protected ExecutorService m_Executor;
+
+  /** the entries that are being compressed. */
+  protected Deque<Future<T>> m_Pending;
+
+  /** the maximum number of pending entries. */
+  protected int m_MaxPending;
+
+  /** the number of files. */
+  protected int m_FileCount;
+
+  /** the number of bytes. */
+  protected long m_ByteCount;
+
+  /** the number of bytes written to the archive. */
+  protected long m_Written;
+
+  /** the directories added to the archive so far. */
+  protected Set<String> m_Directories;
+
+  /**
+   * Initializes the sink.
+   *
+   * @param archive	the archive to write
+   * @param layout	the layout to apply
+   * @param numThreads	the number of threads for compressing
+   * @throws Exception	if opening of archive fails
+   */
+  protected AbstractArchiveSink(File archive, AssemblyLayout layout, int numThreads) throws Exception {
+    super();
+
+    numThreads   = Math.max(1, numThreads);
+    m_Archive    = archive;
+    m_Layout     = layout;
+    m_Stream     = new BufferedOutputStream(new FileOutputStream(archive), 65536);
+    m_Executor   = Executors.newFixedThreadPool(numThreads);
+    m_Pending    = new ArrayDeque<>();
+    m_MaxPending = numThreads * 4;
+    m_FileCount  = 0;
+    m_ByteCount  = 0;
+    m_Written     = 0;
+    m_Directories = new HashSet<>();
+  }
+
+  /**
+   * Compresses the entry.
+   *
+   * @param name	the name of the entry in the archive, ending with "/" for directories
+   * @param data	the uncompressed content
+   * @param lastModified	the timestamp
+   * @param mode	the (unix) mode, eg 0644
+   * @return		the compressed entry
+   * @throws Exception	if compression fails
+   */
+  protected abstract T compress(String name, byte[] data, long lastModified, int mode) throws Exception;
+
+  /**
+   * Writes the compressed entry to the stream.
+   *
+   * @param entry	the entry to write
+   * @throws Exception	if writing fails
+   */
+  protected abstract void write(T entry) throws Exception;
+
+  /**
+   * Writes any trailing data to the stream.
+   *
+   * @throws Exception	if writing fails
+   */
+  protected abstract void finish() throws Exception;
+
+  /**
+   * Writes the bytes to the stream, keeping track of the number of bytes.
+   *
+   * @param data	the bytes to write
+   * @throws Exception	if writing fails
+   */
+  protected void writeBytes(byte[] data) throws Exception {
+    m_Stream.write(data);
+    m_Written += data.length;
+  }
+
+  /**
+   * Writes the oldest pending entry.
+   *
+   * @throws Exception	if writing fails
+   */
+  protected void writeNext() throws Exception {
+    write(m_Pending.removeFirst().get());
+  }
+
+  /**
+   * Queues the entry for compression.
+   *
+   * @param name	the name of the entry in the archive
+   * @param task	the task that supplies the uncompressed content
+   * @param lastModified	the timestamp
+   * @param mode	the mode of the entry
+   * @throws Exception	if writing of pending entries fails
+   */
+  protected void queue(final String name, final DataSupplier task, final long lastModified, final int mode) throws Exception {
+    while (m_Pending.size() >= m_MaxPending)
+      writeNext();
+    m_Pending.addLast(m_Executor.submit(() -> compress(name, task.get(), lastModified, mode)));
+  }
+
+  /**
+   * Queues the file for compression, preceded by any parent directories
+   * that haven't been added yet.
+   *
+   * @param path	the relative path in the build environment
+   * @param task	the task that supplies the uncompressed content
+   * @param lastModified	the timestamp
+   * @param executable	whether the file is executable
+   * @return		true if queued, false if not part of the layout
+   * @throws Exception	if writing of pending entries fails
+   */
+  protected boolean queue(String path, DataSupplier task, long lastModified, boolean executable) throws Exception {
+    String	name;
+    String	dir;
+    int		pos;
+    int		dirMode;
+
+    name = m_Layout.map(path);
+    if (name == null)
+      return false;
+
+    dirMode = m_Layout.directoryMode(path);
+    pos     = name.indexOf('/');
+    while (pos > -1) {
+      dir = name.substring(0, pos + 1);
+      if (m_Directories.add(dir))
+	queue(dir, () -> new byte[0], lastModified, dirMode);
+      pos = name.indexOf('/', pos + 1);
+    }
+
+    queue(name, task, lastModified, m_Layout.fileMode(path, executable));
+    m_FileCount++;
+
+    return true;
+  }
+
+  /**
+   * For supplying the content of an entry.
+   */
+  protected interface DataSupplier {
+
+    /**
+     * Returns the content.
+     *
+     * @return		the content
+     * @throws Exception	if reading fails
+     */
+    public byte[] get() throws Exception;
+  }
+
+  /**
+   * Adds the file.
+   *
+   * @param path	the relative path in the build environment
+   * @param file	the file to add
+   * @throws Exception	if adding fails
+   */
+  @Override
+  public void addFile(String path, final File file) throws Exception {
+    if (queue(path, () -> Files.readAllBytes(file.toPath()), file.lastModified(), file.canExecute()))
+      m_ByteCount += file.length();
+  }
+
+  /**
+   * Adds the content as file.
+   *
+   * @param path	the relative path in the build environment
+   * @param data	the content
+   * @param lastModified	the timestamp to use
+   * @throws Exception	if adding fails
+   */
+  @Override
+  public void addBytes(String path, final byte[] data, long lastModified) throws Exception {
+    if (queue(path, () -> data, lastModified, false))
+      m_ByteCount += data.length;
+  }
+
+  /**
+   * Returns the number of files added so far.
+   *
+   * @return		the number of files
+   */
+  @Override
+  public int getFileCount() {
+    return m_FileCount;
+  }
+
+  /**
+   * Returns the number of (uncompressed) bytes added so far.
+   *
+   * @return		the number of bytes
+   */
+  @Override
+  public long getByteCount() {
+    return m_ByteCount;
+  }
+
+  /**
+   * Returns the number of bytes written to the archive so far.
+   *
+   * @return		the number of bytes
+   */
+  public long getCompressedCount() {
+    return m_Written;
+  }
+
+  /**
+   * Writes all pending entries and finishes the archive.
+   *
+   * @throws Exception	if finishing fails
+   */
+  @Override
+  public void close() throws Exception {
+    try {
+      while (!m_Pending.isEmpty())
+	writeNext();
+      finish();
+      m_Stream.flush();
+    }
+    finally {
+      m_Executor.shutdownNow();
+      m_Stream.close();
+    }
+  }
+
+  /**
+   * Returns the archive file.
+   *
+   * @return		the file
+   */
+  @Override
+  public String toString() {
+    return m_Archive.getAbsolutePath();
+  }
+}
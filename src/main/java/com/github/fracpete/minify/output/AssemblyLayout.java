@@ -0,0 +1,456 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AssemblyLayout.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.output;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Maps the relative paths of the build environment to the paths in a
+ * distribution archive. Without an assembly descriptor, the paths are
+ * used as is (below the base directory). With a Maven assembly descriptor
+ * (eg "src/main/assembly/bin.xml"), the "fileSet" and "file" definitions
+ * determine where files end up (including their "fileMode" and
+ * "directoryMode"), files not covered by the descriptor get dropped.
+ * Other sections, like "dependencySets", are not supported and only
+ * generate a warning.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class AssemblyLayout {
+
+  /**
+   * Container for a "fileSet" or "file" definition.
+   */
+  public static class Mapping {
+
+    /** the source directory or file (relative, forward slashes). */
+    public String source;
+
+    /** the output directory (relative, forward slashes). */
+    public String output;
+
+    /** the new file name (only for "file"), null if not renaming. */
+    public String destName;
+
+    /** whether a single file. */
+    public boolean file;
+
+    /** the include patterns. */
+    public List<Pattern> includes = new ArrayList<>();
+
+    /** the exclude patterns. */
+    public List<Pattern> excludes = new ArrayList<>();
+
+    /** the mode for files, -1 if not specified. */
+    public int fileMode = -1;
+
+    /** the mode for directories, -1 if not specified. */
+    public int directoryMode = -1;
+  }
+
+  /** the default mode for files. */
+  public final static int DEFAULT_FILE_MODE = 0644;
+
+  /** the default mode for executable files. */
+  public final static int DEFAULT_EXEC_MODE = 0755;
+
+  /** the default mode for directories. */
+  public final static int DEFAULT_DIRECTORY_MODE = 0755;
+
+  /** the sections of an assembly descriptor that are supported (or irrelevant). */
+  public final static String[] SUPPORTED = {
+    "id", "formats", "includeBaseDirectory", "baseDirectory", "fileSets", "files",
+  };
+
+  /** the base directory in the archive, empty if none. */
+  protected String m_BaseDir;
+
+  /** the mappings, null if identity layout. */
+  protected List<Mapping> m_Mappings;
+
+  /**
+   * Initializes an identity layout.
+   *
+   * @param baseDir	the base directory in the archive, empty string or null for none
+   */
+  public AssemblyLayout(String baseDir) {
+    super();
+
+    m_BaseDir  = normalize(baseDir);
+    m_Mappings = null;
+  }
+
+  /**
+   * Normalizes the path: forward slashes, no leading/trailing slashes.
+   *
+   * @param path	the path to normalize
+   * @return		the normalized path
+   */
+  protected static String normalize(String path) {
+    if (path == null)
+      return "";
+    path = path.trim().replace('\\', '/');
+    while (path.startsWith("/") || path.startsWith("./"))
+      path = path.substring(path.startsWith("/") ? 1 : 2);
+    while (path.endsWith("/"))
+      path = path.substring(0, path.length() - 1);
+    if (path.equals("."))
+      path = "";
+    return path;
+  }
+
+  /**
+   * Replaces the common Maven variables.
+   *
+   * @param path	the path to process
+   * @return		the processed path
+   */
+  protected static String expand(String path) {
+    if (path == null)
+      return "";
+    return path
+      .replace("${project.basedir}", "")
+      .replace("${basedir}", "")
+      .replace("${project.build.scriptSourceDirectory}", "src/main/scripts")
+      .replace("${project.build.sourceDirectory}", "src/main/java");
+  }
+
+  /**
+   * Turns an Ant-style pattern into a regular expression.
+   *
+   * @param pattern	the pattern, eg "**&#47;*.txt"
+   * @return		the regular expression
+   */
+  public static Pattern toPattern(String pattern) {
+    StringBuilder	result;
+    int			i;
+    char		c;
+
+    pattern = normalize(pattern);
+    if (pattern.endsWith("/**") || pattern.equals("**"))
+      pattern = pattern + "/*";
+    result = new StringBuilder();
+    for (i = 0; i < pattern.length(); i++) {
+      c = pattern.charAt(i);
+      if (pattern.startsWith("**/", i)) {
+	result.append("(.*/)?");
+	i += 2;
+      }
+      else if (pattern.startsWith("**", i)) {
+	result.append(".*");
+	i += 1;
+      }
+      else if (c == '*') {
+	result.append("[^/]*");
+      }
+      else if (c == '?') {
+	result.append("[^/]");
+      }
+      else {
+	result.append(Pattern.quote("" + c));
+      }
+    }
+
+    return Pattern.compile(result.toString());
+  }
+
+  /**
+   * Returns the text content of the child tags.
+   *
+   * @param xpath	the XPath instance to use
+   * @param node	the parent node
+   * @param expr	the expression for the children
+   * @return		the text content of the children
+   * @throws Exception	if evaluation fails
+   */
+  protected static List<String> values(XPath xpath, Node node, String expr) throws Exception {
+    List<String>	result;
+    NodeList		list;
+    int			i;
+
+    result = new ArrayList<>();
+    list   = (NodeList) xpath.evaluate(expr, node, XPathConstants.NODESET);
+    for (i = 0; i < list.getLength(); i++)
+      result.add(list.item(i).getTextContent().trim());
+
+    return result;
+  }
+
+  /**
+   * Returns the text content of the first child tag.
+   *
+   * @param xpath	the XPath instance to use
+   * @param node	the parent node
+   * @param expr	the expression for the child
+   * @return		the text content, null if not present
+   * @throws Exception	if evaluation fails
+   */
+  protected static String value(XPath xpath, Node node, String expr) throws Exception {
+    List<String>	values;
+
+    values = values(xpath, node, expr);
+    return values.isEmpty() ? null : values.get(0);
+  }
+
+  /**
+   * Parses the octal mode, eg "0755".
+   *
+   * @param mode	the mode to parse, null if not specified
+   * @return		the mode, -1 if not specified
+   * @throws Exception	if not a valid octal mode
+   */
+  protected static int parseMode(String mode) throws Exception {
+    int		result;
+
+    if ((mode == null) || mode.isEmpty())
+      return -1;
+    try {
+      result = Integer.parseInt(mode, 8);
+    }
+    catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid mode: " + mode);
+    }
+    if ((result < 0) || (result > 07777))
+      throw new IllegalArgumentException("Invalid mode: " + mode);
+
+    return result;
+  }
+
+  /**
+   * Reads the layout from the assembly descriptor.
+   *
+   * @param assembly	the assembly descriptor
+   * @param defBaseDir	the base directory to use if the descriptor doesn't
+   * 			disable "includeBaseDirectory"
+   * @return		the layout
+   * @throws Exception	if reading/parsing fails
+   */
+  public static AssemblyLayout read(File assembly, String defBaseDir) throws Exception {
+    AssemblyLayout		result;
+    DocumentBuilderFactory	factory;
+    Document			doc;
+    XPath			xpath;
+    NodeList			list;
+    Node			node;
+    Mapping			mapping;
+    String			baseDir;
+    String			include;
+    int				i;
+
+    factory = DocumentBuilderFactory.newInstance();
+    factory.setValidating(false);
+    factory.setNamespaceAware(false);
+    factory.setExpandEntityReferences(false);
+    doc   = factory.newDocumentBuilder().parse(assembly);
+    xpath = XPathFactory.newInstance().newXPath();
+
+    include = value(xpath, doc, "/assembly/includeBaseDirectory");
+    baseDir = value(xpath, doc, "/assembly/baseDirectory");
+    if ((include != null) && include.equals("false"))
+      baseDir = "";
+    else if (baseDir == null)
+      baseDir = defBaseDir;
+    result            = new AssemblyLayout(expand(baseDir));
+    result.m_Mappings = new ArrayList<>();
+
+    list = (NodeList) xpath.evaluate("/assembly/*", doc, XPathConstants.NODESET);
+    for (i = 0; i < list.getLength(); i++) {
+      if (!Arrays.asList(SUPPORTED).contains(list.item(i).getNodeName()))
+	System.err.println("Unsupported section in assembly descriptor, ignored: " + list.item(i).getNodeName());
+    }
+
+    // like Maven, a missing directory defaults to the project's basedir and
+    // a missing output directory to the root of the archive
+    list = (NodeList) xpath.evaluate("/assembly/fileSets/fileSet", doc, XPathConstants.NODESET);
+    for (i = 0; i < list.getLength(); i++) {
+      node    = list.item(i);
+      mapping = new Mapping();
+      mapping.source        = normalize(expand(value(xpath, node, "directory")));
+      mapping.output        = normalize(expand(value(xpath, node, "outputDirectory")));
+      mapping.fileMode      = parseMode(value(xpath, node, "fileMode"));
+      mapping.directoryMode = parseMode(value(xpath, node, "directoryMode"));
+      for (String pattern: values(xpath, node, "includes/include"))
+	mapping.includes.add(toPattern(pattern));
+      for (String pattern: values(xpath, node, "excludes/exclude"))
+	mapping.excludes.add(toPattern(pattern));
+      result.m_Mappings.add(mapping);
+    }
+
+    list = (NodeList) xpath.evaluate("/assembly/files/file", doc, XPathConstants.NODESET);
+    for (i = 0; i < list.getLength(); i++) {
+      node    = list.item(i);
+      mapping = new Mapping();
+      mapping.file     = true;
+      mapping.source   = normalize(expand(value(xpath, node, "source")));
+      if (mapping.source.isEmpty())
+	throw new IllegalArgumentException("Missing source for file #" + (i + 1) + " in assembly descriptor: " + assembly);
+      mapping.output   = normalize(expand(value(xpath, node, "outputDirectory")));
+      mapping.destName = value(xpath, node, "destName");
+      mapping.fileMode = parseMode(value(xpath, node, "fileMode"));
+      result.m_Mappings.add(mapping);
+    }
+
+    return result;
+  }
+
+  /**
+   * Prefixes the path with the base directory.
+   *
+   * @param dir		the directory, empty for none
+   * @param path	the path
+   * @return		the combined path
+   */
+  protected static String join(String dir, String path) {
+    if (dir.isEmpty())
+      return path;
+    return dir + "/" + path;
+  }
+
+  /**
+   * Returns the path relative to the mapping.
+   *
+   * @param mapping	the mapping to use
+   * @param path	the relative path in the build environment
+   * @return		the relative path, null if not below the mapping's source
+   */
+  protected static String relative(Mapping mapping, String path) {
+    if (mapping.source.isEmpty())
+      return path;
+    else if (path.startsWith(mapping.source + "/"))
+      return path.substring(mapping.source.length() + 1);
+    else
+      return null;
+  }
+
+  /**
+   * Returns the first mapping that covers the path.
+   *
+   * @param path	the relative path (forward slashes)
+   * @return		the mapping, null if none (or identity layout)
+   */
+  protected Mapping find(String path) {
+    String	rel;
+    boolean	matches;
+
+    if (m_Mappings == null)
+      return null;
+
+    for (Mapping mapping: m_Mappings) {
+      if (mapping.file) {
+	if (path.equals(mapping.source))
+	  return mapping;
+	continue;
+      }
+
+      rel = relative(mapping, path);
+      if (rel == null)
+	continue;
+
+      matches = mapping.includes.isEmpty();
+      for (Pattern pattern: mapping.includes) {
+	if (pattern.matcher(rel).matches()) {
+	  matches = true;
+	  break;
+	}
+      }
+      for (Pattern pattern: mapping.excludes) {
+	if (pattern.matcher(rel).matches()) {
+	  matches = false;
+	  break;
+	}
+      }
+      if (matches)
+	return mapping;
+    }
+
+    return null;
+  }
+
+  /**
+   * Maps the relative path of the build environment to the path in the
+   * archive.
+   *
+   * @param path	the relative path (forward slashes)
+   * @return		the path in the archive, null if to be dropped
+   */
+  public String map(String path) {
+    Mapping	mapping;
+    String	name;
+
+    if (m_Mappings == null)
+      return join(m_BaseDir, path);
+
+    mapping = find(path);
+    if (mapping == null)
+      return null;
+    if (mapping.file) {
+      name = (mapping.destName != null) ? mapping.destName : path.substring(path.lastIndexOf('/') + 1);
+      return join(m_BaseDir, join(mapping.output, name));
+    }
+
+    return join(m_BaseDir, join(mapping.output, relative(mapping, path)));
+  }
+
+  /**
+   * Returns the mode for the file in the archive.
+   *
+   * @param path	the relative path (forward slashes)
+   * @param executable	whether the file is executable in the build environment
+   * @return		the mode
+   */
+  public int fileMode(String path, boolean executable) {
+    Mapping	mapping;
+
+    mapping = find(path);
+    if ((mapping != null) && (mapping.fileMode != -1))
+      return mapping.fileMode;
+
+    return executable ? DEFAULT_EXEC_MODE : DEFAULT_FILE_MODE;
+  }
+
+  /**
+   * Returns the mode for the directories that the file gets placed in.
+   *
+   * @param path	the relative path (forward slashes)
+   * @return		the mode
+   */
+  public int directoryMode(String path) {
+    Mapping	mapping;
+
+    mapping = find(path);
+    if ((mapping != null) && (mapping.directoryMode != -1))
+      return mapping.directoryMode;
+
+    return DEFAULT_DIRECTORY_MODE;
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * DirectorySink.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.output;
+
+import nz.ac.waikato.cms.core.FileUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+
+/**
+ * Writes the minified build environment into a directory.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class DirectorySink
+  implements OutputSink {
+
+  /** the absolute path of the output directory. */
+  protected String m_OutputAbs;
+
+  /** the number of files. */
+  protected int m_FileCount;
+
+  /** the number of bytes. */
+  protected long m_ByteCount;
+
+  /**
+   * Initializes the sink.
+   *
+   * @param dir		the output directory
+   */
+  public DirectorySink(File dir) {
+    super();
+
+    m_OutputAbs = dir.getAbsolutePath();
+    m_FileCount = 0;
+    m_ByteCount = 0;
+  }
+
+  /**
+   * Returns the output file for the relative path.
+   *
+   * @param path	the relative path
+   * @return		the output file
+   */
+  protected File toFile(String path) {
+    return new File(m_OutputAbs + File.separator + path.replace('/', File.separatorChar));
+  }
+
+  /**
+   * Adds the file.
+   *
+   * @param path	the relative path in the build environment
+   * @param file	the file to add
+   * @throws Exception	if adding fails
+   */
+  @Override
+  public void addFile(String path, File file) throws Exception {
+    File	outputFile;
+
+    outputFile = toFile(path);
+    outputFile.getParentFile().mkdirs();
+    FileUtils.copyOrMove(file, outputFile, false, false);
+    if (file.canExecute())
+      outputFile.setExecutable(true, false);
+    m_FileCount++;
+    m_ByteCount += file.length();
+  }
+
+  /**
+   * Adds the content as file.
+   *
+   * @param path	the relative path in the build environment
+   * @param data	the content
+   * @param lastModified	the timestamp to use
+   * @throws Exception	if adding fails
+   */
+  @Override
+  public void addBytes(String path, byte[] data, long lastModified) throws Exception {
+    File	outputFile;
+
+    outputFile = toFile(path);
+    outputFile.getParentFile().mkdirs();
+    Files.write(outputFile.toPath(), data);
+    outputFile.setLastModified(lastModified);
+    m_FileCount++;
+    m_ByteCount += data.length;
+  }
+
+  /**
+   * Returns the number of files added so far.
+   *
+   * @return		the number of files
+   */
+  @Override
+  public int getFileCount() {
+    return m_FileCount;
+  }
+
+  /**
+   * Returns the number of (uncompressed) bytes added so far.
+   *
+   * @return		the number of bytes
+   */
+  @Override
+  public long getByteCount() {
+    return m_ByteCount;
+  }
+
+  /**
+   * Finishes the output. Does nothing.
+   */
+  @Override
+  public void close() {
+  }
+
+  /**
+   * Returns the output directory.
+   *
+   * @return		the directory
+   */
+  @Override
+  public String toString() {
+    return m_OutputAbs;
+  }
+}
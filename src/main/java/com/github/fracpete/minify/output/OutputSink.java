@@ -0,0 +1,73 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * OutputSink.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.output;
+
+import java.io.File;
+
+/**
+ * Interface for destinations of the minified build environment.
+ * Paths are relative to the root of the build environment and use
+ * forward slashes.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public interface OutputSink {
+
+  /**
+   * Adds the file.
+   *
+   * @param path	the relative path in the build environment
+   * @param file	the file to add
+   * @throws Exception	if adding fails
+   */
+  public void addFile(String path, File file) throws Exception;
+
+  /**
+   * Adds the content as file.
+   *
+   * @param path	the relative path in the build environment
+   * @param data	the content
+   * @param lastModified	the timestamp to use
+   * @throws Exception	if adding fails
+   */
+  public void addBytes(String path, byte[] data, long lastModified) throws Exception;
+
+  /**
+   * Returns the number of files added so far.
+   *
+   * @return		the number of files
+   */
+  public int getFileCount();
+
+  /**
+   * Returns the number of (uncompressed) bytes added so far.
+   *
+   * @return		the number of bytes
+   */
+  public long getByteCount();
+
+  /**
+   * Finishes the output.
+   *
+   * @throws Exception	if finishing fails
+   */
+  public void close() throws Exception;
+}
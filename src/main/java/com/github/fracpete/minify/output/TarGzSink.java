@@ -0,0 +1,381 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TarGzSink.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Streams the build environment into a tar.gz file. Like pigz, each tar
+ * entry (header and data) gets deflated in parallel into raw deflate
+ * blocks that end on a byte boundary (sync flush). The blocks get written
+ * in order between a single gzip header and a trailer with the combined
+ * CRC32 and size, forming a single gzip member.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class TarGzSink
+  extends AbstractArchiveSink<TarGzSink.Chunk> {
+
+  /** the tar block size. */
+  public final static int BLOCK = 512;
+
+  /** the gzip header (no name, no timestamp). */
+  public final static byte[] GZIP_HEADER = new byte[]{0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, 0};
+
+  /**
+   * A deflated tar entry.
+   */
+  public static class Chunk {
+
+    /** the raw deflate blocks. */
+    public byte[] data;
+
+    /** the CRC32 of the uncompressed data. */
+    public long crc;
+
+    /** the uncompressed size. */
+    public long size;
+  }
+
+  /** the compression level. */
+  protected int m_Level;
+
+  /** the CRC32 of the uncompressed data written so far. */
+  protected long m_CRC;
+
+  /** the uncompressed size written so far. */
+  protected long m_Size;
+
+  /**
+   * Initializes the sink.
+   *
+   * @param archive	the tar.gz file to write
+   * @param layout	the layout to apply
+   * @param numThreads	the number of threads for compressing
+   * @throws Exception	if opening of archive fails
+   */
+  public TarGzSink(File archive, AssemblyLayout layout, int numThreads) throws Exception {
+    super(archive, layout, numThreads);
+
+    m_Level = Deflater.DEFAULT_COMPRESSION;
+    m_CRC   = 0;
+    m_Size  = 0;
+    writeBytes(GZIP_HEADER);
+  }
+
+  /**
+   * Writes the string into the header.
+   *
+   * @param header	the header block
+   * @param offset	the offset of the field
+   * @param len		the length of the field
+   * @param value	the bytes to write
+   */
+  protected static void setField(byte[] header, int offset, int len, byte[] value) {
+    System.arraycopy(value, 0, header, offset, Math.min(len, value.length));
+  }
+
+  /**
+   * Writes the octal number into the header (zero-padded, NUL-terminated).
+   *
+   * @param header	the header block
+   * @param offset	the offset of the field
+   * @param len		the length of the field
+   * @param value	the number to write
+   */
+  protected static void setOctal(byte[] header, int offset, int len, long value) {
+    String	octal;
+
+    octal = Long.toOctalString(value);
+    while (octal.length() < len - 1)
+      octal = "0" + octal;
+    setField(header, offset, len - 1, octal.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Generates a ustar header block.
+   *
+   * @param name	the name (max 100 bytes)
+   * @param prefix	the prefix (max 155 bytes), empty if none
+   * @param size	the size of the data
+   * @param lastModified	the timestamp in msec
+   * @param mode	the mode, eg 0644
+   * @param type	the type flag
+   * @return		the header block
+   */
+  protected static byte[] header(byte[] name, byte[] prefix, long size, long lastModified, int mode, char type) {
+    byte[]	result;
+    long	checksum;
+    int		i;
+
+    result = new byte[BLOCK];
+    setField(result, 0, 100, name);
+    setOctal(result, 100, 8, mode);
+    setOctal(result, 108, 8, 0);
+    setOctal(result, 116, 8, 0);
+    setOctal(result, 124, 12, size);
+    setOctal(result, 136, 12, lastModified / 1000);
+    for (i = 148; i < 156; i++)
+      result[i] = ' ';
+    result[156] = (byte) type;
+    setField(result, 257, 6, "ustar\0".getBytes(StandardCharsets.US_ASCII));
+    setField(result, 263, 2, "00".getBytes(StandardCharsets.US_ASCII));
+    setField(result, 345, 155, prefix);
+
+    checksum = 0;
+    for (i = 0; i < BLOCK; i++)
+      checksum += result[i] & 0xFF;
+    setOctal(result, 148, 7, checksum);
+    result[154] = 0;
+
+    return result;
+  }
+
+  /**
+   * Writes the data, padded to full blocks.
+   *
+   * @param out		the stream to write to
+   * @param data	the data to write
+   */
+  protected static void writePadded(ByteArrayOutputStream out, byte[] data) {
+    int		rest;
+
+    out.write(data, 0, data.length);
+    rest = data.length % BLOCK;
+    if (rest > 0)
+      out.write(new byte[BLOCK - rest], 0, BLOCK - rest);
+  }
+
+  /**
+   * Multiplies the GF(2) matrix with the vector (from zlib's crc32.c).
+   *
+   * @param mat		the matrix
+   * @param vec		the vector
+   * @return		the product
+   */
+  protected static long gf2Times(long[] mat, long vec) {
+    long	result;
+    int		i;
+
+    result = 0;
+    i      = 0;
+    while (vec != 0) {
+      if ((vec & 1) != 0)
+	result ^= mat[i];
+      vec >>>= 1;
+      i++;
+    }
+
+    return result;
+  }
+
+  /**
+   * Squares the GF(2) matrix (from zlib's crc32.c).
+   *
+   * @param square	the matrix to fill in
+   * @param mat		the matrix to square
+   */
+  protected static void gf2Square(long[] square, long[] mat) {
+    int		i;
+
+    for (i = 0; i < 32; i++)
+      square[i] = gf2Times(mat, mat[i]);
+  }
+
+  /**
+   * Combines two CRC32 checksums into the one of the concatenated data
+   * (zlib's crc32_combine).
+   *
+   * @param crc1	the CRC32 of the first part
+   * @param crc2	the CRC32 of the second part
+   * @param len2	the length of the second part
+   * @return		the CRC32 of both parts
+   */
+  public static long combine(long crc1, long crc2, long len2) {
+    long[]	even;
+    long[]	odd;
+    long	row;
+    int		i;
+
+    if (len2 <= 0)
+      return crc1;
+
+    even   = new long[32];
+    odd    = new long[32];
+    odd[0] = 0xEDB88320L;
+    row    = 1;
+    for (i = 1; i < 32; i++) {
+      odd[i] = row;
+      row <<= 1;
+    }
+    gf2Square(even, odd);
+    gf2Square(odd, even);
+
+    do {
+      gf2Square(even, odd);
+      if ((len2 & 1) != 0)
+	crc1 = gf2Times(even, crc1);
+      len2 >>>= 1;
+      if (len2 == 0)
+	break;
+      gf2Square(odd, even);
+      if ((len2 & 1) != 0)
+	crc1 = gf2Times(odd, crc1);
+      len2 >>>= 1;
+    }
+    while (len2 != 0);
+
+    return crc1 ^ crc2;
+  }
+
+  /**
+   * Deflates the data into raw deflate blocks.
+   *
+   * @param data	the data to deflate
+   * @param last	whether this is the last chunk of the stream (finish
+   * 			instead of sync flush)
+   * @return		the deflated chunk
+   */
+  protected Chunk deflate(byte[] data, boolean last) {
+    Chunk			result;
+    CRC32			crc;
+    Deflater			deflater;
+    ByteArrayOutputStream	out;
+    byte[]			buffer;
+    int				len;
+
+    result      = new Chunk();
+    result.size = data.length;
+    crc         = new CRC32();
+    crc.update(data);
+    result.crc  = crc.getValue();
+
+    deflater = new Deflater(m_Level, true);
+    try {
+      deflater.setInput(data);
+      out    = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+      buffer = new byte[8192];
+      if (last) {
+	deflater.finish();
+	while (!deflater.finished()) {
+	  len = deflater.deflate(buffer);
+	  out.write(buffer, 0, len);
+	}
+      }
+      else {
+	// a full output buffer means there can be more output pending
+	do {
+	  len = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+	  out.write(buffer, 0, len);
+	}
+	while (len == buffer.length);
+      }
+    }
+    finally {
+      deflater.end();
+    }
+    result.data = out.toByteArray();
+
+    return result;
+  }
+
+  /**
+   * Assembles and deflates the tar entry.
+   *
+   * @param name	the name of the entry in the archive, ending with "/" for directories
+   * @param data	the uncompressed content
+   * @param lastModified	the timestamp
+   * @param mode	the mode, eg 0644
+   * @return		the deflated tar entry
+   * @throws Exception	if assembling fails
+   */
+  @Override
+  protected Chunk compress(String name, byte[] data, long lastModified, int mode) throws Exception {
+    ByteArrayOutputStream	tar;
+    byte[]			full;
+    byte[]			longName;
+    char			type;
+    int				pos;
+
+    tar  = new ByteArrayOutputStream(data.length + 3 * BLOCK);
+    full = name.getBytes(StandardCharsets.UTF_8);
+    type = name.endsWith("/") ? '5' : '0';
+    if (full.length <= 100) {
+      tar.write(header(full, new byte[0], data.length, lastModified, mode, type));
+    }
+    else {
+      pos = name.lastIndexOf('/', name.length() - 2);
+      if ((pos > 0)
+	&& (name.substring(0, pos).getBytes(StandardCharsets.UTF_8).length <= 155)
+	&& (name.substring(pos + 1).getBytes(StandardCharsets.UTF_8).length <= 100)) {
+	tar.write(header(
+	  name.substring(pos + 1).getBytes(StandardCharsets.UTF_8),
+	  name.substring(0, pos).getBytes(StandardCharsets.UTF_8),
+	  data.length, lastModified, mode, type));
+      }
+      else {
+	// GNU long name
+	longName = new byte[full.length + 1];
+	System.arraycopy(full, 0, longName, 0, full.length);
+	tar.write(header("././@LongLink".getBytes(StandardCharsets.US_ASCII), new byte[0], longName.length, 0, 0644, 'L'));
+	writePadded(tar, longName);
+	tar.write(header(full, new byte[0], data.length, lastModified, mode, type));
+      }
+    }
+    writePadded(tar, data);
+
+    return deflate(tar.toByteArray(), false);
+  }
+
+  /**
+   * Writes the deflated tar entry to the stream and updates CRC32 and size.
+   *
+   * @param entry	the entry to write
+   * @throws Exception	if writing fails
+   */
+  @Override
+  protected void write(Chunk entry) throws Exception {
+    writeBytes(entry.data);
+    m_CRC   = combine(m_CRC, entry.crc, entry.size);
+    m_Size += entry.size;
+  }
+
+  /**
+   * Writes the end-of-archive marker (two empty blocks) as final deflate
+   * block, followed by the gzip trailer.
+   *
+   * @throws Exception	if writing fails
+   */
+  @Override
+  protected void finish() throws Exception {
+    ByteArrayOutputStream	trailer;
+
+    write(deflate(new byte[2 * BLOCK], true));
+    trailer = new ByteArrayOutputStream(8);
+    ZipSink.writeInt(trailer, m_CRC);
+    ZipSink.writeInt(trailer, m_Size & 0xFFFFFFFFL);
+    writeBytes(trailer.toByteArray());
+  }
+}
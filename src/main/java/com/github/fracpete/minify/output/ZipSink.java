@@ -0,0 +1,301 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ZipSink.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Streams the build environment into a zip file, deflating the entries in
+ * parallel. Since {@link java.util.zip.ZipOutputStream} cannot write
+ * pre-compressed data, the zip structures are written directly. Zip64 is
+ * not supported, ie the archive is limited to 65535 entries and 4GB.
+ * The unix modes get stored in the external attributes of the entries.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ZipSink
+  extends AbstractArchiveSink<ZipSink.Entry> {
+
+  /** the method for stored entries. */
+  public final static int STORED = 0;
+
+  /** the method for deflated entries. */
+  public final static int DEFLATED = 8;
+
+  /** the flag for UTF-8 names. */
+  public final static int UTF8_FLAG = 0x0800;
+
+  /** the "version made by" (unix, 2.0), so the external attributes get interpreted as unix modes. */
+  public final static int VERSION_MADE_BY = (3 << 8) | 20;
+
+  /** the unix file type for regular files. */
+  public final static int S_IFREG = 0100000;
+
+  /** the unix file type for directories. */
+  public final static int S_IFDIR = 040000;
+
+  /** the MS-DOS directory attribute. */
+  public final static int DOS_DIRECTORY = 0x10;
+
+  /**
+   * A compressed entry.
+   */
+  public static class Entry {
+
+    /** the name (UTF-8). */
+    public byte[] name;
+
+    /** the compression method. */
+    public int method;
+
+    /** the DOS timestamp. */
+    public long dosTime;
+
+    /** the CRC32 of the uncompressed data. */
+    public long crc;
+
+    /** the uncompressed size. */
+    public long size;
+
+    /** the (compressed) data. */
+    public byte[] data;
+
+    /** the offset of the local header in the archive. */
+    public long offset;
+
+    /** the external attributes. */
+    public long attributes;
+  }
+
+  /** the compression level. */
+  protected int m_Level;
+
+  /** the central directory. */
+  protected ByteArrayOutputStream m_Central;
+
+  /** the number of entries written. */
+  protected int m_Entries;
+
+  /**
+   * Initializes the sink.
+   *
+   * @param archive	the zip file to write
+   * @param layout	the layout to apply
+   * @param numThreads	the number of threads for compressing
+   * @throws Exception	if opening of archive fails
+   */
+  public ZipSink(File archive, AssemblyLayout layout, int numThreads) throws Exception {
+    super(archive, layout, numThreads);
+
+    m_Level   = Deflater.DEFAULT_COMPRESSION;
+    m_Central = new ByteArrayOutputStream();
+    m_Entries = 0;
+  }
+
+  /**
+   * Converts the Java timestamp to DOS format.
+   *
+   * @param time	the timestamp in msec
+   * @return		the DOS timestamp
+   */
+  protected static long toDosTime(long time) {
+    Calendar	cal;
+    int		year;
+
+    cal = Calendar.getInstance();
+    cal.setTimeInMillis(time);
+    year = cal.get(Calendar.YEAR);
+    if (year < 1980)
+      return (1 << 21) | (1 << 16);
+    return ((year - 1980) << 25)
+      | ((cal.get(Calendar.MONTH) + 1) << 21)
+      | (cal.get(Calendar.DAY_OF_MONTH) << 16)
+      | (cal.get(Calendar.HOUR_OF_DAY) << 11)
+      | (cal.get(Calendar.MINUTE) << 5)
+      | (cal.get(Calendar.SECOND) >> 1);
+  }
+
+  /**
+   * Compresses the entry.
+   *
+   * @param name	the name of the entry in the archive, ending with "/" for directories
+   * @param data	the uncompressed content
+   * @param lastModified	the timestamp
+   * @param mode	the unix mode, eg 0644
+   * @return		the compressed entry
+   */
+  @Override
+  protected Entry compress(String name, byte[] data, long lastModified, int mode) {
+    Entry			result;
+    CRC32			crc;
+    Deflater			deflater;
+    ByteArrayOutputStream	out;
+    byte[]			buffer;
+    int				len;
+
+    result         = new Entry();
+    result.name    = name.getBytes(StandardCharsets.UTF_8);
+    result.dosTime = toDosTime(lastModified);
+    result.size    = data.length;
+    crc            = new CRC32();
+    crc.update(data);
+    result.crc     = crc.getValue();
+    if (name.endsWith("/"))
+      result.attributes = ((long) (S_IFDIR | mode) << 16) | DOS_DIRECTORY;
+    else
+      result.attributes = (long) (S_IFREG | mode) << 16;
+
+    deflater = new Deflater(m_Level, true);
+    try {
+      deflater.setInput(data);
+      deflater.finish();
+      out    = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+      buffer = new byte[8192];
+      while (!deflater.finished()) {
+	len = deflater.deflate(buffer);
+	out.write(buffer, 0, len);
+      }
+    }
+    finally {
+      deflater.end();
+    }
+
+    if ((data.length > 0) && (out.size() < data.length)) {
+      result.method = DEFLATED;
+      result.data   = out.toByteArray();
+    }
+    else {
+      result.method = STORED;
+      result.data   = data;
+    }
+
+    return result;
+  }
+
+  /**
+   * Writes a little-endian short.
+   *
+   * @param out		the stream to write to
+   * @param value	the value
+   */
+  protected static void writeShort(ByteArrayOutputStream out, int value) {
+    out.write(value & 0xFF);
+    out.write((value >>> 8) & 0xFF);
+  }
+
+  /**
+   * Writes a little-endian int.
+   *
+   * @param out		the stream to write to
+   * @param value	the value
+   */
+  protected static void writeInt(ByteArrayOutputStream out, long value) {
+    writeShort(out, (int) (value & 0xFFFF));
+    writeShort(out, (int) ((value >>> 16) & 0xFFFF));
+  }
+
+  /**
+   * Writes the fields shared by local and central header (from "version
+   * needed" to "extra field length").
+   *
+   * @param out		the stream to write to
+   * @param entry	the entry to write
+   */
+  protected void writeCommon(ByteArrayOutputStream out, Entry entry) {
+    writeShort(out, 20);  // version needed
+    writeShort(out, UTF8_FLAG);
+    writeShort(out, entry.method);
+    writeInt(out, entry.dosTime);
+    writeInt(out, entry.crc);
+    writeInt(out, entry.data.length);
+    writeInt(out, entry.size);
+    writeShort(out, entry.name.length);
+    writeShort(out, 0);  // extra
+  }
+
+  /**
+   * Writes the compressed entry to the stream.
+   *
+   * @param entry	the entry to write
+   * @throws Exception	if writing fails
+   */
+  @Override
+  protected void write(Entry entry) throws Exception {
+    ByteArrayOutputStream	header;
+
+    if (m_Entries == 0xFFFF)
+      throw new IllegalStateException("Too many entries for zip file (no Zip64 support): " + m_Archive);
+    if ((m_Written + entry.data.length > 0xFFFFFFFFL) || (entry.size > 0xFFFFFFFFL))
+      throw new IllegalStateException("Zip file too large (no Zip64 support): " + m_Archive);
+
+    entry.offset = m_Written;
+
+    // local header
+    header = new ByteArrayOutputStream(30 + entry.name.length);
+    writeInt(header, 0x04034b50L);
+    writeCommon(header, entry);
+    header.write(entry.name);
+    writeBytes(header.toByteArray());
+    writeBytes(entry.data);
+
+    // central directory
+    writeInt(m_Central, 0x02014b50L);
+    writeShort(m_Central, VERSION_MADE_BY);
+    writeCommon(m_Central, entry);
+    writeShort(m_Central, 0);  // comment
+    writeShort(m_Central, 0);  // disk
+    writeShort(m_Central, 0);  // internal attributes
+    writeInt(m_Central, entry.attributes);
+    writeInt(m_Central, entry.offset);
+    m_Central.write(entry.name);
+    m_Entries++;
+  }
+
+  /**
+   * Writes the central directory.
+   *
+   * @throws Exception	if writing fails
+   */
+  @Override
+  protected void finish() throws Exception {
+    ByteArrayOutputStream	end;
+    long			offset;
+
+    offset = m_Written;
+    writeBytes(m_Central.toByteArray());
+
+    end = new ByteArrayOutputStream(22);
+    writeInt(end, 0x06054b50L);
+    writeShort(end, 0);  // disk
+    writeShort(end, 0);  // disk with central directory
+    writeShort(end, m_Entries);
+    writeShort(end, m_Entries);
+    writeInt(end, m_Central.size());
+    writeInt(end, offset);
+    writeShort(end, 0);  // comment
+    writeBytes(end.toByteArray());
+  }
+}
@@ -0,0 +1,632 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Module.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.reactor;
+
+import com.github.fracpete.minify.core.ClassSet;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * A Maven module: coordinates, source and resource directories,
+ * dependencies and the jar in the target directory. Coordinates and
+ * properties get inherited from the parent module (the reactor POM).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Module {
+
+  /** the default source directory. */
+  public final static String DEFAULT_SOURCE_DIR = "src/main/java";
+
+  /** the default resource directory. */
+  public final static String DEFAULT_RESOURCE_DIR = "src/main/resources";
+
+  /**
+   * A dependency of the module.
+   */
+  public static class Dependency {
+
+    /** the group ID. */
+    public String groupId;
+
+    /** the artifact ID. */
+    public String artifactId;
+
+    /** the version. */
+    public String version;
+
+    /**
+     * Initializes the dependency.
+     *
+     * @param groupId		the group ID
+     * @param artifactId	the artifact ID
+     * @param version		the version
+     */
+    public Dependency(String groupId, String artifactId, String version) {
+      this.groupId    = groupId;
+      this.artifactId = artifactId;
+      this.version    = version;
+    }
+
+    /**
+     * Returns the jar of the dependency in the local Maven repository.
+     *
+     * @param repository	the local repository
+     * @return		the jar
+     */
+    public File toFile(File repository) {
+      return new File(repository.getAbsolutePath()
+	+ File.separator + groupId.replace(".", File.separator)
+	+ File.separator + artifactId
+	+ File.separator + version
+	+ File.separator + artifactId + "-" + version + ".jar");
+    }
+
+    /**
+     * Returns the coordinates.
+     *
+     * @return		the coordinates
+     */
+    @Override
+    public String toString() {
+      return groupId + ":" + artifactId + ":" + version;
+    }
+  }
+
+  /** the path of the module relative to the reactor (forward slashes, empty for the reactor itself). */
+  protected String m_Path;
+
+  /** the module directory. */
+  protected File m_Dir;
+
+  /** the parent, null if none. */
+  protected Module m_Parent;
+
+  /** the parsed pom.xml. */
+  protected Document m_Document;
+
+  /** the group ID. */
+  protected String m_GroupId;
+
+  /** the artifact ID. */
+  protected String m_ArtifactId;
+
+  /** the version. */
+  protected String m_Version;
+
+  /** the packaging. */
+  protected String m_Packaging;
+
+  /** the properties. */
+  protected Properties m_Properties;
+
+  /** the source directory (relative to module). */
+  protected String m_SourceDir;
+
+  /** the resource directories (relative to module). */
+  protected List<String> m_ResourceDirs;
+
+  /** the sub-modules. */
+  protected List<String> m_Modules;
+
+  /** the classes in the module's jar, null if not determined. */
+  protected ClassSet m_Classes;
+
+  /**
+   * Initializes the module.
+   */
+  protected Module() {
+    super();
+
+    m_Properties   = new Properties();
+    m_ResourceDirs = new ArrayList<>();
+    m_Modules      = new ArrayList<>();
+    m_Classes      = null;
+  }
+
+  /**
+   * Parses the pom.xml.
+   *
+   * @param pom		the file to parse
+   * @return		the document
+   * @throws Exception	if parsing fails
+   */
+  public static Document parse(File pom) throws Exception {
+    return parse(Files.readAllBytes(pom.toPath()));
+  }
+
+  /**
+   * Parses the pom.xml content.
+   *
+   * @param content	the content to parse
+   * @return		the document
+   * @throws Exception	if parsing fails
+   */
+  public static Document parse(byte[] content) throws Exception {
+    DocumentBuilderFactory 	factory;
+    DocumentBuilder 		builder;
+
+    factory = DocumentBuilderFactory.newInstance();
+    factory.setValidating(false);
+    factory.setNamespaceAware(false);
+    factory.setXIncludeAware(false);
+    factory.setExpandEntityReferences(false);
+    factory.setIgnoringComments(false);
+    factory.setIgnoringElementContentWhitespace(false);
+    builder = factory.newDocumentBuilder();
+
+    return builder.parse(new ByteArrayInputStream(content));
+  }
+
+  /**
+   * Evaluates the XPath expression.
+   *
+   * @param xpath	the XPath instance to use
+   * @param context	the context node
+   * @param expr	the expression
+   * @return		the trimmed text, null if empty
+   * @throws Exception	if evaluation fails
+   */
+  protected static String value(XPath xpath, Object context, String expr) throws Exception {
+    String	result;
+
+    result = ((String) xpath.evaluate(expr, context, XPathConstants.STRING)).trim();
+    if (result.isEmpty())
+      return null;
+
+    return result;
+  }
+
+  /**
+   * Evaluates the XPath expression.
+   *
+   * @param xpath	the XPath instance to use
+   * @param context	the context node
+   * @param expr	the expression
+   * @return		the trimmed texts of the matching nodes
+   * @throws Exception	if evaluation fails
+   */
+  protected static List<String> values(XPath xpath, Object context, String expr) throws Exception {
+    List<String>	result;
+    NodeList		list;
+    int			i;
+
+    result = new ArrayList<>();
+    list   = (NodeList) xpath.evaluate(expr, context, XPathConstants.NODESET);
+    for (i = 0; i < list.getLength(); i++) {
+      if (!list.item(i).getTextContent().trim().isEmpty())
+	result.add(list.item(i).getTextContent().trim());
+    }
+
+    return result;
+  }
+
+  /**
+   * Reads the module.
+   *
+   * @param reactor	the reactor directory
+   * @param path	the path of the module (forward slashes, empty for the reactor)
+   * @param parent	the parent module, null if none
+   * @return		the module
+   * @throws Exception	if reading fails
+   */
+  public static Module read(File reactor, String path, Module parent) throws Exception {
+    Module	result;
+    XPath	xpath;
+    NodeList	list;
+    Node	node;
+    int		i;
+    String	value;
+
+    result          = new Module();
+    result.m_Path   = path;
+    result.m_Dir    = path.isEmpty() ? reactor.getAbsoluteFile() : new File(reactor.getAbsoluteFile(), path.replace('/', File.separatorChar));
+    result.m_Parent = parent;
+    result.m_Document = parse(new File(result.m_Dir, "pom.xml"));
+
+    xpath = XPathFactory.newInstance().newXPath();
+    if (parent != null)
+      result.m_Properties.putAll(parent.m_Properties);
+    list = (NodeList) xpath.evaluate("/project/properties/*", result.m_Document, XPathConstants.NODESET);
+    for (i = 0; i < list.getLength(); i++) {
+      node = list.item(i);
+      result.m_Properties.setProperty(node.getNodeName(), node.getTextContent().trim());
+    }
+
+    result.m_ArtifactId = value(xpath, result.m_Document, "/project/artifactId");
+    result.m_GroupId    = value(xpath, result.m_Document, "/project/groupId");
+    if (result.m_GroupId == null)
+      result.m_GroupId = (parent != null) ? parent.m_GroupId : value(xpath, result.m_Document, "/project/parent/groupId");
+    result.m_Version = value(xpath, result.m_Document, "/project/version");
+    if (result.m_Version == null)
+      result.m_Version = (parent != null) ? parent.m_Version : value(xpath, result.m_Document, "/project/parent/version");
+    result.m_Version   = result.resolve(result.m_Version);
+    result.m_Packaging = value(xpath, result.m_Document, "/project/packaging");
+    if (result.m_Packaging == null)
+      result.m_Packaging = "jar";
+
+    value = value(xpath, result.m_Document, "/project/build/sourceDirectory");
+    result.m_SourceDir = (value == null) ? DEFAULT_SOURCE_DIR : result.relativize(result.resolve(value));
+    for (String dir: values(xpath, result.m_Document, "/project/build/resources/resource/directory"))
+      result.m_ResourceDirs.add(result.relativize(result.resolve(dir)));
+    if (result.m_ResourceDirs.isEmpty())
+      result.m_ResourceDirs.add(DEFAULT_RESOURCE_DIR);
+
+    result.m_Modules.addAll(values(xpath, result.m_Document, "/project/modules/module"));
+
+    return result;
+  }
+
+  /**
+   * Turns the (possibly absolute) directory into one relative to the
+   * module directory.
+   *
+   * @param dir		the directory
+   * @return		the relative directory (forward slashes)
+   */
+  protected String relativize(String dir) {
+    String	prefix;
+
+    dir    = dir.replace('\\', '/');
+    prefix = m_Dir.getAbsolutePath().replace('\\', '/') + "/";
+    if (dir.startsWith(prefix))
+      dir = dir.substring(prefix.length());
+    while (dir.endsWith("/"))
+      dir = dir.substring(0, dir.length() - 1);
+
+    return dir;
+  }
+
+  /**
+   * Resolves the ${...} variables: project coordinates, basedir and
+   * properties.
+   *
+   * @param value	the value to resolve
+   * @return		the resolved value
+   */
+  public String resolve(String value) {
+    String	result;
+    String	name;
+    String	replacement;
+    int		start;
+    int		end;
+
+    if (value == null)
+      return null;
+
+    result = value;
+    start  = result.indexOf("${");
+    while (start > -1) {
+      end = result.indexOf('}', start);
+      if (end == -1)
+	break;
+      name = result.substring(start + 2, end);
+      switch (name) {
+	case "project.version":
+	case "pom.version":
+	case "version":
+	  replacement = m_Version;
+	  break;
+	case "project.parent.version":
+	  replacement = (m_Parent != null) ? m_Parent.m_Version : null;
+	  break;
+	case "project.groupId":
+	  replacement = m_GroupId;
+	  break;
+	case "project.artifactId":
+	  replacement = m_ArtifactId;
+	  break;
+	case "project.basedir":
+	case "basedir":
+	  replacement = m_Dir.getAbsolutePath();
+	  break;
+	default:
+	  replacement = m_Properties.getProperty(name);
+      }
+      if ((replacement == null) || replacement.contains("${" + name + "}")) {
+	start = result.indexOf("${", end);
+	continue;
+      }
+      result = result.substring(0, start) + replacement + result.substring(end + 1);
+      start  = result.indexOf("${", start);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the compiler setting (eg "source" or "target") from the
+   * configuration of the maven-compiler-plugin or the corresponding
+   * "maven.compiler.*" property, in this module or its parents. The
+   * "release" setting takes precedence.
+   *
+   * @param name	the name of the setting, eg "source"
+   * @return		the resolved value, null if not set
+   * @throws Exception	if evaluation fails
+   */
+  public String getCompilerSetting(String name) throws Exception {
+    XPath	xpath;
+    String	result;
+
+    xpath = XPathFactory.newInstance().newXPath();
+    for (String key: new String[]{"release", name}) {
+      for (String plugins: new String[]{"/project/build/plugins", "/project/build/pluginManagement/plugins"}) {
+	result = value(xpath, m_Document, plugins + "/plugin[artifactId='maven-compiler-plugin']/configuration/" + key);
+	if (result != null)
+	  return resolve(result);
+      }
+      result = m_Properties.getProperty("maven.compiler." + key);
+      if (result != null)
+	return resolve(result);
+    }
+    if (m_Parent != null)
+      return m_Parent.getCompilerSetting(name);
+
+    return null;
+  }
+
+  /**
+   * Looks up the managed version of the dependency in this module or its
+   * parents.
+   *
+   * @param groupId	the group ID
+   * @param artifactId	the artifact ID
+   * @return		the version, null if not managed
+   * @throws Exception	if evaluation fails
+   */
+  protected String managedVersion(String groupId, String artifactId) throws Exception {
+    XPath	xpath;
+    String	result;
+
+    // coordinates get passed as variables, as they can contain quotes
+    xpath = XPathFactory.newInstance().newXPath();
+    xpath.setXPathVariableResolver((QName name) -> name.getLocalPart().equals("groupId") ? groupId : artifactId);
+    result = value(xpath, m_Document,
+      "/project/dependencyManagement/dependencies/dependency[groupId=$groupId and artifactId=$artifactId]/version");
+    if (result != null)
+      return resolve(result);
+    if (m_Parent != null)
+      return m_Parent.managedVersion(groupId, artifactId);
+
+    return null;
+  }
+
+  /**
+   * Returns the non-test dependencies, with variables and managed versions
+   * resolved. Dependencies without version get skipped.
+   *
+   * @return		the dependencies
+   * @throws Exception	if evaluation fails
+   */
+  public List<Dependency> getDependencies() throws Exception {
+    List<Dependency>	result;
+    XPath		xpath;
+    NodeList		list;
+    Node		node;
+    String		scope;
+    String		group;
+    String		artifact;
+    String		version;
+    int			i;
+
+    result = new ArrayList<>();
+    xpath  = XPathFactory.newInstance().newXPath();
+    list   = (NodeList) xpath.evaluate("/project/dependencies/dependency", m_Document, XPathConstants.NODESET);
+    for (i = 0; i < list.getLength(); i++) {
+      node  = list.item(i);
+      scope = value(xpath, node, "./scope");
+      if ((scope != null) && scope.equals("test"))
+	continue;
+      group    = resolve(value(xpath, node, "./groupId"));
+      artifact = resolve(value(xpath, node, "./artifactId"));
+      version  = resolve(value(xpath, node, "./version"));
+      if ((group == null) || (artifact == null))
+	continue;
+      if (version == null)
+	version = managedVersion(group, artifact);
+      if (version == null)
+	continue;
+      result.add(new Dependency(group, artifact, version));
+    }
+
+    return result;
+  }
+
+  /**
+   * Locates the jar in the target directory of the module, preferring the
+   * jar named after artifact and version over any other jar (sources,
+   * javadoc and tests jars get ignored).
+   *
+   * @param dir		the module directory
+   * @param artifactId	the artifact ID, can be null
+   * @param version	the version, can be null
+   * @return		the jar, null if none found
+   */
+  public static File findJar(File dir, String artifactId, String version) {
+    File	target;
+    File	exact;
+    File[]	files;
+
+    target = new File(dir.getAbsolutePath() + File.separator + "target");
+    if ((artifactId != null) && (version != null)) {
+      exact = new File(target, artifactId + "-" + version + ".jar");
+      if (exact.exists())
+	return exact;
+    }
+
+    files = target.listFiles((File d, String name) -> {
+      return name.endsWith(".jar") && !name.endsWith("-sources.jar") && !name.endsWith("-javadoc.jar") && !name.endsWith("-tests.jar");
+    });
+    if ((files == null) || (files.length == 0))
+      return null;
+    Arrays.sort(files);
+
+    return files[0];
+  }
+
+  /**
+   * Returns the jar in the target directory of the module.
+   *
+   * @return		the jar, null if not found
+   */
+  public File getJar() {
+    return findJar(m_Dir, m_ArtifactId, m_Version);
+  }
+
+  /**
+   * Returns the path relative to the reactor.
+   *
+   * @return		the path (forward slashes), empty for the reactor itself
+   */
+  public String getPath() {
+    return m_Path;
+  }
+
+  /**
+   * Returns the module directory.
+   *
+   * @return		the directory
+   */
+  public File getDir() {
+    return m_Dir;
+  }
+
+  /**
+   * Returns the parent module.
+   *
+   * @return		the parent, null if none
+   */
+  public Module getParent() {
+    return m_Parent;
+  }
+
+  /**
+   * Returns the group ID.
+   *
+   * @return		the group ID
+   */
+  public String getGroupId() {
+    return m_GroupId;
+  }
+
+  /**
+   * Returns the artifact ID.
+   *
+   * @return		the artifact ID
+   */
+  public String getArtifactId() {
+    return m_ArtifactId;
+  }
+
+  /**
+   * Returns the version.
+   *
+   * @return		the version
+   */
+  public String getVersion() {
+    return m_Version;
+  }
+
+  /**
+   * Returns the packaging.
+   *
+   * @return		the packaging, eg "jar" or "pom"
+   */
+  public String getPackaging() {
+    return m_Packaging;
+  }
+
+  /**
+   * Returns the source directory.
+   *
+   * @return		the directory (relative to the module, forward slashes)
+   */
+  public String getSourceDir() {
+    return m_SourceDir;
+  }
+
+  /**
+   * Returns the resource directories.
+   *
+   * @return		the directories (relative to the module, forward slashes)
+   */
+  public List<String> getResourceDirs() {
+    return m_ResourceDirs;
+  }
+
+  /**
+   * Returns the sub-modules.
+   *
+   * @return		the module paths (relative to this module)
+   */
+  public List<String> getModules() {
+    return m_Modules;
+  }
+
+  /**
+   * Sets the classes contained in the module's jar.
+   *
+   * @param value	the classes
+   */
+  public void setClasses(ClassSet value) {
+    m_Classes = value;
+  }
+
+  /**
+   * Checks whether the class belongs to this module, either according to
+   * the jar (if indexed) or the presence of the source file.
+   *
+   * @param cls		the class to check
+   * @return		true if part of the module
+   */
+  public boolean owns(String cls) {
+    if (m_Classes != null)
+      return m_Classes.contains(cls);
+
+    return new File(m_Dir, m_SourceDir.replace('/', File.separatorChar) + File.separator
+      + ClassSet.toRelativePath(cls, File.separatorChar, ".java")).exists();
+  }
+
+  /**
+   * Returns the coordinates and path of the module.
+   *
+   * @return		the description
+   */
+  @Override
+  public String toString() {
+    return m_GroupId + ":" + m_ArtifactId + ":" + m_Version + (m_Path.isEmpty() ? "" : " (" + m_Path + ")");
+  }
+}
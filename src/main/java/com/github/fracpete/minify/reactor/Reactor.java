@@ -0,0 +1,512 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Reactor.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.reactor;
+
+import com.github.fracpete.minify.core.ClassPathScanner;
+import com.github.fracpete.minify.reactor.Module.Dependency;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+/**
+ * A Maven build environment, either a single module or a reactor POM with
+ * modules (nested reactors get flattened). The module POMs get read and
+ * the module jars get indexed in parallel.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Reactor {
+
+  /** the reactor/single module. */
+  protected Module m_Root;
+
+  /** the modules (only the root for a single module). */
+  protected List<Module> m_Modules;
+
+  /** the number of threads to use. */
+  protected int m_NumThreads;
+
+  /**
+   * Initializes the reactor.
+   *
+   * @param root	the root module
+   * @param numThreads	the number of threads to use
+   */
+  protected Reactor(Module root, int numThreads) {
+    super();
+
+    m_Root       = root;
+    m_Modules    = new ArrayList<>();
+    m_NumThreads = numThreads;
+  }
+
+  /**
+   * Reads the build environment.
+   *
+   * @param dir		the directory with the (reactor) pom.xml
+   * @return		the reactor
+   * @throws Exception	if reading fails
+   */
+  public static Reactor read(File dir) throws Exception {
+    Reactor			result;
+    Module			root;
+    ExecutorService		executor;
+    List<Future<List<Module>>>	futures;
+
+    root   = Module.read(dir, "", null);
+    result = new Reactor(root, Runtime.getRuntime().availableProcessors());
+    if (root.getModules().isEmpty()) {
+      result.m_Modules.add(root);
+      return result;
+    }
+
+    futures  = new ArrayList<>();
+    executor = Executors.newFixedThreadPool(result.m_NumThreads);
+    try {
+      for (String path: root.getModules()) {
+	final String current = normalize(path);
+	futures.add(executor.submit(() -> readModule(dir, current, root)));
+      }
+      for (Future<List<Module>> future: futures)
+	result.m_Modules.addAll(future.get());
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    return result;
+  }
+
+  /**
+   * Normalizes the module path (forward slashes, no trailing slash).
+   *
+   * @param path	the path to normalize
+   * @return		the normalized path
+   */
+  protected static String normalize(String path) {
+    path = path.replace('\\', '/');
+    while (path.startsWith("./"))
+      path = path.substring(2);
+    while (path.endsWith("/"))
+      path = path.substring(0, path.length() - 1);
+    return path;
+  }
+
+  /**
+   * Reads the module and, in case of a nested reactor, its modules.
+   *
+   * @param dir		the reactor directory
+   * @param path	the path of the module
+   * @param parent	the parent module
+   * @return		the module(s) with classes, ie excluding nested reactors
+   * @throws Exception	if reading fails
+   */
+  protected static List<Module> readModule(File dir, String path, Module parent) throws Exception {
+    List<Module>	result;
+    Module		module;
+
+    result = new ArrayList<>();
+    module = Module.read(dir, path, parent);
+    if (module.getModules().isEmpty()) {
+      result.add(module);
+    }
+    else {
+      for (String sub: module.getModules())
+	result.addAll(readModule(dir, normalize(path + "/" + sub), module));
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns whether this is a multi-module build environment.
+   *
+   * @return		true if multi-module
+   */
+  public boolean isMultiModule() {
+    return !m_Root.getModules().isEmpty();
+  }
+
+  /**
+   * Returns the reactor/single module.
+   *
+   * @return		the root
+   */
+  public Module getRoot() {
+    return m_Root;
+  }
+
+  /**
+   * Returns the modules (only the root for a single module).
+   *
+   * @return		the modules
+   */
+  public List<Module> getModules() {
+    return m_Modules;
+  }
+
+  /**
+   * Returns the module with the specified coordinates.
+   *
+   * @param groupId	the group ID
+   * @param artifactId	the artifact ID
+   * @return		the module, null if not a module of this reactor
+   */
+  public Module getModule(String groupId, String artifactId) {
+    for (Module module: m_Modules) {
+      if (module.getGroupId().equals(groupId) && module.getArtifactId().equals(artifactId))
+	return module;
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the jars in the local Maven repository of all the dependencies
+   * of the modules that are not modules of this reactor themselves. Does
+   * not check whether the jars exist.
+   *
+   * @param repository	the local Maven repository
+   * @return		the jars
+   * @throws Exception	if determining the dependencies fails
+   */
+  public List<String> getDependencies(File repository) throws Exception {
+    Set<String>	result;
+
+    result = new LinkedHashSet<>();
+    for (Module module: m_Modules) {
+      for (Dependency dep: module.getDependencies()) {
+	if (getModule(dep.groupId, dep.artifactId) == null)
+	  result.add(dep.toFile(repository).getAbsolutePath());
+      }
+    }
+
+    return new ArrayList<>(result);
+  }
+
+  /**
+   * Lists the classes in the jars of the modules in parallel, for
+   * determining which module a class belongs to.
+   *
+   * @throws Exception	if reading of jars fails
+   */
+  public void index() throws Exception {
+    ExecutorService	executor;
+    List<Future<?>>	futures;
+
+    futures  = new ArrayList<>();
+    executor = Executors.newFixedThreadPool(m_NumThreads);
+    try {
+      for (Module module: m_Modules) {
+	final Module current = module;
+	final File jar = module.getJar();
+	if (jar == null)
+	  continue;
+	futures.add(executor.submit(() -> {
+	  current.setClasses(ClassPathScanner.list(Arrays.asList(jar.getAbsolutePath())));
+	  return null;
+	}));
+      }
+      for (Future<?> future: futures)
+	future.get();
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Returns the module the class belongs to.
+   *
+   * @param cls		the class
+   * @return		the module, null if no module owns the class
+   */
+  public Module ownerOf(String cls) {
+    if (m_Modules.size() == 1)
+      return m_Modules.get(0);
+    for (Module module: m_Modules) {
+      if (module.owns(cls))
+	return module;
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the reactor and the nested reactors, ie the modules with
+   * module entries.
+   *
+   * @return		the aggregators, the root first
+   */
+  public List<Module> getAggregators() {
+    Set<Module>	result;
+    Module	parent;
+
+    result = new LinkedHashSet<>();
+    result.add(m_Root);
+    for (Module module: m_Modules) {
+      parent = module.getParent();
+      while ((parent != null) && !parent.getModules().isEmpty()) {
+	result.add(parent);
+	parent = parent.getParent();
+      }
+    }
+
+    return new ArrayList<>(result);
+  }
+
+  /**
+   * Returns the module entries of the aggregator that lead to none of the
+   * kept modules.
+   *
+   * @param aggregator	the reactor or nested reactor
+   * @param kept	the modules to keep
+   * @return		the module entries (as listed in the pom.xml)
+   */
+  public List<String> getDroppedEntries(Module aggregator, Collection<Module> kept) {
+    List<String>	result;
+    String		path;
+    boolean		keep;
+
+    result = new ArrayList<>();
+    for (String entry: aggregator.getModules()) {
+      path = normalize(aggregator.getPath().isEmpty() ? entry : aggregator.getPath() + "/" + entry);
+      keep = false;
+      for (Module module: kept) {
+	if (module.getPath().equals(path) || module.getPath().startsWith(path + "/")) {
+	  keep = true;
+	  break;
+	}
+      }
+      if (!keep)
+	result.add(normalize(entry));
+    }
+
+    return result;
+  }
+
+  /**
+   * Removes the module entries from the pom.xml content, leaving the
+   * formatting intact.
+   *
+   * @param pom		the pom.xml content
+   * @param modules	the module paths to remove
+   * @return		the updated content
+   */
+  public static String removeModules(String pom, Collection<String> modules) {
+    for (String module: modules)
+      pom = pom.replaceAll("[ \\t]*<module>\\s*" + Pattern.quote(module) + "/?\\s*</module>[ \\t]*\\r?\\n?", "");
+
+    return pom;
+  }
+
+  /**
+   * Removes the dependencies on the specified modules from the pom.xml
+   * content, leaving the formatting intact. Only the dependencies in
+   * /project/dependencies get matched, using their resolved group and
+   * artifact IDs (determined via the DOM); dependency management and
+   * plugin dependencies stay untouched. The matching dependency elements
+   * then get cut from the text, along with their line if they are on a
+   * line of their own.
+   *
+   * @param module	the module the pom.xml belongs to, for resolving properties
+   * @param pom		the pom.xml content
+   * @param dropped	the modules to remove the dependencies on
+   * @return		the updated content, unchanged if nothing was removed
+   * @throws Exception	if parsing fails
+   */
+  public static String removeDependencies(Module module, String pom, Collection<Module> dropped) throws Exception {
+    Document		doc;
+    XPath		xpath;
+    NodeList		nodes;
+    Node		node;
+    String		group;
+    String		artifact;
+    Set<Integer>	remove;
+    List<int[]>		ranges;
+    StringBuilder	result;
+    int			i;
+    int			pos;
+    int			start;
+    int			end;
+
+    doc    = Module.parse(pom.getBytes(StandardCharsets.UTF_8));
+    xpath  = XPathFactory.newInstance().newXPath();
+    nodes  = (NodeList) xpath.evaluate("/project/dependencies/dependency", doc, XPathConstants.NODESET);
+    remove = new HashSet<>();
+    for (i = 0; i < nodes.getLength(); i++) {
+      node     = nodes.item(i);
+      group    = module.resolve(Module.value(xpath, node, "./groupId"));
+      artifact = module.resolve(Module.value(xpath, node, "./artifactId"));
+      for (Module drop: dropped) {
+	if (drop.getGroupId().equals(group) && drop.getArtifactId().equals(artifact)) {
+	  remove.add(i);
+	  break;
+	}
+      }
+    }
+    if (remove.isEmpty())
+      return pom;
+
+    ranges = dependencyRanges(pom);
+    if (ranges.size() != nodes.getLength())
+      throw new IllegalStateException("Located " + ranges.size() + " instead of " + nodes.getLength() + " dependencies in POM!");
+
+    result = new StringBuilder();
+    pos    = 0;
+    for (i = 0; i < ranges.size(); i++) {
+      if (!remove.contains(i))
+	continue;
+      // on a line of its own? remove the line
+      start = ranges.get(i)[0];
+      end   = ranges.get(i)[1];
+      while ((start > 0) && ((pom.charAt(start - 1) == ' ') || (pom.charAt(start - 1) == '\t')))
+	start--;
+      while ((end < pom.length()) && ((pom.charAt(end) == ' ') || (pom.charAt(end) == '\t')))
+	end++;
+      if (pom.startsWith("\r\n", end))
+	end += 2;
+      else if (pom.startsWith("\n", end))
+	end++;
+      if (((start > 0) && (pom.charAt(start - 1) != '\n')) || ((end < pom.length()) && (pom.charAt(end - 1) != '\n'))) {
+	start = ranges.get(i)[0];
+	end   = ranges.get(i)[1];
+      }
+      result.append(pom, pos, start);
+      pos = end;
+    }
+    result.append(pom, pos, pom.length());
+
+    return result.toString();
+  }
+
+  /**
+   * Determines the text ranges of the /project/dependencies/dependency
+   * elements, in document order. Comments, CDATA sections, processing
+   * instructions and the doctype get skipped.
+   *
+   * @param xml		the XML content
+   * @return		the ranges (start incl, end excl)
+   */
+  protected static List<int[]> dependencyRanges(String xml) {
+    List<int[]>		result;
+    List<String>	path;
+    int			pos;
+    int			end;
+    int			start;
+    char		quote;
+    String		tag;
+    String		name;
+    boolean		dependencies;
+
+    result = new ArrayList<>();
+    path   = new ArrayList<>();
+    start  = -1;
+    pos    = xml.indexOf('<');
+    while (pos > -1) {
+      if (xml.startsWith("<!--", pos)) {
+	end = xml.indexOf("-->", pos);
+	end = (end == -1) ? xml.length() : end + 3;
+      }
+      else if (xml.startsWith("<![CDATA[", pos)) {
+	end = xml.indexOf("]]>", pos);
+	end = (end == -1) ? xml.length() : end + 3;
+      }
+      else if (xml.startsWith("<?", pos)) {
+	end = xml.indexOf("?>", pos);
+	end = (end == -1) ? xml.length() : end + 2;
+      }
+      else if (xml.startsWith("<!", pos)) {
+	end = xml.indexOf('>', pos);
+	end = (end == -1) ? xml.length() : end + 1;
+      }
+      else {
+	// find end of tag, skipping quoted attribute values
+	end   = pos + 1;
+	quote = 0;
+	while (end < xml.length()) {
+	  if (quote != 0) {
+	    if (xml.charAt(end) == quote)
+	      quote = 0;
+	  }
+	  else if ((xml.charAt(end) == '"') || (xml.charAt(end) == '\'')) {
+	    quote = xml.charAt(end);
+	  }
+	  else if (xml.charAt(end) == '>') {
+	    break;
+	  }
+	  end++;
+	}
+	end  = Math.min(end + 1, xml.length());
+	tag  = xml.substring(pos, end);
+	name = tag.replaceAll("^</?\\s*([^\\s/>]+)[\\s\\S]*$", "$1");
+	dependencies = (path.size() == 2) && path.get(0).equals("project") && path.get(1).equals("dependencies");
+	if (tag.startsWith("</")) {
+	  if (!path.isEmpty())
+	    path.remove(path.size() - 1);
+	  if ((start > -1) && (path.size() == 2)) {
+	    result.add(new int[]{start, end});
+	    start = -1;
+	  }
+	}
+	else if (tag.endsWith("/>")) {
+	  if (dependencies && name.equals("dependency"))
+	    result.add(new int[]{pos, end});
+	}
+	else {
+	  if (dependencies && name.equals("dependency"))
+	    start = pos;
+	  path.add(name);
+	}
+      }
+      pos = xml.indexOf('<', end);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns a short description of the reactor.
+   *
+   * @return		the description
+   */
+  @Override
+  public String toString() {
+    return m_Root + (isMultiModule() ? ", " + m_Modules.size() + " module(s)" : "");
+  }
+}
@@ -0,0 +1,297 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ResourceReferences.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.resources;
+
+import com.github.fracpete.minify.core.ClassFileInfo;
+import com.github.fracpete.minify.core.ClassPathScanner;
+import com.github.fracpete.minify.core.ClassSet;
+import com.github.fracpete.minify.output.AssemblyLayout;
+import nz.ac.waikato.cms.core.PropsUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Determines which resources are referenced, based on the string constants
+ * of the kept classes (as used with getResource and the like) and the
+ * values of referenced props files. A string is interpreted as:
+ * <ul>
+ *   <li>absolute path, eg "/meka/gui/images/open.gif" or "meka/gui/images/open.gif"</li>
+ *   <li>path relative to the package of the class, eg "images/open.gif"</li>
+ *   <li>directory, when ending with "/", eg "meka/gui/images/" (keeps everything below)</li>
+ *   <li>file name, eg "open.gif", since such names often get combined with
+ *   a directory constant elsewhere (keeps all resources with that name)</li>
+ * </ul>
+ * Resources matching an explicit keep rule (Ant-style pattern, eg
+ * "meka/gui/**&#47;*.png") are always kept.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ResourceReferences {
+
+  /** the maximum length of strings to consider. */
+  public final static int MAX_LENGTH = 512;
+
+  /** the referenced paths (relative, using forward slashes). */
+  protected Set<String> m_Paths;
+
+  /** the referenced directories (relative, ending with forward slash). */
+  protected Set<String> m_Directories;
+
+  /** the referenced file names. */
+  protected Set<String> m_Names;
+
+  /** the keep rules. */
+  protected List<Pattern> m_Keep;
+
+  /**
+   * Initializes the references.
+   */
+  public ResourceReferences() {
+    super();
+
+    m_Paths       = new HashSet<>();
+    m_Directories = new HashSet<>();
+    m_Names       = new HashSet<>();
+    m_Keep        = new ArrayList<>();
+  }
+
+  /**
+   * Adds the keep rule.
+   *
+   * @param pattern	the Ant-style pattern, eg "meka/gui/**&#47;*.png"
+   */
+  public void addKeep(String pattern) {
+    m_Keep.add(AssemblyLayout.toPattern(pattern));
+  }
+
+  /**
+   * Returns the package path of the class or resource.
+   *
+   * @param path	the path of the class/resource, eg "meka/core/Foo.props"
+   * @return		the package path, eg "meka/core/", empty for the default package
+   */
+  protected static String packageOf(String path) {
+    int		pos;
+
+    pos = path.lastIndexOf('/');
+    if (pos == -1)
+      return "";
+
+    return path.substring(0, pos + 1);
+  }
+
+  /**
+   * Removes "." and ".." segments from the path.
+   *
+   * @param path	the path to normalize
+   * @return		the normalized path, null if leaving the root
+   */
+  protected static String normalize(String path) {
+    List<String>	parts;
+    StringBuilder	result;
+
+    parts = new ArrayList<>();
+    for (String part: path.split("/")) {
+      if (part.isEmpty() || part.equals("."))
+	continue;
+      if (part.equals("..")) {
+	if (parts.isEmpty())
+	  return null;
+	parts.remove(parts.size() - 1);
+      }
+      else {
+	parts.add(part);
+      }
+    }
+
+    result = new StringBuilder();
+    for (String part: parts) {
+      if (result.length() > 0)
+	result.append('/');
+      result.append(part);
+    }
+    if (path.endsWith("/") && (result.length() > 0))
+      result.append('/');
+
+    return result.toString();
+  }
+
+  /**
+   * Adds the string, interpreted relative to the package (and absolute).
+   *
+   * @param pkg		the package path, eg "meka/core/"
+   * @param str		the string
+   */
+  public void addString(String pkg, String str) {
+    String	path;
+
+    str = str.trim();
+    if (str.isEmpty() || (str.length() > MAX_LENGTH) || (str.indexOf('\n') > -1))
+      return;
+    str = str.replace('\\', '/');
+
+    if (str.indexOf('/') == -1) {
+      m_Names.add(str);
+      return;
+    }
+
+    for (String candidate: str.startsWith("/") ? new String[]{str} : new String[]{str, pkg + str}) {
+      path = normalize(candidate);
+      if ((path == null) || path.isEmpty())
+	continue;
+      if (path.endsWith("/"))
+	m_Directories.add(path);
+      else
+	m_Paths.add(path);
+    }
+  }
+
+  /**
+   * Adds the string constants of the class.
+   *
+   * @param info	the class
+   */
+  public void addClass(ClassFileInfo info) {
+    String	pkg;
+
+    pkg = packageOf(info.getName().replace('.', '/'));
+    for (String str: info.getStrings())
+      addString(pkg, str);
+  }
+
+  /**
+   * Adds the string constants of the kept classes found on the classpath,
+   * including their nested and anonymous classes.
+   *
+   * @param classpath	the classpath entries to scan
+   * @param classes	the kept (top-level) classes
+   * @throws Exception	if scanning fails
+   */
+  public void addClasses(List<String> classpath, ClassSet classes) throws Exception {
+    ClassPathScanner	scanner;
+
+    scanner = new ClassPathScanner();
+    scanner.setReferences(true);
+    for (ClassFileInfo info: scanner.scan(classpath, (String cls) -> classes.contains(ClassFileInfo.toTopLevel(cls))))
+      addClass(info);
+  }
+
+  /**
+   * Adds the keys and values of the props (comma-separated lists get split).
+   *
+   * @param path	the path of the props file
+   * @param props	the props
+   */
+  public void addProps(String path, Properties props) {
+    String	pkg;
+
+    pkg = packageOf(path);
+    for (String key: props.stringPropertyNames()) {
+      addString(pkg, key);
+      for (String value: props.getProperty(key).split(","))
+	addString(pkg, value);
+    }
+  }
+
+  /**
+   * Checks whether the resource is referenced.
+   *
+   * @param path	the path of the resource (relative, forward slashes)
+   * @return		true if referenced
+   */
+  public boolean isReferenced(String path) {
+    String	dir;
+
+    if (m_Paths.contains(path))
+      return true;
+    if (m_Names.contains(path.substring(path.lastIndexOf('/') + 1)))
+      return true;
+    dir = packageOf(path);
+    while (!dir.isEmpty()) {
+      if (m_Directories.contains(dir))
+	return true;
+      dir = packageOf(dir.substring(0, dir.length() - 1));
+    }
+    for (Pattern pattern: m_Keep) {
+      if (pattern.matcher(path).matches())
+	return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * Checks whether the resource is a props file.
+   *
+   * @param path	the path of the resource
+   * @return		true if props file
+   */
+  protected static boolean isProps(String path) {
+    return path.endsWith(".props") || path.endsWith(".properties");
+  }
+
+  /**
+   * Selects the referenced resources. Referenced props files contribute
+   * their keys/values as further references, until no more props files
+   * get referenced.
+   *
+   * @param root	the directory the resource paths are relative to
+   * @param resources	the resources to select from (relative, forward slashes)
+   * @return		the referenced resources
+   */
+  public List<String> select(File root, Collection<String> resources) {
+    List<String>	result;
+    Set<String>		processed;
+    Properties		props;
+    boolean		changed;
+
+    processed = new HashSet<>();
+    do {
+      changed = false;
+      for (String path: resources) {
+	if (!isProps(path) || processed.contains(path) || !isReferenced(path))
+	  continue;
+	processed.add(path);
+	props = new Properties();
+	if (PropsUtils.load(props, new File(root, path).getAbsolutePath())) {
+	  addProps(path, props);
+	  changed = true;
+	}
+      }
+    }
+    while (changed);
+
+    result = new ArrayList<>();
+    for (String path: resources) {
+      if (isReferenced(path))
+	result.add(path);
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TestUtils.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helper methods for tests: temporary directories, writing files and
+ * compiling sources.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class TestUtils {
+
+  /**
+   * Creates a temporary directory.
+   *
+   * @param prefix	the prefix for the name
+   * @return		the directory
+   * @throws Exception	if creating fails
+   */
+  public static File tempDir(String prefix) throws Exception {
+    return Files.createTempDirectory(prefix).toFile();
+  }
+
+  /**
+   * Deletes the file/directory.
+   *
+   * @param file	the file/directory to delete
+   */
+  public static void delete(File file) {
+    File[]	files;
+
+    if (file == null)
+      return;
+    files = file.listFiles();
+    if (files != null) {
+      for (File f: files)
+	delete(f);
+    }
+    file.delete();
+  }
+
+  /**
+   * Writes the file, creating any parent directories.
+   *
+   * @param dir		the base directory
+   * @param path	the relative path (forward slashes)
+   * @param content	the content
+   * @return		the file
+   * @throws Exception	if writing fails
+   */
+  public static File write(File dir, String path, String content) throws Exception {
+    File	file;
+
+    file = new File(dir, path);
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+    return file;
+  }
+
+  /**
+   * Collects the files below the directory.
+   *
+   * @param dir		the directory to traverse
+   * @param ext		the extension to look for
+   * @param files	for collecting the files
+   */
+  protected static void collect(File dir, String ext, List<String> files) {
+    File[]	list;
+
+    list = dir.listFiles();
+    if (list == null)
+      return;
+    for (File file: list) {
+      if (file.isDirectory())
+	collect(file, ext, files);
+      else if (file.getName().endsWith(ext))
+	files.add(file.getAbsolutePath());
+    }
+  }
+
+  /**
+   * Compiles all the sources in the source directory.
+   *
+   * @param srcDir	the directory with the sources
+   * @param outDir	the directory for the class files
+   * @throws Exception	if compilation fails
+   */
+  public static void compile(File srcDir, File outDir) throws Exception {
+    JavaCompiler		compiler;
+    List<String>		args;
+    ByteArrayOutputStream	err;
+
+    compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null)
+      throw new IllegalStateException("No Java compiler available!");
+    outDir.mkdirs();
+    args = new ArrayList<>();
+    args.add("-nowarn");
+    args.add("-d");
+    args.add(outDir.getAbsolutePath());
+    collect(srcDir, ".java", args);
+    err = new ByteArrayOutputStream();
+    if (compiler.run(null, null, err, args.toArray(new String[args.size()])) != 0)
+      throw new IllegalStateException("Compilation failed:\n" + err);
+  }
+}
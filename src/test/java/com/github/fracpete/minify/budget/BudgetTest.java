@@ -0,0 +1,115 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * BudgetTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.budget;
+
+import com.github.fracpete.minify.TestUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link Budget} and {@link Metrics}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class BudgetTest {
+
+  /**
+   * Creates a budget from the key-value pairs.
+   *
+   * @param pairs	the keys and values
+   * @return		the budget
+   */
+  protected Budget budget(String... pairs) {
+    Properties	props;
+    int		i;
+
+    props = new Properties();
+    for (i = 0; i < pairs.length; i += 2)
+      props.setProperty(pairs[i], pairs[i + 1]);
+
+    return new Budget(props);
+  }
+
+  /**
+   * Tests the validation of keys and values.
+   */
+  @Test
+  public void testValidate() {
+    assertNull(budget("max.classes", "100", "max.jar.bytes", " ", "startup.class", "a.B", "startup.runs", "5").validate());
+    assertNotNull(budget("max.classes", "100k").validate());
+    assertNotNull(budget("max.classes", "-1").validate());
+    assertNotNull(budget("max.jar.size", "100").validate());
+    assertNotNull(budget("startup.runs", "many").validate());
+    assertNotNull(budget("startup.run", "3").validate());
+  }
+
+  /**
+   * Tests that unmeasured metrics don't count as violations.
+   */
+  @Test
+  public void testUnmeasured() {
+    Budget	budget;
+    Metrics	metrics;
+
+    budget  = budget("max.classes", "100", "max.jar.bytes", "1000", "max.startup.ms", "500");
+    metrics = new Metrics();
+    metrics.set(Metrics.CLASSES, 90);
+    assertTrue(budget.check(metrics).isEmpty());
+    assertEquals(Arrays.asList(Metrics.JAR_BYTES, Metrics.STARTUP_MS), budget.unmeasured(metrics));
+    assertTrue(budget.report(metrics, null).contains("Within budget."));
+
+    metrics.set(Metrics.CLASSES, 120);
+    metrics.set(Metrics.JAR_BYTES, 800);
+    assertEquals(Arrays.asList("classes: 120 exceeds budget of 100 by 20"), budget.check(metrics));
+    assertEquals(Arrays.asList(Metrics.STARTUP_MS), budget.unmeasured(metrics));
+  }
+
+  /**
+   * Tests saving and loading the metrics.
+   *
+   * @throws Exception	if creating the temp directory fails
+   */
+  @Test
+  public void testSaveLoad() throws Exception {
+    File	dir;
+    Metrics	metrics;
+
+    dir = TestUtils.tempDir("metrics");
+    try {
+      metrics = new Metrics();
+      metrics.set(Metrics.CLASSES, 42);
+      assertNull(metrics.save(new File(dir, "metrics.props")));
+      assertEquals(Long.valueOf(42), Metrics.load(new File(dir, "metrics.props")).get(Metrics.CLASSES));
+      assertNotNull(metrics.save(new File(dir, "missing/metrics.props")));
+    }
+    finally {
+      TestUtils.delete(dir);
+    }
+  }
+}
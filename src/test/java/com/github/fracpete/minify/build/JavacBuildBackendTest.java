@@ -0,0 +1,188 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * JavacBuildBackendTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.build;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link JavacBuildBackend}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class JavacBuildBackendTest {
+
+  /** the build environment. */
+  protected File m_Dir;
+
+  /**
+   * Creates the build environment.
+   *
+   * @throws Exception	if creating fails
+   */
+  @Before
+  public void setUp() throws Exception {
+    m_Dir = Files.createTempDirectory("javac").toFile();
+  }
+
+  /**
+   * Removes the build environment.
+   *
+   * @throws Exception	if deleting fails
+   */
+  @After
+  public void tearDown() throws Exception {
+    delete(m_Dir);
+  }
+
+  /**
+   * Deletes the file/directory.
+   *
+   * @param file	the file/directory to delete
+   */
+  protected static void delete(File file) {
+    File[]	files;
+
+    files = file.listFiles();
+    if (files != null) {
+      for (File f: files)
+	delete(f);
+    }
+    file.delete();
+  }
+
+  /**
+   * Writes the file below the build environment.
+   *
+   * @param path	the relative path
+   * @param content	the content
+   * @throws Exception	if writing fails
+   */
+  protected void write(String path, String content) throws Exception {
+    File	file;
+
+    file = new File(m_Dir, path);
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Builds the environment.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  protected String build() {
+    JavacBuildBackend	backend;
+
+    backend = new JavacBuildBackend();
+    backend.setJarName("test.jar");
+    return backend.build(m_Dir, new BuildLog());
+  }
+
+  /**
+   * Returns the sorted entry names of the jar.
+   *
+   * @return		the names
+   * @throws Exception	if reading fails
+   */
+  protected List<String> entries() throws Exception {
+    List<String>	result;
+
+    result = new ArrayList<>();
+    try (JarFile jar = new JarFile(new File(m_Dir, "target/test.jar"))) {
+      jar.stream().forEach(e -> result.add(e.getName()));
+    }
+    Collections.sort(result);
+
+    return result;
+  }
+
+  /**
+   * Tests that dependents get recompiled and deleted sources disappear.
+   *
+   * @throws Exception	if test fails
+   */
+  @Test
+  public void testRebuild() throws Exception {
+    write("src/main/java/a/A.java", "package a; public class A { public static final int X = 1; }");
+    write("src/main/java/a/B.java", "package a; public class B { public static int get() { return A.X; } }");
+    write("src/main/java/a/C.java", "package a; public class C { }");
+    assertNull(build());
+    assertTrue(entries().contains("a/C.class"));
+
+    // change constant (gets inlined in B), remove C
+    Thread.sleep(1100);
+    write("src/main/java/a/A.java", "package a; public class A { public static final int X = 2; public static int y; }");
+    new File(m_Dir, "src/main/java/a/C.java").delete();
+    assertNull(build());
+    assertFalse(entries().contains("a/C.class"));
+    assertFalse(new File(m_Dir, "target/classes/a/C.class").exists());
+    assertTrue(new File(m_Dir, "target/classes/a/B.class").lastModified() >= new File(m_Dir, "src/main/java/a/A.java").lastModified());
+  }
+
+  /**
+   * Tests that a manifest in the resources gets merged rather than added twice.
+   *
+   * @throws Exception	if test fails
+   */
+  @Test
+  public void testManifestResource() throws Exception {
+    write("src/main/java/a/A.java", "package a; public class A { }");
+    write("src/main/resources/META-INF/MANIFEST.MF", "Manifest-Version: 1.0\nMain-Class: a.A\n\n");
+    assertNull(build());
+    try (JarFile jar = new JarFile(new File(m_Dir, "target/test.jar"))) {
+      assertNotNull(jar.getManifest());
+      assertEquals("a.A", jar.getManifest().getMainAttributes().getValue("Main-Class"));
+    }
+  }
+
+  /**
+   * Tests that unchanged environments don't get rebuilt.
+   *
+   * @throws Exception	if test fails
+   */
+  @Test
+  public void testUpToDate() throws Exception {
+    long	modified;
+
+    write("src/main/java/a/A.java", "package a; public class A { }");
+    assertNull(build());
+    modified = new File(m_Dir, "target/test.jar").lastModified();
+    Thread.sleep(1100);
+    assertNull(build());
+    assertEquals(modified, new File(m_Dir, "target/test.jar").lastModified());
+  }
+}
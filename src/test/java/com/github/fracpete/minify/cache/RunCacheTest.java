@@ -0,0 +1,201 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * RunCacheTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.cache;
+
+import com.github.fracpete.minify.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link RunCache} and {@link RunKey}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class RunCacheTest {
+
+  /** the working directory. */
+  protected File m_Dir;
+
+  /**
+   * Creates the working directory.
+   *
+   * @throws Exception	if creating fails
+   */
+  @Before
+  public void setUp() throws Exception {
+    m_Dir = TestUtils.tempDir("runcache");
+  }
+
+  /**
+   * Removes the working directory.
+   */
+  @After
+  public void tearDown() {
+    TestUtils.delete(m_Dir);
+  }
+
+  /**
+   * Reads the file as string.
+   *
+   * @param file	the file to read
+   * @return		the content
+   * @throws Exception	if reading fails
+   */
+  protected String read(File file) throws Exception {
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Tests storing and restoring a directory tree, and that modifying the
+   * output afterwards doesn't affect the cache.
+   *
+   * @throws Exception	if storing/restoring fails
+   */
+  @Test
+  public void testRoundTrip() throws Exception {
+    RunCache	cache;
+    File	output;
+    File	restored;
+    Properties	metadata;
+
+    output = new File(m_Dir, "output");
+    TestUtils.write(output, "pom.xml", "<project/>");
+    TestUtils.write(output, "src/main/java/a/A.java", "package a; class A {}");
+    TestUtils.write(output, "target/a.jar", "jar");
+
+    cache    = new RunCache(new File(m_Dir, "cache"), 1024 * 1024);
+    metadata = new Properties();
+    metadata.setProperty("classes", "1");
+    assertFalse(cache.contains("key1"));
+    assertNull(cache.restore("key1", new File(m_Dir, "none")));
+    cache.store("key1", output, new HashSet<>(Arrays.asList("target")), metadata);
+    assertTrue(cache.contains("key1"));
+
+    // in-place edit of the output must not reach the cache
+    Files.write(new File(output, "pom.xml").toPath(), "<changed/>".getBytes(StandardCharsets.UTF_8));
+
+    restored = new File(m_Dir, "restored");
+    metadata = cache.restore("key1", restored);
+    assertEquals("1", metadata.getProperty("classes"));
+    assertEquals("<project/>", read(new File(restored, "pom.xml")));
+    assertEquals("package a; class A {}", read(new File(restored, "src/main/java/a/A.java")));
+    assertFalse(new File(restored, "target").exists());
+
+    // in-place edit of the restored output must not reach the cache either
+    Files.write(new File(restored, "pom.xml").toPath(), "<changed/>".getBytes(StandardCharsets.UTF_8));
+    cache.restore("key1", new File(m_Dir, "restored2"));
+    assertEquals("<project/>", read(new File(m_Dir, "restored2/pom.xml")));
+    assertEquals(1, cache.getStat(RunCache.MISSES));
+    assertEquals(2, cache.getStat(RunCache.HITS));
+  }
+
+  /**
+   * Tests that overwriting a restored archive doesn't affect the cache.
+   *
+   * @throws Exception	if storing/restoring fails
+   */
+  @Test
+  public void testArchive() throws Exception {
+    RunCache	cache;
+    File	archive;
+
+    archive = TestUtils.write(m_Dir, "out.zip", "archive");
+    cache   = new RunCache(new File(m_Dir, "cache"), 1024 * 1024);
+    cache.store("key", archive, null, new Properties());
+    Files.write(archive.toPath(), new byte[0]);
+    cache.restore("key", archive);
+    assertEquals("archive", read(archive));
+  }
+
+  /**
+   * Tests that the least recently used entries get evicted.
+   *
+   * @throws Exception	if storing fails
+   */
+  @Test
+  public void testEviction() throws Exception {
+    RunCache	cache;
+    File	output;
+
+    output = TestUtils.write(m_Dir, "out.zip", "0123456789");
+    cache  = new RunCache(new File(m_Dir, "cache"), 25);
+    cache.store("key1", output, null, new Properties());
+    new File(m_Dir, "cache/runs/key1/" + RunCache.METADATA).setLastModified(System.currentTimeMillis() - 10000);
+    cache.store("key2", output, null, new Properties());
+    new File(m_Dir, "cache/runs/key2/" + RunCache.METADATA).setLastModified(System.currentTimeMillis() - 5000);
+    cache.store("key3", output, null, new Properties());
+    assertFalse(cache.contains("key1"));
+    assertTrue(cache.contains("key2"));
+    assertTrue(cache.contains("key3"));
+    assertEquals(1, cache.getStat(RunCache.EVICTIONS));
+  }
+
+  /**
+   * Tests that the key covers content, excludes and code.
+   *
+   * @throws Exception	if computing the key fails
+   */
+  @Test
+  public void testKey() throws Exception {
+    File	input;
+    RunKey	key1;
+    RunKey	key2;
+    RunKey	key3;
+
+    input = new File(m_Dir, "input");
+    TestUtils.write(input, "pom.xml", "<project/>");
+    TestUtils.write(input, "target/x.class", "1");
+
+    key1 = new RunKey();
+    key1.addTree(input, new HashSet<>(Arrays.asList("target")));
+    TestUtils.write(input, "target/x.class", "2");
+    key2 = new RunKey();
+    key2.addTree(input, new HashSet<>(Arrays.asList("target")));
+    assertEquals(key1.toString(), key2.toString());
+
+    TestUtils.write(input, "pom.xml", "<project></project>");
+    key3 = new RunKey();
+    key3.addTree(input, Collections.<String>emptySet());
+    assertNotEquals(key1.toString(), key3.toString());
+
+    key1 = new RunKey();
+    key1.addTree(input, new HashSet<>(Arrays.asList("target")));
+    key2 = new RunKey();
+    key2.addTree(input, new HashSet<>(Arrays.asList("target")));
+    key2.addCode("tool", RunKey.class);
+    assertNotEquals(key1.toString(), key2.toString());
+  }
+}
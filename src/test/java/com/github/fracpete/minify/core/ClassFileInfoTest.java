@@ -0,0 +1,170 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ClassFileInfoTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.core;
+
+import com.github.fracpete.minify.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link ClassFileInfo} (constant pool parsing).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ClassFileInfoTest {
+
+  /** the working directory. */
+  protected File m_Dir;
+
+  /**
+   * Compiles some classes.
+   *
+   * @throws Exception	if compiling fails
+   */
+  @Before
+  public void setUp() throws Exception {
+    m_Dir = TestUtils.tempDir("classfile");
+    TestUtils.write(m_Dir, "src/a/Base.java", "package a; public abstract class Base implements Runnable, java.io.Serializable { }");
+    TestUtils.write(m_Dir, "src/a/Iface.java", "package a; public interface Iface { b.Other get(); }");
+    TestUtils.write(m_Dir, "src/a/Impl.java",
+      "package a;\n"
+	+ "public class Impl extends Base implements Iface {\n"
+	+ "  public static final String NAME = \"images/open.gif\";\n"
+	+ "  public void run() { System.out.println(\"hello\"); java.util.Arrays.asList(new b.Other[0]); }\n"
+	+ "  public b.Other get() { return null; }\n"
+	+ "  public long big() { return 123456789012L; }\n"
+	+ "  public double d() { return 1.5; }\n"
+	+ "}\n");
+    TestUtils.write(m_Dir, "src/b/Other.java", "package b; public class Other { }");
+    TestUtils.compile(new File(m_Dir, "src"), new File(m_Dir, "classes"));
+  }
+
+  /**
+   * Removes the working directory.
+   */
+  @After
+  public void tearDown() {
+    TestUtils.delete(m_Dir);
+  }
+
+  /**
+   * Parses the class file.
+   *
+   * @param cls		the class to parse
+   * @param references	whether to parse the references
+   * @return		the info
+   * @throws Exception	if parsing fails
+   */
+  protected ClassFileInfo parse(String cls, boolean references) throws Exception {
+    try (InputStream in = new FileInputStream(new File(m_Dir, "classes/" + cls.replace('.', '/') + ".class"))) {
+      return ClassFileInfo.parse(in, references);
+    }
+  }
+
+  /**
+   * Tests the header information.
+   *
+   * @throws Exception	if test fails
+   */
+  @Test
+  public void testHeader() throws Exception {
+    ClassFileInfo	info;
+
+    info = parse("a.Base", false);
+    assertEquals("a.Base", info.getName());
+    assertEquals("java.lang.Object", info.getSuperName());
+    assertEquals(Arrays.asList("java.lang.Runnable", "java.io.Serializable"), Arrays.asList(info.getInterfaces()));
+    assertTrue(info.isAbstract());
+    assertFalse(info.isInterface());
+    assertTrue(info.getReferences().isEmpty());
+
+    info = parse("a.Iface", false);
+    assertTrue(info.isInterface());
+
+    info = parse("a.Impl", false);
+    assertEquals("a.Base", info.getSuperName());
+    assertFalse(info.isAbstract());
+  }
+
+  /**
+   * Tests the references and string constants (incl long/double constants,
+   * which occupy two constant pool slots).
+   *
+   * @throws Exception	if test fails
+   */
+  @Test
+  public void testReferences() throws Exception {
+    ClassFileInfo	info;
+
+    info = parse("a.Impl", true);
+    assertTrue(info.getReferences().contains("b.Other"));
+    assertTrue(info.getReferences().contains("a.Base"));
+    assertTrue(info.getReferences().contains("java.util.Arrays"));
+    assertFalse(info.getReferences().contains("a.Impl"));
+    assertTrue(info.getStrings().contains("images/open.gif"));
+    assertTrue(info.getStrings().contains("hello"));
+
+    info = parse("a.Iface", true);
+    assertTrue(info.getReferences().contains("b.Other"));
+  }
+
+  /**
+   * Tests the name conversions.
+   */
+  @Test
+  public void testNames() {
+    assertEquals("java.lang.String", ClassFileInfo.toClassName("java/lang/String"));
+    assertEquals("a.b.Outer", ClassFileInfo.toTopLevel("a.b.Outer$Inner"));
+    assertEquals("a.b.Outer", ClassFileInfo.toTopLevel("a.b.Outer$1"));
+    assertEquals("a.b.Outer", ClassFileInfo.toTopLevel("a.b.Outer"));
+    assertEquals("a.b$c.Outer", ClassFileInfo.toTopLevel("a.b$c.Outer"));
+  }
+
+  /**
+   * Tests that non-class files get rejected.
+   *
+   * @throws Exception	if test fails
+   */
+  @Test
+  public void testInvalid() throws Exception {
+    File	file;
+
+    file = TestUtils.write(m_Dir, "invalid.class", "not a class file");
+    try (InputStream in = new FileInputStream(file)) {
+      ClassFileInfo.parse(in);
+      fail("Expected exception");
+    }
+    catch (java.io.IOException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ClassSetTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link ClassSet}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ClassSetTest {
+
+  /**
+   * Returns a set with some classes.
+   *
+   * @return		the set
+   */
+  protected ClassSet create() {
+    return new ClassSet(Arrays.asList(
+      "meka.core.MLUtils",
+      "meka.classifiers.multilabel.BR",
+      "meka.classifiers.multilabel.CC",
+      "meka.core.A",
+      "Default",
+      "meka.classifiers.multilabel.BR"));
+  }
+
+  /**
+   * Tests adding and looking up classes.
+   */
+  @Test
+  public void testAddContains() {
+    ClassSet	set;
+
+    set = create();
+    assertEquals(5, set.size());
+    assertTrue(set.contains("meka.core.MLUtils"));
+    assertTrue(set.contains("Default"));
+    assertFalse(set.contains("meka.core"));
+    assertFalse(set.contains("meka.core.MLUtil"));
+    assertFalse(set.contains("meka.classifiers.BR"));
+    assertFalse(set.add("meka.core.A"));
+    assertTrue(set.add("meka.core.B"));
+    assertEquals(6, set.size());
+  }
+
+  /**
+   * Tests the iteration order and package queries.
+   */
+  @Test
+  public void testPackages() {
+    ClassSet	set;
+
+    set = create();
+    assertEquals(Arrays.asList("Default", "meka.classifiers.multilabel.BR", "meka.classifiers.multilabel.CC", "meka.core.A", "meka.core.MLUtils"), set.toList());
+    assertEquals(3, set.packages().size());
+    assertEquals(Arrays.asList("meka.core.A", "meka.core.MLUtils"), set.classesIn("meka.core", false));
+    assertEquals(0, set.classesIn("meka", false).size());
+    assertEquals(4, set.classesIn("meka", true).size());
+    assertTrue(set.containsPackage("meka.classifiers"));
+    assertFalse(set.containsPackage("meka.gui"));
+    assertEquals("meka/core/A.java", ClassSet.toRelativePath("meka.core.A", '/', ".java"));
+  }
+
+  /**
+   * Tests that removing classes prunes empty packages.
+   */
+  @Test
+  public void testRemove() {
+    ClassSet	set;
+
+    set = create();
+    assertTrue(set.remove("meka.classifiers.multilabel.BR"));
+    assertFalse(set.remove("meka.classifiers.multilabel.BR"));
+    assertFalse(set.remove("meka.gui.Missing"));
+    assertNotNull(set.getPackage("meka.classifiers.multilabel"));
+    assertTrue(set.remove("meka.classifiers.multilabel.CC"));
+    assertNull(set.getPackage("meka.classifiers.multilabel"));
+    assertNull(set.getPackage("meka.classifiers"));
+    assertNotNull(set.getPackage("meka"));
+    assertFalse(set.containsPackage("meka.classifiers"));
+    assertTrue(set.remove("meka.core.A"));
+    assertTrue(set.remove("meka.core.MLUtils"));
+    assertNull(set.getPackage("meka"));
+    assertTrue(set.remove("Default"));
+    assertTrue(set.isEmpty());
+    assertEquals(0, set.packages().size());
+    assertTrue(set.add("meka.core.A"));
+    assertEquals(Arrays.asList("meka.core.A"), set.toList());
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * DependencyGraphTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.graph;
+
+import com.github.fracpete.minify.TestUtils;
+import com.github.fracpete.minify.core.ClassFileInfo;
+import com.github.fracpete.minify.core.ClassPathScanner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link DependencyGraph}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class DependencyGraphTest {
+
+  /** the working directory. */
+  protected File m_Dir;
+
+  /** the parsed classes. */
+  protected List<ClassFileInfo> m_Classes;
+
+  /**
+   * Compiles and parses some classes: Seed -> Middle (via nested class)
+   * -> Leaf, Extra -> Leaf, Unused -> Leaf.
+   *
+   * @throws Exception	if compiling fails
+   */
+  @Before
+  public void setUp() throws Exception {
+    m_Dir = TestUtils.tempDir("graph");
+    TestUtils.write(m_Dir, "src/a/Seed.java", "package a; public class Seed { Middle m; }");
+    TestUtils.write(m_Dir, "src/a/Middle.java", "package a; public class Middle { static class Inner { Leaf l; } }");
+    TestUtils.write(m_Dir, "src/a/Leaf.java", "package a; public class Leaf { }");
+    TestUtils.write(m_Dir, "src/a/Extra.java", "package a; public class Extra { Unused u; }");
+    TestUtils.write(m_Dir, "src/a/Unused.java", "package a; public class Unused { Leaf l; }");
+    TestUtils.compile(new File(m_Dir, "src"), new File(m_Dir, "classes"));
+    m_Classes = new ClassPathScanner().scan(Arrays.asList(new File(m_Dir, "classes").getAbsolutePath()), null);
+  }
+
+  /**
+   * Removes the working directory.
+   */
+  @After
+  public void tearDown() {
+    TestUtils.delete(m_Dir);
+  }
+
+  /**
+   * Builds the graph.
+   *
+   * @param additional	the additional classes
+   * @return		the graph
+   */
+  protected DependencyGraph build(String... additional) {
+    return DependencyGraph.build(m_Classes, cls -> cls.startsWith("a."), Arrays.asList("a.Seed", "a.Seed"), Arrays.asList(additional));
+  }
+
+  /**
+   * Tests reachability and explanation (nested classes get collapsed).
+   */
+  @Test
+  public void testReachable() {
+    DependencyGraph	graph;
+
+    graph = build();
+    assertEquals(5, graph.numNodes());
+    assertEquals(Arrays.asList("a.Seed"), graph.getSeeds());
+    assertEquals(Arrays.asList("a.Leaf", "a.Middle", "a.Seed"), graph.reachable());
+    assertEquals(Arrays.asList("a.Seed", "a.Middle", "a.Leaf"), graph.explain("a.Leaf"));
+    assertEquals(Collections.emptyList(), graph.explain("a.Unused"));
+    assertEquals(Collections.emptyList(), graph.explain("b.Missing"));
+  }
+
+  /**
+   * Tests that additional classes get included without their dependencies.
+   */
+  @Test
+  public void testAdditional() {
+    DependencyGraph	graph;
+
+    graph = build("a.Extra");
+    assertEquals(Arrays.asList("a.Extra"), graph.getAdditional());
+    assertEquals(Arrays.asList("a.Extra", "a.Leaf", "a.Middle", "a.Seed"), graph.reachable());
+    assertEquals(Arrays.asList("a.Extra"), graph.explain("a.Extra"));
+    assertEquals(Arrays.asList("a.Extra"), graph.whatIfDropSeed("a.Extra"));
+  }
+
+  /**
+   * Tests the what-if queries.
+   */
+  @Test
+  public void testWhatIf() {
+    DependencyGraph	graph;
+
+    graph = build();
+    assertEquals(Arrays.asList("a.Leaf", "a.Middle", "a.Seed"), graph.whatIfDropSeed("a.Seed"));
+    assertNull(graph.whatIfDropSeed("a.Leaf"));
+    assertEquals(Arrays.asList("a.Leaf"), graph.whatIfDropEdge("a.Middle", "a.Leaf"));
+    assertEquals(Arrays.asList("a.Leaf"), graph.whatIfDropEdge("a.Middle$Inner", "a.Leaf"));
+    assertNull(graph.whatIfDropEdge("a.Seed", "a.Leaf"));
+  }
+
+  /**
+   * Tests the JSON output.
+   *
+   * @throws Exception	if test fails
+   */
+  @Test
+  public void testJson() throws Exception {
+    StringWriter	writer;
+    List<String>	names;
+
+    writer = new StringWriter();
+    build("a.Extra").writeJson(writer);
+    assertTrue(writer.toString().contains("\"classes\": [\"a.Extra\", \"a.Leaf\", \"a.Middle\", \"a.Seed\", \"a.Unused\"]"));
+    assertTrue(writer.toString().contains("\"seeds\": [3]"));
+    assertTrue(writer.toString().contains("\"additional\": [0]"));
+    names = new ArrayList<>();
+    names.add("a\"b");
+    assertEquals("[\"a\\\"b\"]", DependencyGraph.toJson(names));
+  }
+}
@@ -0,0 +1,214 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ClassHierarchyIndexTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.hierarchy;
+
+import com.github.fracpete.minify.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link ClassHierarchyIndex}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ClassHierarchyIndexTest {
+
+  /** the working directory. */
+  protected File m_Dir;
+
+  /** the jar with the compiled classes. */
+  protected File m_Jar;
+
+  /**
+   * Compiles some classes into a jar: interface a.Shape, abstract a.Base
+   * implementing it, a.Circle extending Base (with a nested class),
+   * a.b.Square implementing Shape, a.b.c.Line and a.Other.
+   *
+   * @throws Exception	if compiling fails
+   */
+  @Before
+  public void setUp() throws Exception {
+    File	classes;
+
+    m_Dir = TestUtils.tempDir("hierarchy");
+    TestUtils.write(m_Dir, "src/a/Shape.java", "package a; public interface Shape { }");
+    TestUtils.write(m_Dir, "src/a/Base.java", "package a; public abstract class Base implements Shape { }");
+    TestUtils.write(m_Dir, "src/a/Circle.java", "package a; public class Circle extends Base { public static class Inner extends Base { } }");
+    TestUtils.write(m_Dir, "src/a/Other.java", "package a; public class Other { }");
+    TestUtils.write(m_Dir, "src/a/b/Square.java", "package a.b; public class Square implements a.Shape { }");
+    TestUtils.write(m_Dir, "src/a/b/c/Line.java", "package a.b.c; public class Line { }");
+    classes = new File(m_Dir, "classes");
+    TestUtils.compile(new File(m_Dir, "src"), classes);
+    m_Jar = new File(m_Dir, "shapes.jar");
+    try (JarOutputStream out = new JarOutputStream(new FileOutputStream(m_Jar))) {
+      add(out, classes, "");
+    }
+  }
+
+  /**
+   * Adds the files below the directory to the jar.
+   *
+   * @param out		the jar to add to
+   * @param dir		the directory to add
+   * @param prefix	the entry prefix
+   * @throws Exception	if adding fails
+   */
+  protected void add(JarOutputStream out, File dir, String prefix) throws Exception {
+    File[]	files;
+
+    files = dir.listFiles();
+    Arrays.sort(files);
+    for (File file: files) {
+      if (file.isDirectory()) {
+	add(out, file, prefix + file.getName() + "/");
+      }
+      else {
+	out.putNextEntry(new JarEntry(prefix + file.getName()));
+	out.write(Files.readAllBytes(file.toPath()));
+	out.closeEntry();
+      }
+    }
+  }
+
+  /**
+   * Removes the working directory.
+   */
+  @After
+  public void tearDown() {
+    TestUtils.delete(m_Dir);
+  }
+
+  /**
+   * Sorts the list.
+   *
+   * @param list	the list to sort
+   * @return		the sorted list
+   */
+  protected List<String> sorted(List<String> list) {
+    List<String>	result;
+
+    result = new ArrayList<>(list);
+    Collections.sort(result);
+    return result;
+  }
+
+  /**
+   * Tests which seeds are recognized as expressions.
+   */
+  @Test
+  public void testIsExpression() {
+    assertTrue(ClassHierarchyIndex.isExpression("meka.core.*"));
+    assertTrue(ClassHierarchyIndex.isExpression("meka.**"));
+    assertTrue(ClassHierarchyIndex.isExpression("subtypes-of:meka.core.Shape"));
+    assertFalse(ClassHierarchyIndex.isExpression("meka.core.Shape"));
+  }
+
+  /**
+   * Tests the package expressions, which only return top-level classes.
+   *
+   * @throws Exception	if scanning fails
+   */
+  @Test
+  public void testPackages() throws Exception {
+    ClassHierarchyIndex	index;
+
+    index = ClassHierarchyIndex.scan(Arrays.asList(m_Jar.getAbsolutePath()));
+    assertEquals(Arrays.asList("a.Base", "a.Circle", "a.Other", "a.Shape"), sorted(index.expand("a.*")));
+    assertEquals(Arrays.asList("a.Base", "a.Circle", "a.Other", "a.Shape", "a.b.Square", "a.b.c.Line"), sorted(index.expand("a.**")));
+    assertEquals(Arrays.asList("a.b.Square", "a.b.c.Line"), sorted(index.expand("a.b.**")));
+    assertEquals(Arrays.asList("a.Circle"), index.expand("a.Circle"));
+  }
+
+  /**
+   * Tests the subtypes expression, which only returns concrete, top-level
+   * classes.
+   *
+   * @throws Exception	if scanning fails
+   */
+  @Test
+  public void testSubtypes() throws Exception {
+    ClassHierarchyIndex	index;
+
+    index = ClassHierarchyIndex.scan(Arrays.asList(m_Jar.getAbsolutePath()));
+    assertEquals(Arrays.asList("a.Circle", "a.b.Square"), sorted(index.expand("subtypes-of:a.Shape")));
+    assertEquals(Arrays.asList("a.Circle"), sorted(index.expand("subtypes-of:a.Base")));
+    assertNull(index.expand("subtypes-of:a.Unknown"));
+  }
+
+  /**
+   * Tests that the cache file per jar gets reused, rebuilt when the jar
+   * changes, skipped for uncached jars and evicted when unused.
+   *
+   * @throws Exception	if loading fails
+   */
+  @Test
+  public void testCache() throws Exception {
+    File		cacheDir;
+    File		cacheFile;
+    File		stale;
+    List<String>	classpath;
+    ClassHierarchyIndex	index;
+    int			size;
+
+    cacheDir  = new File(m_Dir, "cache");
+    classpath = Arrays.asList(m_Jar.getAbsolutePath());
+    cacheFile = ClassHierarchyIndex.cacheFile(cacheDir, m_Jar);
+    stale     = TestUtils.write(cacheDir, "hierarchy-0123.idx", "stale");
+    stale.setLastModified(System.currentTimeMillis() - 2 * ClassHierarchyIndex.MAX_AGE);
+
+    size = ClassHierarchyIndex.scan(classpath).size();
+
+    // uncached jar: no cache file
+    index = ClassHierarchyIndex.load(classpath, classpath, cacheDir);
+    assertEquals(size, index.size());
+    assertFalse(cacheFile.exists());
+
+    // first load writes the cache file and evicts the stale one
+    index = ClassHierarchyIndex.load(classpath, Collections.<String>emptyList(), cacheDir);
+    assertEquals(size, index.size());
+    assertTrue(cacheFile.exists());
+    assertFalse(stale.exists());
+    assertEquals(7, ClassHierarchyIndex.read(cacheFile, m_Jar).size());
+
+    // changed jar invalidates the cache file
+    assertTrue(m_Jar.setLastModified(m_Jar.lastModified() - 10000));
+    assertNull(ClassHierarchyIndex.read(cacheFile, m_Jar));
+    index = ClassHierarchyIndex.load(classpath, Collections.<String>emptyList(), cacheDir);
+    assertEquals(Arrays.asList("a.Circle", "a.b.Square"), sorted(index.expand("subtypes-of:a.Shape")));
+    assertEquals(7, ClassHierarchyIndex.read(cacheFile, m_Jar).size());
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ClassLocatorIndexTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.locator;
+
+import com.github.fracpete.minify.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link ClassLocatorIndex}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ClassLocatorIndexTest {
+
+  /** the working directory. */
+  protected File m_Dir;
+
+  /** the repository. */
+  protected File m_Repo;
+
+  /** the cache directory. */
+  protected File m_Cache;
+
+  /**
+   * Sets up a repository with two jars.
+   *
+   * @throws Exception	if writing fails
+   */
+  @Before
+  public void setUp() throws Exception {
+    m_Dir   = TestUtils.tempDir("locator");
+    m_Repo  = new File(m_Dir, "repo");
+    m_Cache = new File(m_Dir, "cache");
+    jar("org/x/x-core/1.0/x-core-1.0.jar", "org/x/Core.class", "org/x/Core$Inner.class");
+    jar("org/x/x-core/1.0/x-core-1.0-sources.jar", "org/x/Source.class");
+    jar("org/y/y-util/2.1/y-util-2.1.jar", "org/y/Util.class");
+  }
+
+  /**
+   * Removes the working directory.
+   */
+  @After
+  public void tearDown() {
+    TestUtils.delete(m_Dir);
+  }
+
+  /**
+   * Writes a jar with the (empty) entries to the repository.
+   *
+   * @param path	the path in the repository
+   * @param entries	the entries to add
+   * @return		the jar
+   * @throws Exception	if writing fails
+   */
+  protected File jar(String path, String... entries) throws Exception {
+    File	result;
+
+    result = new File(m_Repo, path);
+    result.getParentFile().mkdirs();
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(result))) {
+      for (String entry: entries) {
+	out.putNextEntry(new ZipEntry(entry));
+	out.closeEntry();
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Tests building, loading and querying the index.
+   *
+   * @throws Exception	if updating fails
+   */
+  @Test
+  public void testLocate() throws Exception {
+    ClassLocatorIndex	index;
+
+    index = new ClassLocatorIndex(m_Repo, m_Cache);
+    assertEquals(2, index.update());
+    assertEquals(2, index.numJars());
+    assertEquals(3, index.numClasses());
+    assertEquals(Arrays.asList(new File(m_Repo, "org/x/x-core/1.0/x-core-1.0.jar").getAbsoluteFile()), index.locate("org.x.Core$Inner"));
+    assertTrue(index.locate("org.x.Source").isEmpty());
+    assertTrue(index.locate("org.z.Missing").isEmpty());
+    assertTrue(index.toDependency(index.locate("org.y.Util").get(0)).contains("<artifactId>y-util</artifactId>"));
+    index.close();
+
+    index = new ClassLocatorIndex(m_Repo, m_Cache);
+    assertTrue(index.load());
+    assertEquals(1, index.locate("org.y.Util").size());
+    assertEquals(0, index.update());
+    index.close();
+  }
+
+  /**
+   * Tests that only changed directories get listed again.
+   *
+   * @throws Exception	if updating fails
+   */
+  @Test
+  public void testChangedDirectories() throws Exception {
+    ClassLocatorIndex	index;
+    File		dir;
+    long		lastModified;
+
+    index = new ClassLocatorIndex(m_Repo, m_Cache);
+    index.update();
+
+    // new version: its parent directory changes
+    jar("org/y/y-util/2.2/y-util-2.2.jar", "org/y/Util.class", "org/y/Util2.class");
+    assertEquals(1, index.update());
+    assertEquals(2, index.locate("org.y.Util").size());
+
+    // jar added to a directory whose timestamp is unchanged: not listed
+    dir          = new File(m_Repo, "org/x/x-core/1.0");
+    lastModified = dir.lastModified();
+    jar("org/x/x-core/1.0/x-core-1.0-extra.jar", "org/x/Extra.class");
+    assertTrue(dir.setLastModified(lastModified));
+    assertEquals(0, index.update());
+    assertTrue(index.locate("org.x.Extra").isEmpty());
+    index.close();
+  }
+
+  /**
+   * Tests that a truncated index gets rejected.
+   *
+   * @throws Exception	if updating fails
+   */
+  @Test
+  public void testCorrupt() throws Exception {
+    ClassLocatorIndex	index;
+    File		file;
+
+    index = new ClassLocatorIndex(m_Repo, m_Cache);
+    index.update();
+    index.close();
+
+    file = new File(m_Cache, ClassLocatorIndex.INDEX_FILE);
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(raf.length() - 1);
+    }
+    index = new ClassLocatorIndex(m_Repo, m_Cache);
+    assertFalse(index.load());
+    assertEquals(2, index.update());
+    assertEquals(1, index.locate("org.x.Core").size());
+    index.close();
+  }
+
+  /**
+   * Overwrites the jar index of the table entry in the index file.
+   *
+   * @param entry	the table entry
+   * @param value	the jar index to write
+   * @throws Exception	if writing fails
+   */
+  protected void corrupt(int entry, int value) throws Exception {
+    try (RandomAccessFile raf = new RandomAccessFile(new File(m_Cache, ClassLocatorIndex.INDEX_FILE), "rw")) {
+      raf.readInt();
+      raf.seek(8L + raf.readInt() + entry * ClassLocatorIndex.ENTRY_SIZE + 8);
+      raf.writeInt(value);
+    }
+  }
+
+  /**
+   * Tests that an invalid jar index in the middle of the table leads to a
+   * rebuild, both when locating and when updating.
+   *
+   * @throws Exception	if updating fails
+   */
+  @Test
+  public void testCorruptEntry() throws Exception {
+    ClassLocatorIndex	index;
+
+    index = new ClassLocatorIndex(m_Repo, m_Cache);
+    index.update();
+    index.close();
+
+    corrupt(1, 99);
+    index = new ClassLocatorIndex(m_Repo, m_Cache);
+    assertTrue(index.load());
+    assertEquals(1, index.locate("org.x.Core").size());
+    assertEquals(1, index.locate("org.x.Core$Inner").size());
+    assertEquals(1, index.locate("org.y.Util").size());
+    index.close();
+
+    corrupt(1, -1);
+    jar("org/z/z-new/1.0/z-new-1.0.jar", "org/z/New.class");
+    index = new ClassLocatorIndex(m_Repo, m_Cache);
+    assertEquals(3, index.update());
+    assertEquals(4, index.numClasses());
+    assertEquals(1, index.locate("org.x.Core$Inner").size());
+    index.close();
+  }
+
+  /**
+   * Tests that the highest version gets chosen from the candidates.
+   *
+   * @throws Exception	if updating fails
+   */
+  @Test
+  public void testChoose() throws Exception {
+    ClassLocatorIndex	index;
+    List<File>		candidates;
+
+    jar("org/y/y-util/2.10/y-util-2.10.jar", "org/y/Util.class");
+    jar("org/y/y-util/2.9/y-util-2.9.jar", "org/y/Util.class");
+    jar("org/y/y-util/2.10-SNAPSHOT/y-util-2.10-SNAPSHOT.jar", "org/y/Util.class");
+    index = new ClassLocatorIndex(m_Repo, m_Cache);
+    index.update();
+    candidates = index.locate("org.y.Util");
+    assertEquals(4, candidates.size());
+    assertEquals(new File(m_Repo, "org/y/y-util/2.10/y-util-2.10.jar").getAbsoluteFile(), index.choose(candidates));
+    assertEquals("org.y:y-util", index.toArtifact(candidates.get(0)));
+    index.close();
+
+    assertTrue(ClassLocatorIndex.compareVersions("2.10", "2.9") > 0);
+    assertTrue(ClassLocatorIndex.compareVersions("1.0", "1.0-SNAPSHOT") > 0);
+    assertTrue(ClassLocatorIndex.compareVersions("1.0.1", "1.0") > 0);
+    assertTrue(ClassLocatorIndex.compareVersions("1.0-alpha", "1.0-beta") < 0);
+    assertEquals(0, ClassLocatorIndex.compareVersions("3.1", "3.1"));
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AssemblyLayoutTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.output;
+
+import com.github.fracpete.minify.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link AssemblyLayout}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class AssemblyLayoutTest {
+
+  /** the working directory. */
+  protected File m_Dir;
+
+  /**
+   * Creates the working directory.
+   *
+   * @throws Exception	if creating fails
+   */
+  @Before
+  public void setUp() throws Exception {
+    m_Dir = TestUtils.tempDir("layout");
+  }
+
+  /**
+   * Removes the working directory.
+   */
+  @After
+  public void tearDown() {
+    TestUtils.delete(m_Dir);
+  }
+
+  /**
+   * Tests the identity layout.
+   */
+  @Test
+  public void testIdentity() {
+    AssemblyLayout	layout;
+
+    layout = new AssemblyLayout("meka-1.0");
+    assertEquals("meka-1.0/pom.xml", layout.map("pom.xml"));
+    assertEquals(0644, layout.fileMode("pom.xml", false));
+    assertEquals(0755, layout.fileMode("bin/run.sh", true));
+    assertEquals(0755, layout.directoryMode("bin/run.sh"));
+  }
+
+  /**
+   * Tests that missing directory/outputDirectory default to the basedir
+   * and the archive root, and that the modes get picked up.
+   *
+   * @throws Exception	if reading fails
+   */
+  @Test
+  public void testDefaultsAndModes() throws Exception {
+    File		assembly;
+    AssemblyLayout	layout;
+
+    assembly = TestUtils.write(m_Dir, "bin.xml",
+      "<assembly><id>bin</id><includeBaseDirectory>false</includeBaseDirectory>"
+	+ "<fileSets>"
+	+ "<fileSet><directory>src/main/scripts</directory><outputDirectory>bin</outputDirectory>"
+	+ "<fileMode>0750</fileMode><directoryMode>0700</directoryMode></fileSet>"
+	+ "<fileSet><includes><include>*.txt</include></includes></fileSet>"
+	+ "</fileSets>"
+	+ "<files><file><source>pom.xml</source><destName>project.xml</destName></file></files>"
+	+ "<dependencySets><dependencySet><outputDirectory>lib</outputDirectory></dependencySet></dependencySets>"
+	+ "</assembly>");
+    layout = AssemblyLayout.read(assembly, "ignored");
+
+    assertEquals("bin/run.sh", layout.map("src/main/scripts/run.sh"));
+    assertEquals(0750, layout.fileMode("src/main/scripts/run.sh", false));
+    assertEquals(0700, layout.directoryMode("src/main/scripts/run.sh"));
+    assertEquals("README.txt", layout.map("README.txt"));
+    assertEquals(0644, layout.fileMode("README.txt", false));
+    assertEquals("project.xml", layout.map("pom.xml"));
+    assertNull(layout.map("src/main/java/A.java"));
+  }
+
+  /**
+   * Tests that invalid modes get rejected.
+   *
+   * @throws Exception	if writing fails
+   */
+  @Test
+  public void testInvalidMode() throws Exception {
+    File	assembly;
+
+    assembly = TestUtils.write(m_Dir, "bin.xml",
+      "<assembly><fileSets><fileSet><fileMode>0789</fileMode></fileSet></fileSets></assembly>");
+    try {
+      AssemblyLayout.read(assembly, "");
+      fail("Invalid mode accepted");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,290 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TarGzSinkTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.output;
+
+import com.github.fracpete.minify.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link TarGzSink}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class TarGzSinkTest {
+
+  /** the working directory. */
+  protected File m_Dir;
+
+  /**
+   * Creates the working directory.
+   *
+   * @throws Exception	if creating fails
+   */
+  @Before
+  public void setUp() throws Exception {
+    m_Dir = TestUtils.tempDir("targz");
+  }
+
+  /**
+   * Removes the working directory.
+   */
+  @After
+  public void tearDown() {
+    TestUtils.delete(m_Dir);
+  }
+
+  /**
+   * Decompresses the tar.gz file, which also verifies CRC32 and size in
+   * the gzip trailer.
+   *
+   * @param archive	the tar.gz file
+   * @return		the tar data
+   * @throws Exception	if reading fails
+   */
+  protected byte[] decompress(File archive) throws Exception {
+    ByteArrayOutputStream	tar;
+    byte[]			buffer;
+    int				len;
+
+    tar    = new ByteArrayOutputStream();
+    buffer = new byte[8192];
+    try (InputStream in = new GZIPInputStream(new FileInputStream(archive))) {
+      while ((len = in.read(buffer)) > -1)
+	tar.write(buffer, 0, len);
+    }
+
+    return tar.toByteArray();
+  }
+
+  /**
+   * Reads the names and contents of the tar entries.
+   *
+   * @param archive	the tar.gz file
+   * @return		the entry names with their contents
+   * @throws Exception	if reading fails
+   */
+  protected Map<String,byte[]> contents(File archive) throws Exception {
+    Map<String,byte[]>	result;
+    byte[]		data;
+    byte[]		content;
+    String		name;
+    int			pos;
+    int			size;
+
+    data   = decompress(archive);
+    result = new LinkedHashMap<>();
+    pos    = 0;
+    while ((pos + TarGzSink.BLOCK <= data.length) && (data[pos] != 0)) {
+      name    = new String(data, pos, 100, StandardCharsets.UTF_8).replace("\0", "");
+      size    = Integer.parseInt(new String(data, pos + 124, 11, StandardCharsets.US_ASCII), 8);
+      content = new byte[size];
+      System.arraycopy(data, pos + TarGzSink.BLOCK, content, 0, size);
+      result.put(name, content);
+      pos += TarGzSink.BLOCK + ((size + TarGzSink.BLOCK - 1) / TarGzSink.BLOCK) * TarGzSink.BLOCK;
+    }
+
+    return result;
+  }
+
+  /**
+   * Reads the names and modes of the tar entries.
+   *
+   * @param archive	the tar.gz file
+   * @return		the entry names with their modes
+   * @throws Exception	if reading fails
+   */
+  protected Map<String,Integer> entries(File archive) throws Exception {
+    Map<String,Integer>		result;
+    byte[]			data;
+    String			name;
+    int				pos;
+    long			size;
+
+    data   = decompress(archive);
+    result = new LinkedHashMap<>();
+    pos    = 0;
+    while ((pos + TarGzSink.BLOCK <= data.length) && (data[pos] != 0)) {
+      name = new String(data, pos, 100, StandardCharsets.UTF_8).replace("\0", "");
+      result.put(name, Integer.parseInt(new String(data, pos + 100, 7, StandardCharsets.US_ASCII), 8));
+      size = Long.parseLong(new String(data, pos + 124, 11, StandardCharsets.US_ASCII), 8);
+      pos += TarGzSink.BLOCK + (int) ((size + TarGzSink.BLOCK - 1) / TarGzSink.BLOCK) * TarGzSink.BLOCK;
+    }
+
+    return result;
+  }
+
+  /**
+   * Tests that directories get added and that the modes are kept.
+   *
+   * @throws Exception	if writing fails
+   */
+  @Test
+  public void testModes() throws Exception {
+    File		archive;
+    File		script;
+    TarGzSink		sink;
+    Map<String,Integer>	entries;
+
+    script = TestUtils.write(m_Dir, "in/run.sh", "#!/bin/sh");
+    script.setExecutable(true, false);
+    archive = new File(m_Dir, "out.tar.gz");
+    sink    = new TarGzSink(archive, new AssemblyLayout("base"), 2);
+    sink.addFile("bin/run.sh", script);
+    sink.addBytes("pom.xml", "<project/>".getBytes(StandardCharsets.UTF_8), System.currentTimeMillis());
+    sink.close();
+
+    entries = entries(archive);
+    assertEquals(2, sink.getFileCount());
+    assertEquals(Integer.valueOf(0755), entries.get("base/"));
+    assertEquals(Integer.valueOf(0755), entries.get("base/bin/"));
+    assertEquals(Integer.valueOf(0755), entries.get("base/bin/run.sh"));
+    assertEquals(Integer.valueOf(0644), entries.get("base/pom.xml"));
+    assertEquals(4, entries.size());
+  }
+
+  /**
+   * Tests that the archive consists of a single gzip member.
+   *
+   * @throws Exception	if writing fails
+   */
+  @Test
+  public void testSingleMember() throws Exception {
+    File	archive;
+    TarGzSink	sink;
+    Inflater	inflater;
+    byte[]	data;
+    byte[]	buffer;
+    int		i;
+
+    archive = new File(m_Dir, "out.tar.gz");
+    sink    = new TarGzSink(archive, new AssemblyLayout(""), 4);
+    for (i = 0; i < 20; i++)
+      sink.addBytes("dir/file" + i + ".txt", ("content " + i).getBytes(StandardCharsets.UTF_8), System.currentTimeMillis());
+    sink.close();
+
+    // 10 byte header, deflate data, 8 byte trailer
+    data     = Files.readAllBytes(archive.toPath());
+    inflater = new Inflater(true);
+    inflater.setInput(data, 10, data.length - 10);
+    buffer   = new byte[8192];
+    while (!inflater.finished())
+      inflater.inflate(buffer);
+    assertEquals(8, inflater.getRemaining());
+    inflater.end();
+    assertTrue(sink.getCompressedCount() == data.length);
+  }
+
+  /**
+   * Tests that entries deflated by several threads round-trip through
+   * {@link GZIPInputStream}, including entries larger than the deflate
+   * buffer and incompressible ones.
+   *
+   * @throws Exception	if writing fails
+   */
+  @Test
+  public void testParallelRoundTrip() throws Exception {
+    File		archive;
+    TarGzSink		sink;
+    Map<String,byte[]>	expected;
+    Map<String,byte[]>	actual;
+    Random		rnd;
+    byte[]		data;
+    StringBuilder	text;
+    int			i;
+    int			n;
+
+    rnd      = new Random(42);
+    expected = new LinkedHashMap<>();
+    for (i = 0; i < 50; i++) {
+      if (i % 10 == 0) {
+	data = new byte[100000 + rnd.nextInt(50000)];
+	rnd.nextBytes(data);
+      }
+      else {
+	text = new StringBuilder();
+	for (n = rnd.nextInt(5000); n >= 0; n--)
+	  text.append("line ").append(i).append(' ').append(n).append('\n');
+	data = text.toString().getBytes(StandardCharsets.UTF_8);
+      }
+      expected.put("file" + i + ".txt", data);
+    }
+    expected.put("empty.txt", new byte[0]);
+
+    archive = new File(m_Dir, "out.tar.gz");
+    sink    = new TarGzSink(archive, new AssemblyLayout(""), 4);
+    for (String name: expected.keySet())
+      sink.addBytes(name, expected.get(name), System.currentTimeMillis());
+    sink.close();
+
+    actual = contents(archive);
+    assertEquals(expected.size(), actual.size());
+    for (String name: expected.keySet()) {
+      assertTrue(name, actual.containsKey(name));
+      assertArrayEquals(name, expected.get(name), actual.get(name));
+    }
+    assertEquals(archive.length(), sink.getCompressedCount());
+  }
+
+  /**
+   * Tests combining CRC32 checksums of consecutive parts.
+   */
+  @Test
+  public void testCombine() {
+    CRC32	crc;
+    byte[]	first;
+    byte[]	second;
+    long	crc1;
+    long	crc2;
+
+    first  = "the quick brown fox ".getBytes(StandardCharsets.US_ASCII);
+    second = "jumps over the lazy dog".getBytes(StandardCharsets.US_ASCII);
+    crc    = new CRC32();
+    crc.update(first);
+    crc1   = crc.getValue();
+    crc    = new CRC32();
+    crc.update(second);
+    crc2   = crc.getValue();
+    crc    = new CRC32();
+    crc.update(first);
+    crc.update(second);
+    assertEquals(crc.getValue(), TarGzSink.combine(crc1, crc2, second.length));
+    assertEquals(crc1, TarGzSink.combine(crc1, 0, 0));
+  }
+}
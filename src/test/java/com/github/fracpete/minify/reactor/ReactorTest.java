@@ -0,0 +1,281 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ReactorTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.reactor;
+
+import com.github.fracpete.minify.TestUtils;
+import com.github.fracpete.minify.reactor.Module.Dependency;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link Reactor}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ReactorTest {
+
+  /** the pom.xml of the reactor. */
+  public final static String REACTOR_POM =
+    "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+      + "<!-- the reactor -->\n"
+      + "<project>\n"
+      + "  <groupId>org.example</groupId>\n"
+      + "  <artifactId>parent</artifactId>\n"
+      + "  <version>1.0</version>\n"
+      + "  <packaging>pom</packaging>\n"
+      + "  <modules>\n"
+      + "    <module>core</module>\n"
+      + "    <module>gui</module>\n"
+      + "  </modules>\n"
+      + "  <dependencyManagement>\n"
+      + "    <dependencies>\n"
+      + "      <dependency>\n"
+      + "        <groupId>org.other</groupId>\n"
+      + "        <artifactId>it's-quoted</artifactId>\n"
+      + "        <version>2.0</version>\n"
+      + "      </dependency>\n"
+      + "    </dependencies>\n"
+      + "  </dependencyManagement>\n"
+      + "</project>\n";
+
+  /** the pom.xml of the core module. */
+  public final static String CORE_POM =
+    "<project>\n"
+      + "  <artifactId>core</artifactId>\n"
+      + "</project>\n";
+
+  /** the start of the pom.xml of the gui module. */
+  public final static String GUI_POM_HEAD =
+    "<?xml version='1.0' encoding='UTF-8'?>\n"
+      + "<!-- <dependency> in a comment -->\n"
+      + "<project xsi:schemaLocation='http://maven.apache.org/POM/4.0.0 x.xsd' xmlns=\"http://maven.apache.org/POM/4.0.0\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">\n"
+      + "  <artifactId>gui</artifactId>\n"
+      + "  <name>GUI &amp; more</name>\n"
+      + "  <description><![CDATA[uses <core>]]></description>\n"
+      + "  <url></url>\n"
+      + "  <dependencies>\n";
+
+  /** the dependency on the core module in the pom.xml of the gui module. */
+  public final static String GUI_POM_CORE =
+    "    <dependency>\n"
+      + "      <groupId>${project.groupId}</groupId>\n"
+      + "      <artifactId>core</artifactId>\n"
+      + "      <version>${project.version}</version>\n"
+      + "    </dependency>\n";
+
+  /** the rest of the pom.xml of the gui module. */
+  public final static String GUI_POM_TAIL =
+    "    <!-- <dependency><artifactId>core</artifactId></dependency> -->\n"
+      + "    <dependency>\n"
+      + "      <groupId>org.other</groupId>\n"
+      + "      <artifactId>core</artifactId>\n"
+      + "      <version>3.0</version>\n"
+      + "    </dependency>\n"
+      + "    <dependency>\n"
+      + "      <groupId>org.other</groupId>\n"
+      + "      <artifactId>it's-quoted</artifactId>\n"
+      + "    </dependency>\n"
+      + "  </dependencies>\n"
+      + "  <dependencyManagement>\n"
+      + "    <dependencies>\n"
+      + "      <dependency>\n"
+      + "        <groupId>org.example</groupId>\n"
+      + "        <artifactId>core</artifactId>\n"
+      + "        <version>1.0</version>\n"
+      + "      </dependency>\n"
+      + "    </dependencies>\n"
+      + "  </dependencyManagement>\n"
+      + "  <build>\n"
+      + "    <plugins>\n"
+      + "      <plugin>\n"
+      + "        <artifactId>exec-maven-plugin</artifactId>\n"
+      + "        <dependencies>\n"
+      + "          <dependency>\n"
+      + "            <groupId>org.example</groupId>\n"
+      + "            <artifactId>core</artifactId>\n"
+      + "            <version>1.0</version>\n"
+      + "          </dependency>\n"
+      + "        </dependencies>\n"
+      + "      </plugin>\n"
+      + "    </plugins>\n"
+      + "  </build>\n"
+      + "</project>\n";
+
+  /** the pom.xml of the gui module. */
+  public final static String GUI_POM = GUI_POM_HEAD + GUI_POM_CORE + GUI_POM_TAIL;
+
+  /** the working directory. */
+  protected File m_Dir;
+
+  /**
+   * Creates the working directory.
+   *
+   * @throws Exception	if creating fails
+   */
+  @Before
+  public void setUp() throws Exception {
+    m_Dir = TestUtils.tempDir("reactor");
+    TestUtils.write(m_Dir, "pom.xml", REACTOR_POM);
+    TestUtils.write(m_Dir, "core/pom.xml", CORE_POM);
+    TestUtils.write(m_Dir, "core/src/main/java/a/Core.java", "package a; public class Core {}");
+    TestUtils.write(m_Dir, "gui/pom.xml", GUI_POM);
+    TestUtils.write(m_Dir, "gui/src/main/java/b/Gui.java", "package b; public class Gui {}");
+  }
+
+  /**
+   * Removes the working directory.
+   */
+  @After
+  public void tearDown() {
+    TestUtils.delete(m_Dir);
+  }
+
+  /**
+   * Returns the module with the specified artifact ID.
+   *
+   * @param reactor	the reactor to search
+   * @param artifactId	the artifact ID
+   * @return		the module
+   */
+  protected Module module(Reactor reactor, String artifactId) {
+    Module	result;
+
+    result = reactor.getModule("org.example", artifactId);
+    assertNotNull(artifactId, result);
+
+    return result;
+  }
+
+  /**
+   * Tests that classes get assigned to the module with the source file and
+   * that unknown classes are not owned by any module.
+   *
+   * @throws Exception	if reading fails
+   */
+  @Test
+  public void testOwnership() throws Exception {
+    Reactor	reactor;
+
+    reactor = Reactor.read(m_Dir);
+    assertTrue(reactor.isMultiModule());
+    assertEquals(2, reactor.getModules().size());
+    assertSame(module(reactor, "core"), reactor.ownerOf("a.Core"));
+    assertSame(module(reactor, "gui"), reactor.ownerOf("b.Gui"));
+    assertNull(reactor.ownerOf("c.Unknown"));
+  }
+
+  /**
+   * Tests that a single module owns all classes.
+   *
+   * @throws Exception	if reading fails
+   */
+  @Test
+  public void testSingleModule() throws Exception {
+    Reactor	reactor;
+
+    reactor = Reactor.read(new File(m_Dir, "core"));
+    assertFalse(reactor.isMultiModule());
+    assertSame(reactor.getRoot(), reactor.ownerOf("c.Unknown"));
+  }
+
+  /**
+   * Tests that only the dependency in /project/dependencies with matching
+   * group and artifact ID gets removed and that the rest of the content
+   * stays byte-identical.
+   *
+   * @throws Exception	if reading or rewriting fails
+   */
+  @Test
+  public void testRemoveDependencies() throws Exception {
+    Reactor	reactor;
+    Module	gui;
+    String	pom;
+
+    reactor = Reactor.read(m_Dir);
+    gui     = module(reactor, "gui");
+    pom     = Reactor.removeDependencies(gui, GUI_POM, Arrays.asList(module(reactor, "core")));
+
+    assertEquals(GUI_POM_HEAD + GUI_POM_TAIL, pom);
+  }
+
+  /**
+   * Tests removing a dependency that shares its line with other content.
+   *
+   * @throws Exception	if reading or rewriting fails
+   */
+  @Test
+  public void testRemoveInline() throws Exception {
+    Reactor	reactor;
+    String	pom;
+    String	inline;
+
+    reactor = Reactor.read(m_Dir);
+    inline  = GUI_POM_HEAD
+      + "    <dependency><groupId>org.example</groupId><artifactId>core</artifactId></dependency> <!-- core -->\n"
+      + GUI_POM_TAIL;
+    pom     = Reactor.removeDependencies(module(reactor, "gui"), inline, Arrays.asList(module(reactor, "core")));
+    assertEquals(GUI_POM_HEAD + "     <!-- core -->\n" + GUI_POM_TAIL, pom);
+  }
+
+  /**
+   * Tests that the content stays unchanged if nothing gets removed.
+   *
+   * @throws Exception	if reading or rewriting fails
+   */
+  @Test
+  public void testRemoveNothing() throws Exception {
+    Reactor	reactor;
+
+    reactor = Reactor.read(m_Dir);
+    assertSame(GUI_POM, Reactor.removeDependencies(module(reactor, "gui"), GUI_POM, Collections.<Module>emptyList()));
+  }
+
+  /**
+   * Tests that managed versions get found for coordinates with quotes.
+   *
+   * @throws Exception	if reading fails
+   */
+  @Test
+  public void testManagedVersion() throws Exception {
+    Reactor		reactor;
+    List<Dependency>	deps;
+
+    reactor = Reactor.read(m_Dir);
+    deps    = module(reactor, "gui").getDependencies();
+    assertEquals(3, deps.size());
+    assertEquals("it's-quoted", deps.get(2).artifactId);
+    assertEquals("2.0", deps.get(2).version);
+    assertEquals("1.0", deps.get(0).version);
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ResourceReferencesTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package com.github.fracpete.minify.resources;
+
+import com.github.fracpete.minify.TestUtils;
+import com.github.fracpete.minify.core.ClassSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link ResourceReferences}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ResourceReferencesTest {
+
+  /** the working directory. */
+  protected File m_Dir;
+
+  /**
+   * Creates the working directory.
+   *
+   * @throws Exception	if creating fails
+   */
+  @Before
+  public void setUp() throws Exception {
+    m_Dir = TestUtils.tempDir("resources");
+  }
+
+  /**
+   * Removes the working directory.
+   */
+  @After
+  public void tearDown() {
+    TestUtils.delete(m_Dir);
+  }
+
+  /**
+   * Tests how strings get interpreted: names, paths relative to the
+   * package, absolute paths and directories.
+   */
+  @Test
+  public void testStrings() {
+    ResourceReferences	refs;
+
+    refs = new ResourceReferences();
+    refs.addString("a/b/", "logo.png");
+    refs.addString("a/b/", "../c/data.txt");
+    refs.addString("a/b/", "/x/y.xml");
+    refs.addString("a/b/", "images/");
+    refs.addString("a/b/", "../../../outside.txt");
+    refs.addKeep("keep/**");
+
+    assertTrue(refs.isReferenced("any/where/logo.png"));
+    assertTrue(refs.isReferenced("a/c/data.txt"));
+    assertTrue(refs.isReferenced("x/y.xml"));
+    assertTrue(refs.isReferenced("a/b/images/sub/icon.gif"));
+    assertTrue(refs.isReferenced("keep/me/too.bin"));
+    assertFalse(refs.isReferenced("outside.txt"));
+    assertFalse(refs.isReferenced("a/b/other.png"));
+  }
+
+  /**
+   * Tests that resources referenced only from nested and anonymous classes
+   * get selected, as well as the ones referenced from referenced props
+   * files.
+   *
+   * @throws Exception	if compiling fails
+   */
+  @Test
+  public void testNestedClasses() throws Exception {
+    ResourceReferences	refs;
+    ClassSet		classes;
+    File		res;
+    List<String>	selected;
+
+    TestUtils.write(m_Dir, "src/a/Main.java",
+      "package a; public class Main {\n"
+	+ "  String props = \"Main.props\";\n"
+	+ "  static class Inner { String icon = \"icons/inner.png\"; }\n"
+	+ "  Runnable r = new Runnable() { public void run() { System.out.println(\"anon/data.txt\"); } };\n"
+	+ "}");
+    TestUtils.write(m_Dir, "src/b/Dropped.java", "package b; public class Dropped { String s = \"dropped.txt\"; }");
+    TestUtils.compile(new File(m_Dir, "src"), new File(m_Dir, "classes"));
+
+    res = new File(m_Dir, "res");
+    TestUtils.write(res, "a/Main.props", "Icons=/c/linked.png\n");
+    TestUtils.write(res, "a/icons/inner.png", "");
+    TestUtils.write(res, "a/anon/data.txt", "");
+    TestUtils.write(res, "c/linked.png", "");
+    TestUtils.write(res, "b/dropped.txt", "");
+    TestUtils.write(res, "a/unused.png", "");
+
+    classes = new ClassSet();
+    classes.add("a.Main");
+    refs = new ResourceReferences();
+    refs.addClasses(Arrays.asList(new File(m_Dir, "classes").getAbsolutePath()), classes);
+    selected = refs.select(res, Arrays.asList("a/Main.props", "a/icons/inner.png", "a/anon/data.txt", "c/linked.png", "b/dropped.txt", "a/unused.png"));
+    Collections.sort(selected);
+
+    assertEquals(Arrays.asList("a/Main.props", "a/anon/data.txt", "a/icons/inner.png", "c/linked.png"), selected);
+  }
+}